@@ -1,18 +1,36 @@
 package org.example;
 
+import org.example.delivery.ConsoleSink;
 import org.example.exceptions.InvalidInputException;
+import org.example.observers.ObserverImpl;
 import org.example.observers.SubjectImpl;
 import org.example.service.NotificationService;
+import org.example.social.SocialGraph;
+import org.example.workload.WorkloadDriver;
 
 import java.util.Scanner;
 
 public class Main
 {
-    private static final NotificationService service = new NotificationService(new SubjectImpl());
+    private static final SocialGraph socialGraph = new SocialGraph();
+    private static final NotificationService service = new NotificationService(new SubjectImpl(socialGraph),
+            ObserverImpl.DEFAULT_INBOX_CAPACITY, new ConsoleSink(), socialGraph);
     private static final Scanner scanner = new Scanner(System.in);
 
+    /**
+     * Without arguments, runs the interactive menu; with arguments, runs headless, see {@link WorkloadDriver#USAGE}.
+     */
     public static void main(String[] args)
     {
+        if (args.length > 0)
+        {
+            int exitCode = WorkloadDriver.run(args, System.out);
+            if (exitCode != 0)
+            {
+                System.exit(exitCode);
+            }
+            return;
+        }
         while (true)
         {
             System.out.println("\n===== Notification System Menu =====");
@@ -0,0 +1,160 @@
+package org.example.delivery;
+
+import org.example.model.Notification;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queues notifications and writes them from a background thread through an NIO channel. The writer drains the
+ * queue in batches and encodes each batch into one buffer, so the dispatch threads never wait for I/O.
+ * When the queue is full new notifications are dropped and counted instead of blocking delivery.
+ */
+public class AsyncChannelSink implements DeliverySink, AutoCloseable
+{
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private record Delivery(String userId, Notification notification)
+    {
+    }
+
+    private final WritableByteChannel channel;
+    private final BlockingQueue<Delivery> queue;
+    private final Thread writer;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean running = true;
+
+    public AsyncChannelSink(WritableByteChannel channel, int queueCapacity)
+    {
+        this.channel = channel;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::writeLoop, "notification-sink-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void deliver(String userId, Notification notification)
+    {
+        if (!running || !queue.offer(new Delivery(userId, notification)))
+        {
+            dropped.increment();
+        }
+    }
+
+    public long getWrittenCount()
+    {
+        return written.sum();
+    }
+
+    public long getDroppedCount()
+    {
+        return dropped.sum();
+    }
+
+    public int getQueueDepth()
+    {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting notifications, writes everything already queued and closes the channel. Notifications queued
+     * after the writer stopped are counted as dropped. If the calling thread is interrupted meanwhile, it still waits
+     * and keeps its interrupt status.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        running = false;
+        boolean interrupted = false;
+        while (writer.isAlive())
+        {
+            try
+            {
+                writer.join();
+            } catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+        dropped.add(queue.size());
+        queue.clear();
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void writeLoop()
+    {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        List<Delivery> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        try
+        {
+            while (running || !queue.isEmpty())
+            {
+                Delivery first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null)
+                {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                writeBatch(batch, encoder, buffer);
+                written.add(batch.size());
+                batch.clear();
+            }
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        } catch (IOException e)
+        {
+            System.out.println("Error: Notification sink stopped writing: " + e.getMessage());
+            running = false;
+            dropped.add(batch.size() + queue.size());
+            queue.clear();
+        }
+    }
+
+    private void writeBatch(List<Delivery> batch, CharsetEncoder encoder, ByteBuffer buffer) throws IOException
+    {
+        for (Delivery delivery : batch)
+        {
+            CharBuffer line = CharBuffer.wrap(ConsoleSink.format(delivery.userId(), delivery.notification()) + "\n");
+            encoder.reset();
+            CoderResult result = encoder.encode(line, buffer, true);
+            while (result.isOverflow())
+            {
+                drain(buffer);
+                result = encoder.encode(line, buffer, true);
+            }
+        }
+        drain(buffer);
+    }
+
+    private void drain(ByteBuffer buffer) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.delivery;
+
+import org.example.model.Notification;
+
+/**
+ * Prints every notification synchronously on the calling thread. Used by the interactive CLI.
+ */
+public class ConsoleSink implements DeliverySink
+{
+    @Override
+    public void deliver(String userId, Notification notification)
+    {
+        System.out.println(format(userId, notification));
+    }
+
+    static String format(String userId, Notification notification)
+    {
+        return "User " + userId + " received notification: " + notification.message();
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.delivery;
+
+import org.example.model.Notification;
+
+import java.util.List;
+
+/**
+ * Where an observer hands the notifications it received, e.g. the console or a client connection.
+ * Implementations must be safe to call from several dispatch threads.
+ */
+public interface DeliverySink
+{
+    void deliver(String userId, Notification notification);
+
+    default void deliverAll(String userId, List<Notification> notifications)
+    {
+        for (Notification notification : notifications)
+        {
+            deliver(userId, notification);
+        }
+    }
+}
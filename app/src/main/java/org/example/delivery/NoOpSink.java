@@ -0,0 +1,21 @@
+package org.example.delivery;
+
+import org.example.model.Notification;
+
+import java.util.List;
+
+/**
+ * Discards every notification, so benchmarks measure dispatch without any output cost.
+ */
+public class NoOpSink implements DeliverySink
+{
+    @Override
+    public void deliver(String userId, Notification notification)
+    {
+    }
+
+    @Override
+    public void deliverAll(String userId, List<Notification> notifications)
+    {
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.events;
+
+/**
+ * Created by Michael Garcia on 17/03/25
+ */
+public interface EventType {
+  String name();
+
+  /**
+   * Dense number of this type across every {@link EventType} enum, see {@link EventTypes}.
+   */
+  int id();
+
+  default int mask() {
+    return 1 << id();
+  }
+
+  /**
+   * Default dispatch priority of notifications of this type.
+   */
+  default Priority priority() {
+    return Priority.NORMAL;
+  }
+}
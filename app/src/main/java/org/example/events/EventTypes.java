@@ -0,0 +1,85 @@
+package org.example.events;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense numbering of every event type, so preferences and per-type tables can be stored as bits and arrays.
+ */
+public final class EventTypes
+{
+    private static final EventType[] ALL = collect();
+    private static final Map<String, EventType> BY_QUALIFIED_NAME = byQualifiedName();
+
+    private EventTypes()
+    {
+    }
+
+    public static int count()
+    {
+        return ALL.length;
+    }
+
+    public static EventType byId(int id)
+    {
+        return ALL[id];
+    }
+
+    /**
+     * The type's enum and constant name, e.g. {@code GameEvents.PVP}; constant names alone are not unique across enums.
+     */
+    public static String qualifiedName(EventType type)
+    {
+        return type instanceof Enum<?> constant
+                ? constant.getDeclaringClass().getSimpleName() + "." + constant.name()
+                : type.name();
+    }
+
+    /**
+     * The type with the given {@link #qualifiedName}, or null if there is none, e.g. in data written by a later
+     * version.
+     */
+    public static EventType byQualifiedName(String qualifiedName)
+    {
+        return BY_QUALIFIED_NAME.get(qualifiedName);
+    }
+
+    public static int maskOf(EventType... types)
+    {
+        int mask = 0;
+        for (EventType type : types)
+        {
+            mask |= type.mask();
+        }
+        return mask;
+    }
+
+    private static EventType[] collect()
+    {
+        List<EventType> all = new ArrayList<>();
+        all.addAll(List.of(GameEvents.values()));
+        all.addAll(List.of(SocialEvents.values()));
+        EventType[] byId = new EventType[all.size()];
+        for (EventType type : all)
+        {
+            byId[type.id()] = type;
+        }
+        if (byId.length > Integer.SIZE)
+        {
+            throw new IllegalStateException("Event types no longer fit in an int mask: " + byId.length);
+        }
+        return byId;
+    }
+
+    private static Map<String, EventType> byQualifiedName()
+    {
+        Map<String, EventType> types = new HashMap<>();
+        for (EventType type : ALL)
+        {
+            types.put(qualifiedName(type), type);
+        }
+        return types;
+    }
+}
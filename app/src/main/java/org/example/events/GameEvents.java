@@ -0,0 +1,25 @@
+package org.example.events;
+
+public enum GameEvents implements EventType {
+  LEVEL_UP(Priority.NORMAL),
+  ITEM_ACQUIRED(Priority.LOW),
+  CHALLENGE_COMPLETED(Priority.NORMAL),
+  ACHIEVEMENT_COMPLETED(Priority.LOW),
+  PVP(Priority.HIGH);
+
+  private final Priority priority;
+
+  GameEvents(Priority priority) {
+    this.priority = priority;
+  }
+
+  @Override
+  public int id() {
+    return ordinal();
+  }
+
+  @Override
+  public Priority priority() {
+    return priority;
+  }
+}
@@ -0,0 +1,15 @@
+package org.example.events;
+
+/**
+ * How urgently notifications of an {@link EventType} must reach their recipients. A
+ * {@link org.example.observers.PrioritySubject} dispatches them in lanes, serving higher priorities first; the
+ * constants are declared from the highest priority to the lowest.
+ */
+public enum Priority
+{
+    /** Alerts that lose their value within milliseconds, such as being attacked. */
+    HIGH,
+    NORMAL,
+    /** Notifications that can wait behind everything else, such as achievement and item broadcasts. */
+    LOW
+}
@@ -0,0 +1,31 @@
+package org.example.events;
+
+public enum SocialEvents implements EventType
+{
+    PVP(Priority.HIGH),
+    FRIEND_REQUEST(Priority.NORMAL),
+    FRIEND_REQUEST_IS_ACCEPTED(Priority.NORMAL),
+    NEW_FOLLOWER(Priority.LOW);
+
+    /** Social ids follow the game ids; cached, since {@code values()} copies its array on every call. */
+    private static final int FIRST_ID = GameEvents.values().length;
+
+    private final Priority priority;
+
+    SocialEvents(Priority priority)
+    {
+        this.priority = priority;
+    }
+
+    @Override
+    public int id()
+    {
+        return FIRST_ID + ordinal();
+    }
+
+    @Override
+    public Priority priority()
+    {
+        return priority;
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.metrics;
+
+/**
+ * Counters and distributions of one event type. Latencies are in microseconds.
+ */
+public interface EventTypeMetricsMXBean
+{
+    String getEventType();
+
+    /** Notifications of this type published through the service. */
+    long getPublished();
+
+    /** Notifications of this type handed to recipients. */
+    long getDeliveries();
+
+    /** Recipients in the audience that did not receive the notification because they disabled this type. */
+    long getFilteredByPreference();
+
+    double getFanOutSizeMean();
+
+    long getFanOutSizeP99();
+
+    long getFanOutSizeMax();
+
+    long getFanOutMicrosP50();
+
+    long getFanOutMicrosP99();
+
+    long getFanOutMicrosMax();
+
+    long getPublishMicrosP50();
+
+    long getPublishMicrosP99();
+
+    long getPublishMicrosMax();
+}
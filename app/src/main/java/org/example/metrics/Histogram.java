@@ -0,0 +1,121 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative values, such as latencies in nanoseconds or fan-out sizes. Values are counted in
+ * buckets that double in width, each split into {@value #SUB_BUCKETS} equal steps, so a reported percentile is at
+ * most 1/{@value #SUB_BUCKETS} above the true value. Every bucket is a {@link LongAdder}, so threads recording at the
+ * same time do not contend on one counter.
+ */
+public class Histogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a value; negative values count as 0.
+     */
+    public void record(long value)
+    {
+        long clamped = Math.max(value, 0);
+        counts[bucketOf(clamped)].increment();
+        sum.add(clamped);
+        max.accumulate(clamped);
+    }
+
+    public long count()
+    {
+        long count = 0;
+        for (LongAdder bucket : counts)
+        {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Sum of the recorded values, e.g. the total deliveries of a histogram of fan-out sizes.
+     */
+    public long sum()
+    {
+        return sum.sum();
+    }
+
+    public double mean()
+    {
+        long count = count();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    public long max()
+    {
+        return max.get();
+    }
+
+    /**
+     * The value below which {@code quantile} (between 0 and 1) of the recorded values fall, rounded up to the bucket
+     * bound; 0 if nothing was recorded.
+     */
+    public long percentile(double quantile)
+    {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            snapshot[i] = counts[i].sum();
+            total += snapshot[i];
+        }
+        if (total == 0)
+        {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += snapshot[i];
+            if (seen >= rank)
+            {
+                return Math.min(upperBoundOf(i), max());
+            }
+        }
+        return max();
+    }
+
+    static int bucketOf(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift & (SUB_BUCKETS - 1));
+    }
+
+    static long upperBoundOf(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
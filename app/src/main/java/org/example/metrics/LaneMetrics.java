@@ -0,0 +1,140 @@
+package org.example.metrics;
+
+import org.example.events.Priority;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of one priority lane, recorded by the lane's publishers and its dispatcher.
+ */
+public class LaneMetrics implements LaneMetricsMXBean
+{
+    private final Priority priority;
+    private final IntSupplier queueDepth;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder starvationPromotions = new LongAdder();
+    private final Histogram queueWaitNanos = new Histogram();
+    private final Histogram latencyNanos = new Histogram();
+
+    public LaneMetrics(Priority priority, IntSupplier queueDepth)
+    {
+        this.priority = priority;
+        this.queueDepth = queueDepth;
+    }
+
+    public void recordAccepted()
+    {
+        accepted.increment();
+    }
+
+    public void recordDropped()
+    {
+        dropped.increment();
+    }
+
+    public void recordDropped(int count)
+    {
+        dropped.add(count);
+    }
+
+    public void recordStarvationPromotion()
+    {
+        starvationPromotions.increment();
+    }
+
+    /**
+     * A notification accepted at {@code acceptedAt} was dispatched from {@code dispatchStart} to {@code dispatchEnd}.
+     */
+    public void recordDelivered(long acceptedAt, long dispatchStart, long dispatchEnd)
+    {
+        delivered.increment();
+        queueWaitNanos.record(dispatchStart - acceptedAt);
+        latencyNanos.record(dispatchEnd - acceptedAt);
+    }
+
+    public Histogram latencyNanos()
+    {
+        return latencyNanos;
+    }
+
+    @Override
+    public String getPriority()
+    {
+        return priority.name();
+    }
+
+    @Override
+    public int getQueueDepth()
+    {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public long getAccepted()
+    {
+        return accepted.sum();
+    }
+
+    @Override
+    public long getDelivered()
+    {
+        return delivered.sum();
+    }
+
+    @Override
+    public long getDropped()
+    {
+        return dropped.sum();
+    }
+
+    @Override
+    public long getStarvationPromotions()
+    {
+        return starvationPromotions.sum();
+    }
+
+    @Override
+    public long getQueueWaitMicrosP50()
+    {
+        return micros(queueWaitNanos.percentile(0.5));
+    }
+
+    @Override
+    public long getQueueWaitMicrosP99()
+    {
+        return micros(queueWaitNanos.percentile(0.99));
+    }
+
+    @Override
+    public long getLatencyMicrosP50()
+    {
+        return micros(latencyNanos.percentile(0.5));
+    }
+
+    @Override
+    public long getLatencyMicrosP99()
+    {
+        return micros(latencyNanos.percentile(0.99));
+    }
+
+    @Override
+    public long getLatencyMicrosP999()
+    {
+        return micros(latencyNanos.percentile(0.999));
+    }
+
+    @Override
+    public long getLatencyMicrosMax()
+    {
+        return micros(latencyNanos.max());
+    }
+
+    private static long micros(long nanos)
+    {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.metrics;
+
+/**
+ * Counters and latencies of one priority lane of a {@link org.example.observers.PrioritySubject}. Queue wait is the
+ * time from being accepted to the start of dispatch; latency adds the dispatch itself. Times are in microseconds.
+ */
+public interface LaneMetricsMXBean
+{
+    String getPriority();
+
+    int getQueueDepth();
+
+    long getAccepted();
+
+    long getDelivered();
+
+    long getDropped();
+
+    /** Batches served ahead of higher lanes because this lane's oldest notification waited too long. */
+    long getStarvationPromotions();
+
+    long getQueueWaitMicrosP50();
+
+    long getQueueWaitMicrosP99();
+
+    long getLatencyMicrosP50();
+
+    long getLatencyMicrosP99();
+
+    long getLatencyMicrosP999();
+
+    long getLatencyMicrosMax();
+}
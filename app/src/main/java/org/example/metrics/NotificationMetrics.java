@@ -0,0 +1,377 @@
+package org.example.metrics;
+
+import org.example.events.EventType;
+import org.example.events.EventTypes;
+import org.example.model.Notification;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publish, delivery and fan-out metrics per event type, recorded by the service and the subject on the dispatch path.
+ * All counters are {@link LongAdder}s and all distributions are {@link Histogram}s, so recording from many dispatch
+ * threads does not contend. Counts are exact, but only one in {@value #TIMING_SAMPLE_RATE} publishes and fan-outs is
+ * timed, since reading the clock twice costs more than dispatching to a single recipient. One instance can be shared
+ * by every shard of a sharded subject; each shard then records its own fan-out of a broadcast. Recording is paused
+ * while a service replays its log, see {@link #pause()}. {@link #registerMBeans()} exposes the metrics through the
+ * platform MBean server.
+ */
+public class NotificationMetrics implements NotificationMetricsMXBean
+{
+    public static final String DOMAIN = "org.example.notifications";
+    public static final int TIMING_SAMPLE_RATE = 16;
+    /** Returned by {@link #startTimer()} when the operation is not timed. */
+    public static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private final String name;
+    private final TypeMetrics[] byType = new TypeMetrics[EventTypes.count()];
+    private final LongAdder batchPublishes = new LongAdder();
+    private final Histogram batchPublishNanos = new Histogram();
+    private final Histogram batchDispatchNanos = new Histogram();
+    /** Number of callers that paused recording; nothing is recorded while it is positive. */
+    private final AtomicInteger pauses = new AtomicInteger();
+
+    /**
+     * @param name distinguishes the MBeans of several instances, e.g. one per service
+     */
+    public NotificationMetrics(String name)
+    {
+        this.name = name;
+        for (int id = 0; id < byType.length; id++)
+        {
+            byType[id] = new TypeMetrics(EventTypes.byId(id));
+        }
+    }
+
+    /**
+     * The start time to pass to the recording methods: {@link System#nanoTime()} for a sampled operation, otherwise
+     * {@link #NOT_TIMED}.
+     */
+    public static long startTimer()
+    {
+        return ThreadLocalRandom.current().nextInt(TIMING_SAMPLE_RATE) == 0 ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /**
+     * Stops recording until every caller that paused called {@link #resume()}, e.g. while notifications that were
+     * already counted when first published are replayed from a log.
+     */
+    public void pause()
+    {
+        pauses.incrementAndGet();
+    }
+
+    public void resume()
+    {
+        pauses.decrementAndGet();
+    }
+
+    /**
+     * A notification was published on its own; its dispatch, decorators included, started at {@code start}.
+     */
+    public void recordPublish(EventType type, long start)
+    {
+        if (isPaused())
+        {
+            return;
+        }
+        TypeMetrics metrics = byType[type.id()];
+        metrics.published.increment();
+        recordElapsed(metrics.publishNanos, start);
+    }
+
+    public void recordBatchPublish(List<Notification> notifications, long start)
+    {
+        if (isPaused())
+        {
+            return;
+        }
+        for (Notification notification : notifications)
+        {
+            byType[notification.type().id()].published.increment();
+        }
+        batchPublishes.increment();
+        recordElapsed(batchPublishNanos, start);
+    }
+
+    /**
+     * A subject handed one notification to {@code delivered} recipients, starting at {@code start}.
+     */
+    public void recordFanOut(EventType type, int delivered, long start)
+    {
+        if (isPaused())
+        {
+            return;
+        }
+        recordDeliveries(type, delivered);
+        recordElapsed(byType[type.id()].fanOutNanos, start);
+    }
+
+    /**
+     * Like {@link #recordFanOut}, for a notification dispatched as part of a batch, whose time is only known for the
+     * whole batch.
+     */
+    public void recordDeliveries(EventType type, int delivered)
+    {
+        if (isPaused())
+        {
+            return;
+        }
+        byType[type.id()].fanOutSize.record(delivered);
+    }
+
+    public void recordBatchDispatch(long start)
+    {
+        if (isPaused())
+        {
+            return;
+        }
+        recordElapsed(batchDispatchNanos, start);
+    }
+
+    public void recordFiltered(EventType type, long recipients)
+    {
+        if (isPaused())
+        {
+            return;
+        }
+        byType[type.id()].filtered.add(recipients);
+    }
+
+    public EventTypeMetricsMXBean of(EventType type)
+    {
+        return byType[type.id()];
+    }
+
+    /**
+     * Registers one MBean with the totals and one per event type with the platform MBean server.
+     */
+    public void registerMBeans()
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try
+        {
+            server.registerMBean(this, objectName(null));
+            for (TypeMetrics metrics : byType)
+            {
+                server.registerMBean(metrics, objectName(metrics.type));
+            }
+        } catch (JMException e)
+        {
+            throw new IllegalStateException("Failed to register the notification metrics MBeans", e);
+        }
+    }
+
+    public void unregisterMBeans()
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try
+        {
+            server.unregisterMBean(objectName(null));
+            for (TypeMetrics metrics : byType)
+            {
+                server.unregisterMBean(objectName(metrics.type));
+            }
+        } catch (JMException e)
+        {
+            throw new IllegalStateException("Failed to unregister the notification metrics MBeans", e);
+        }
+    }
+
+    /**
+     * {@code org.example.notifications:type=NotificationMetrics,name=<name>}, with an {@code eventType} key for the
+     * per-type MBeans.
+     */
+    public ObjectName objectName(EventType type) throws JMException
+    {
+        String base = DOMAIN + ":type=NotificationMetrics,name=" + ObjectName.quote(name);
+        return new ObjectName(type == null ? base : base + ",eventType=" + EventTypes.qualifiedName(type));
+    }
+
+    @Override
+    public long getPublished()
+    {
+        long published = 0;
+        for (TypeMetrics metrics : byType)
+        {
+            published += metrics.getPublished();
+        }
+        return published;
+    }
+
+    @Override
+    public long getDeliveries()
+    {
+        long deliveries = 0;
+        for (TypeMetrics metrics : byType)
+        {
+            deliveries += metrics.getDeliveries();
+        }
+        return deliveries;
+    }
+
+    @Override
+    public long getFilteredByPreference()
+    {
+        long filtered = 0;
+        for (TypeMetrics metrics : byType)
+        {
+            filtered += metrics.getFilteredByPreference();
+        }
+        return filtered;
+    }
+
+    @Override
+    public long getBatchPublishes()
+    {
+        return batchPublishes.sum();
+    }
+
+    @Override
+    public long getBatchPublishMicrosP50()
+    {
+        return micros(batchPublishNanos.percentile(0.5));
+    }
+
+    @Override
+    public long getBatchPublishMicrosP99()
+    {
+        return micros(batchPublishNanos.percentile(0.99));
+    }
+
+    @Override
+    public long getBatchPublishMicrosMax()
+    {
+        return micros(batchPublishNanos.max());
+    }
+
+    @Override
+    public long getBatchDispatchMicrosP50()
+    {
+        return micros(batchDispatchNanos.percentile(0.5));
+    }
+
+    @Override
+    public long getBatchDispatchMicrosP99()
+    {
+        return micros(batchDispatchNanos.percentile(0.99));
+    }
+
+    private boolean isPaused()
+    {
+        return pauses.get() > 0;
+    }
+
+    private static void recordElapsed(Histogram histogram, long start)
+    {
+        if (start != NOT_TIMED)
+        {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    private static long micros(long nanos)
+    {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static final class TypeMetrics implements EventTypeMetricsMXBean
+    {
+        private final EventType type;
+        private final LongAdder published = new LongAdder();
+        private final LongAdder filtered = new LongAdder();
+        private final Histogram fanOutSize = new Histogram();
+        private final Histogram fanOutNanos = new Histogram();
+        private final Histogram publishNanos = new Histogram();
+
+        TypeMetrics(EventType type)
+        {
+            this.type = type;
+        }
+
+        @Override
+        public String getEventType()
+        {
+            return EventTypes.qualifiedName(type);
+        }
+
+        @Override
+        public long getPublished()
+        {
+            return published.sum();
+        }
+
+        @Override
+        public long getDeliveries()
+        {
+            return fanOutSize.sum();
+        }
+
+        @Override
+        public long getFilteredByPreference()
+        {
+            return filtered.sum();
+        }
+
+        @Override
+        public double getFanOutSizeMean()
+        {
+            return fanOutSize.mean();
+        }
+
+        @Override
+        public long getFanOutSizeP99()
+        {
+            return fanOutSize.percentile(0.99);
+        }
+
+        @Override
+        public long getFanOutSizeMax()
+        {
+            return fanOutSize.max();
+        }
+
+        @Override
+        public long getFanOutMicrosP50()
+        {
+            return micros(fanOutNanos.percentile(0.5));
+        }
+
+        @Override
+        public long getFanOutMicrosP99()
+        {
+            return micros(fanOutNanos.percentile(0.99));
+        }
+
+        @Override
+        public long getFanOutMicrosMax()
+        {
+            return micros(fanOutNanos.max());
+        }
+
+        @Override
+        public long getPublishMicrosP50()
+        {
+            return micros(publishNanos.percentile(0.5));
+        }
+
+        @Override
+        public long getPublishMicrosP99()
+        {
+            return micros(publishNanos.percentile(0.99));
+        }
+
+        @Override
+        public long getPublishMicrosMax()
+        {
+            return micros(publishNanos.max());
+        }
+    }
+}
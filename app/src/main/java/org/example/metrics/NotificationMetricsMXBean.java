@@ -0,0 +1,26 @@
+package org.example.metrics;
+
+/**
+ * Totals across event types, and the latency of batch publishes, which are not split per type. Latencies are in
+ * microseconds.
+ */
+public interface NotificationMetricsMXBean
+{
+    long getPublished();
+
+    long getDeliveries();
+
+    long getFilteredByPreference();
+
+    long getBatchPublishes();
+
+    long getBatchPublishMicrosP50();
+
+    long getBatchPublishMicrosP99();
+
+    long getBatchPublishMicrosMax();
+
+    long getBatchDispatchMicrosP50();
+
+    long getBatchDispatchMicrosP99();
+}
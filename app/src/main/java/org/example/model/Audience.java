@@ -0,0 +1,69 @@
+package org.example.model;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Who a {@link Notification} is delivered to. The subject resolves the audience to its recipients before delivery,
+ * so the fan-out of a notification is proportional to its audience rather than to the number of registered users.
+ * Recipients still only receive the notification if they enabled its type.
+ */
+public sealed interface Audience
+{
+    /** The notification's recipient. */
+    Audience SELF = new Self();
+    /** Every registered user. */
+    Audience EVERYONE = new Everyone();
+
+    static Audience explicit(String... userIds)
+    {
+        return explicit(List.of(userIds));
+    }
+
+    /**
+     * The given users; duplicates are delivered to once.
+     */
+    static Audience explicit(Collection<String> userIds)
+    {
+        return new Explicit(List.copyOf(new LinkedHashSet<>(userIds)));
+    }
+
+    static Audience friendsOf(String userId)
+    {
+        return new FriendsOf(userId, Notification.NO_INDEX);
+    }
+
+    static Audience followersOf(String userId)
+    {
+        return new FollowersOf(userId, Notification.NO_INDEX);
+    }
+
+    record Self() implements Audience
+    {
+    }
+
+    record Everyone() implements Audience
+    {
+    }
+
+    record Explicit(List<String> userIds) implements Audience
+    {
+    }
+
+    /**
+     * The friends of a user, not including the user. {@code userIndex} is the interned index of the user, or
+     * {@link Notification#NO_INDEX} to look it up from the registered users.
+     */
+    record FriendsOf(String userId, int userIndex) implements Audience
+    {
+    }
+
+    /**
+     * The followers of a user, not including the user. {@code userIndex} is the interned index of the user, or
+     * {@link Notification#NO_INDEX} to look it up from the registered users.
+     */
+    record FollowersOf(String userId, int userIndex) implements Audience
+    {
+    }
+}
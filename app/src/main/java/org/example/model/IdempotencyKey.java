@@ -0,0 +1,21 @@
+package org.example.model;
+
+/**
+ * Key a publisher attaches to a publish request, so a retry of the request is recognized as a duplicate by a
+ * {@link org.example.observers.DeduplicatingSubject}. A type of its own, so it cannot be mistaken for a user id.
+ */
+public record IdempotencyKey(String value)
+{
+    public IdempotencyKey
+    {
+        if (value == null || value.isEmpty())
+        {
+            throw new IllegalArgumentException("Idempotency key must not be empty");
+        }
+    }
+
+    public static IdempotencyKey of(String value)
+    {
+        return new IdempotencyKey(value);
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-capacity ring buffer of the latest notifications of a user. Once full, every new notification overwrites the
+ * oldest one. Writers are serialized; readers never take the lock and get a snapshot of the notifications that were
+ * still retained when the read finished.
+ * Every notification ever added has a sequence number, used as the cursor of {@link #since(long, int)}.
+ * The buffer is allocated on the first add and doubled up to the capacity, so users who receive few notifications
+ * only pay for those.
+ */
+public class Inbox
+{
+    private static final int INITIAL_SLOTS = 4;
+
+    /**
+     * Null until the first add. Replaced by a larger copy before a notification is written past its end, and only
+     * wraps around once it reached the capacity, so readers that read it after {@link #nextSequence} find every
+     * sequence they ask for.
+     */
+    private volatile AtomicReferenceArray<Notification> slots;
+    private final int capacity;
+    /** Sequence number of the next notification to add, published after its slot is written. */
+    private volatile long nextSequence;
+    /** Sequence number after the notification being written, set before its slot is overwritten. */
+    private volatile long claimedSequence;
+
+    public Inbox(int capacity)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("Inbox capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public synchronized void add(Notification notification)
+    {
+        long sequence = nextSequence;
+        AtomicReferenceArray<Notification> current = slots;
+        if (current == null || sequence == current.length() && sequence < capacity)
+        {
+            current = grow(current);
+        }
+        claimedSequence = sequence + 1;
+        current.set(slotOf(sequence), notification);
+        nextSequence = sequence + 1;
+    }
+
+    public synchronized void addAll(List<Notification> notifications)
+    {
+        for (Notification notification : notifications)
+        {
+            add(notification);
+        }
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Cursor positioned after the latest notification.
+     */
+    public long cursor()
+    {
+        return nextSequence;
+    }
+
+    public int size()
+    {
+        return (int) Math.min(nextSequence, capacity);
+    }
+
+    /**
+     * Every retained notification, oldest first.
+     */
+    public List<Notification> snapshot()
+    {
+        return since(0, capacity).notifications();
+    }
+
+    /**
+     * Up to {@code count} most recent notifications, oldest first; none if {@code count} is not positive.
+     */
+    public List<Notification> latest(int count)
+    {
+        long end = nextSequence;
+        return read(Math.max(0, end - Math.min(Math.max(count, 0), capacity)), end).notifications();
+    }
+
+    /**
+     * The retained notifications added before {@code cursor}, oldest first.
+     */
+    public List<Notification> before(long cursor)
+    {
+        long end = Math.min(Math.max(cursor, 0), nextSequence);
+        return read(Math.max(0, end - capacity), end).notifications();
+    }
+
+    /**
+     * Up to {@code limit} notifications added at or after {@code cursor}, oldest first. A negative cursor reads from
+     * the oldest retained notification; a limit that is not positive returns an empty page at that position.
+     */
+    public InboxPage since(long cursor, int limit)
+    {
+        long end = nextSequence;
+        long requested = Math.min(Math.max(cursor, 0), end);
+        long start = Math.max(requested, end - capacity);
+        return read(start, Math.min(end, start + Math.max(limit, 0)), requested);
+    }
+
+    private InboxPage read(long start, long end)
+    {
+        return read(start, end, start);
+    }
+
+    private InboxPage read(long start, long end, long requested)
+    {
+        AtomicReferenceArray<Notification> current = slots;
+        List<Notification> copy = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++)
+        {
+            copy.add(current.get(slotOf(sequence)));
+        }
+        // Entries older than the claimed sequence minus the capacity may have been overwritten while we were copying.
+        long firstIntact = claimedSequence - capacity;
+        int overwritten = (int) Math.max(0, Math.min(firstIntact - start, copy.size()));
+        List<Notification> page = copy.subList(overwritten, copy.size());
+        long firstReturned = start + overwritten;
+        return new InboxPage(List.copyOf(page), firstReturned + page.size(), firstReturned - requested);
+    }
+
+    private AtomicReferenceArray<Notification> grow(AtomicReferenceArray<Notification> current)
+    {
+        int length = current == null ? Math.min(INITIAL_SLOTS, capacity) : Math.min(current.length() * 2, capacity);
+        AtomicReferenceArray<Notification> grown = new AtomicReferenceArray<>(length);
+        for (int i = 0; current != null && i < current.length(); i++)
+        {
+            grown.set(i, current.get(i));
+        }
+        slots = grown;
+        return grown;
+    }
+
+    private int slotOf(long sequence)
+    {
+        return (int) (sequence % capacity);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.model;
+
+import java.util.List;
+
+/**
+ * A page read from an {@link Inbox}. Pass {@code nextCursor} to {@link Inbox#since(long, int)} to read the next page.
+ * {@code missed} counts the notifications after the requested cursor that were already overwritten.
+ */
+public record InboxPage(List<Notification> notifications, long nextCursor, long missed)
+{
+}
@@ -0,0 +1,36 @@
+package org.example.model;
+
+import java.util.function.Function;
+
+/**
+ * Message texts of the notifications published by the service. A notification keeps the template and its
+ * arguments and only renders the text when the message is read.
+ */
+public enum MessageTemplate
+{
+    LEVEL_UP(args -> args[0] + " leveled up!"),
+    ITEM_ACQUIRED(args -> args[0] + " acquired a new item: " + args[1]),
+    FRIEND_REQUEST_SENT(args -> args[0] + " has sent you a friend request"),
+    FRIEND_REQUEST_ACCEPTED(args -> args[0] + " accepted your friend request"),
+    MISSION_UNLOCKED(args -> args[0] + " unlocked a new mission"),
+    DAILY_GOALS_FINISHED(args -> args[0] + " finished the daily goals"),
+    ATTACKED(args -> args[0] + " is being attacked by " + args[1]),
+    DEFEATED(args -> args[0] + " has been defeated by " + args[1]),
+    NEW_FOLLOWER(args -> args[0] + " is now following you"),
+    NEW_FOLLOWERS_DIGEST(args -> args[0] + " new followers"),
+    ITEMS_ACQUIRED_DIGEST(args -> args[0] + " acquired " + args[1] + " new items"),
+    FRIEND_REQUESTS_DIGEST(args -> args[0] + " new friend requests"),
+    DIGEST(args -> args[0] + " new notifications, latest: " + args[1]);
+
+    private final Function<String[], String> renderer;
+
+    MessageTemplate(Function<String[], String> renderer)
+    {
+        this.renderer = renderer;
+    }
+
+    public String render(String[] args)
+    {
+        return renderer.apply(args);
+    }
+}
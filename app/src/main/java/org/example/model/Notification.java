@@ -0,0 +1,335 @@
+package org.example.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+import org.example.events.EventType;
+
+/**
+ * Created by Michael Garcia on 17/03/25
+ */
+public final class Notification
+{
+    /** Index of a user that was not interned, see {@link #recipientIndex()}. */
+    public static final int NO_INDEX = -1;
+
+    private final EventType type;
+    private final MessageTemplate template;
+    private final String[] args;
+    private final String sender;
+    private final String recipient;
+    private final int senderIndex;
+    private final int recipientIndex;
+    private final Audience audience;
+    /** Set by publishers that may retry, so a repeated publish is recognized as a duplicate. May be null. */
+    private final String idempotencyKey;
+    /** Rendered on first read. Strings are immutable, so a racy second render is harmless. */
+    private String message;
+
+    public Notification(EventType type, String message, String sender, String recipient, boolean isBroadcast)
+    {
+        this.type = Objects.requireNonNull(type, "type");
+        this.template = null;
+        this.args = null;
+        this.message = Objects.requireNonNull(message, "message");
+        this.sender = sender;
+        this.recipient = recipient;
+        this.senderIndex = NO_INDEX;
+        this.recipientIndex = NO_INDEX;
+        this.audience = isBroadcast ? Audience.EVERYONE : Audience.SELF;
+        this.idempotencyKey = null;
+    }
+
+    private Notification(Notification notification, Audience audience, String idempotencyKey)
+    {
+        this(notification, notification.senderIndex, notification.recipientIndex, audience, idempotencyKey);
+    }
+
+    private Notification(Notification notification, int senderIndex, int recipientIndex, Audience audience,
+                         String idempotencyKey)
+    {
+        this.type = notification.type;
+        this.template = notification.template;
+        this.args = notification.args;
+        this.message = notification.message;
+        this.sender = notification.sender;
+        this.recipient = notification.recipient;
+        this.senderIndex = senderIndex;
+        this.recipientIndex = recipientIndex;
+        this.audience = Objects.requireNonNull(audience, "audience");
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    private Notification(Builder builder)
+    {
+        this.type = builder.type;
+        this.template = builder.template;
+        this.args = builder.args;
+        this.message = builder.message;
+        this.sender = builder.sender;
+        this.recipient = builder.recipient;
+        this.senderIndex = builder.senderIndex;
+        this.recipientIndex = builder.recipientIndex;
+        this.audience = builder.audience;
+        this.idempotencyKey = builder.idempotencyKey;
+    }
+
+    public static Builder builder(EventType type)
+    {
+        return new Builder(type);
+    }
+
+    /**
+     * Creates a notification whose message is rendered from {@code template} only when it is first read.
+     */
+    public static Notification templated(EventType type, MessageTemplate template, String sender, String recipient,
+                                         boolean isBroadcast, String... args)
+    {
+        return builder(type).template(template, args).sender(sender).recipient(recipient).broadcast(isBroadcast).build();
+    }
+
+    public EventType type()
+    {
+        return type;
+    }
+
+    public String message()
+    {
+        String rendered = message;
+        if (rendered == null)
+        {
+            rendered = template.render(args);
+            message = rendered;
+        }
+        return rendered;
+    }
+
+    public String sender()
+    {
+        return sender;
+    }
+
+    public String recipient()
+    {
+        return recipient;
+    }
+
+    /**
+     * Interned index of the sender, or {@link #NO_INDEX} when the sender was not interned.
+     */
+    public int senderIndex()
+    {
+        return senderIndex;
+    }
+
+    /**
+     * Interned index of the recipient, or {@link #NO_INDEX} when the recipient was not interned.
+     */
+    public int recipientIndex()
+    {
+        return recipientIndex;
+    }
+
+    /**
+     * True when the audience is every registered user.
+     */
+    public boolean isBroadcast()
+    {
+        return audience instanceof Audience.Everyone;
+    }
+
+    public Audience audience()
+    {
+        return audience;
+    }
+
+    /**
+     * A copy of this notification delivered to another audience.
+     */
+    public Notification withAudience(Audience audience)
+    {
+        return new Notification(this, audience, idempotencyKey);
+    }
+
+    /**
+     * A copy of this notification with other interned indexes for its sender and recipient, e.g. after a restart
+     * assigned new ones.
+     */
+    public Notification withUserIndexes(int senderIndex, int recipientIndex)
+    {
+        return new Notification(this, senderIndex, recipientIndex, audience, idempotencyKey);
+    }
+
+    /**
+     * A copy of this notification carrying an idempotency key.
+     */
+    public Notification withIdempotencyKey(String idempotencyKey)
+    {
+        return new Notification(this, audience, idempotencyKey);
+    }
+
+    /**
+     * Key identifying the publish request this notification came from, or null if the publisher did not set one.
+     * Not part of {@link #equals(Object)}.
+     */
+    public String idempotencyKey()
+    {
+        return idempotencyKey;
+    }
+
+    /**
+     * The template the message is rendered from, or null when the notification was created with a literal message.
+     */
+    public MessageTemplate template()
+    {
+        return template;
+    }
+
+    /**
+     * A copy of the arguments the template is rendered with, or null when the notification was created with a
+     * literal message.
+     */
+    public String[] templateArgs()
+    {
+        return args == null ? null : args.clone();
+    }
+
+    public boolean isRendered()
+    {
+        return message != null;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof Notification other))
+        {
+            return false;
+        }
+        return audience.equals(other.audience) && type.equals(other.type) && Objects.equals(sender, other.sender)
+                && Objects.equals(recipient, other.recipient) && sameText(other);
+    }
+
+    /**
+     * Notifications rendered from templates compare their template and arguments, and literal ones their messages,
+     * so neither is rendered. Only a literal and a templated notification are compared by their rendered text.
+     */
+    private boolean sameText(Notification other)
+    {
+        if (template != null && other.template != null)
+        {
+            return template == other.template && Arrays.equals(args, other.args);
+        }
+        if (template == null && other.template == null)
+        {
+            return message.equals(other.message);
+        }
+        return message().equals(other.message());
+    }
+
+    /**
+     * Leaves out the text, which a literal and an equal templated notification only share once rendered.
+     */
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(type, sender, recipient, audience);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[" + type + "] " + message();
+    }
+
+    public static final class Builder
+    {
+        private final EventType type;
+        private MessageTemplate template;
+        private String[] args;
+        private String message;
+        private String sender;
+        private String recipient;
+        private int senderIndex = NO_INDEX;
+        private int recipientIndex = NO_INDEX;
+        private Audience audience = Audience.SELF;
+        private String idempotencyKey;
+
+        private Builder(EventType type)
+        {
+            this.type = Objects.requireNonNull(type, "type");
+        }
+
+        public Builder message(String message)
+        {
+            this.message = message;
+            this.template = null;
+            this.args = null;
+            return this;
+        }
+
+        public Builder template(MessageTemplate template, String... args)
+        {
+            this.template = template;
+            this.args = args;
+            this.message = null;
+            return this;
+        }
+
+        public Builder sender(String sender)
+        {
+            this.sender = sender;
+            return this;
+        }
+
+        public Builder sender(String sender, int senderIndex)
+        {
+            this.sender = sender;
+            this.senderIndex = senderIndex;
+            return this;
+        }
+
+        public Builder recipient(String recipient)
+        {
+            this.recipient = recipient;
+            return this;
+        }
+
+        public Builder recipient(String recipient, int recipientIndex)
+        {
+            this.recipient = recipient;
+            this.recipientIndex = recipientIndex;
+            return this;
+        }
+
+        public Builder broadcast(boolean isBroadcast)
+        {
+            this.audience = isBroadcast ? Audience.EVERYONE : Audience.SELF;
+            return this;
+        }
+
+        public Builder audience(Audience audience)
+        {
+            this.audience = Objects.requireNonNull(audience, "audience");
+            return this;
+        }
+
+        public Builder idempotencyKey(String idempotencyKey)
+        {
+            this.idempotencyKey = idempotencyKey;
+            return this;
+        }
+
+        public Notification build()
+        {
+            if (message == null && template == null)
+            {
+                throw new IllegalStateException("A notification needs a message or a template");
+            }
+            return new Notification(this);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package org.example.observers;
+
+import org.example.model.Notification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Subject that accepts notifications into a bounded queue and delivers them to a delegate subject on dedicated
+ * worker threads, so the thread reporting an event does not pay for the fan-out.
+ * Workers drain whatever is queued and hand it to the delegate as one batch. With a single worker notifications are
+ * delivered in the order they were accepted; with more workers a user may see them out of order.
+ */
+public class AsyncSubject implements Subject, AutoCloseable
+{
+    public enum OverflowPolicy
+    {
+        /** Wait until the queue has room. */
+        BLOCK,
+        /** Discard the oldest queued notification to make room. */
+        DROP_OLDEST,
+        /** Discard the notification being published. */
+        DROP_NEWEST,
+        /** Deliver the notification on the publishing thread. */
+        CALLER_RUNS
+    }
+
+    private static final long POLL_INTERVAL_MS = 100;
+    /** Upper bound of notifications a worker hands to the delegate as one batch. */
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final Subject delegate;
+    private final BlockingQueue<Notification> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final List<Thread> workers = new ArrayList<>();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    /**
+     * Held shared while a notification is checked against {@link #running} and queued, and exclusively while closing,
+     * so nothing is queued once the workers may have seen the subject closed and the queue empty.
+     */
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    public AsyncSubject(Subject delegate, int capacity, int workerCount, OverflowPolicy overflowPolicy)
+    {
+        if (capacity < 1 || workerCount < 1)
+        {
+            throw new IllegalArgumentException("Capacity and worker count must be positive");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        for (int i = 0; i < workerCount; i++)
+        {
+            Thread worker = new Thread(this::deliverLoop, "notification-dispatch-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @Override
+    public void registerObserver(Observer o)
+    {
+        delegate.registerObserver(o);
+    }
+
+    @Override
+    public void registerObservers(Collection<? extends Observer> observers)
+    {
+        delegate.registerObservers(observers);
+    }
+
+    @Override
+    public void unregisterObserver(Observer o)
+    {
+        delegate.unregisterObserver(o);
+    }
+
+    @Override
+    public void notifyObservers(Notification notification)
+    {
+        closeLock.readLock().lock();
+        try
+        {
+            if (!running)
+            {
+                throw new IllegalStateException("Subject is closed");
+            }
+            if (queue.offer(notification))
+            {
+                return;
+            }
+            switch (overflowPolicy)
+            {
+                case BLOCK -> enqueueBlocking(notification);
+                case DROP_OLDEST -> enqueueDroppingOldest(notification);
+                case DROP_NEWEST -> dropped.increment();
+                case CALLER_RUNS ->
+                {
+                    callerRuns.increment();
+                    deliver(notification);
+                }
+            }
+        } finally
+        {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    public int getQueueDepth()
+    {
+        return queue.size();
+    }
+
+    public long getDeliveredCount()
+    {
+        return delivered.sum();
+    }
+
+    public long getDroppedCount()
+    {
+        return dropped.sum();
+    }
+
+    public long getCallerRunsCount()
+    {
+        return callerRuns.sum();
+    }
+
+    /**
+     * Stops accepting notifications, once the ones being queued are, and waits until everything queued is delivered.
+     * What a worker left behind because it was interrupted is delivered on the calling thread. If the calling thread
+     * is interrupted meanwhile, it still waits and keeps its interrupt status.
+     */
+    @Override
+    public void close()
+    {
+        closeLock.writeLock().lock();
+        try
+        {
+            running = false;
+        } finally
+        {
+            closeLock.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        for (Thread worker : workers)
+        {
+            while (worker.isAlive())
+            {
+                try
+                {
+                    worker.join();
+                } catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+        }
+        List<Notification> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty())
+        {
+            deliver(remaining);
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueueBlocking(Notification notification)
+    {
+        try
+        {
+            queue.put(notification);
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+        }
+    }
+
+    private void enqueueDroppingOldest(Notification notification)
+    {
+        while (!queue.offer(notification))
+        {
+            if (queue.poll() != null)
+            {
+                dropped.increment();
+            }
+        }
+    }
+
+    private void deliverLoop()
+    {
+        try
+        {
+            List<Notification> batch = new ArrayList<>(MAX_BATCH_SIZE);
+            while (running || !queue.isEmpty())
+            {
+                Notification notification = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (notification == null)
+                {
+                    continue;
+                }
+                batch.add(notification);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                deliver(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver(Notification notification)
+    {
+        try
+        {
+            delegate.notifyObservers(notification);
+            delivered.increment();
+        } catch (RuntimeException e)
+        {
+            System.out.println("Error: Failed to deliver notification " + notification + ": " + e.getMessage());
+        }
+    }
+
+    private void deliver(List<Notification> batch)
+    {
+        try
+        {
+            delegate.notifyObservers(batch);
+            delivered.add(batch.size());
+        } catch (RuntimeException e)
+        {
+            System.out.println("Error: Failed to deliver " + batch.size() + " notifications: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.example.observers;
+
+import org.example.events.EventType;
+import org.example.events.EventTypes;
+import org.example.model.Audience;
+import org.example.model.Notification;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Subject that holds back notifications of bursty event types for a window and hands the delegate a single digest
+ * per (recipient, event type, audience), e.g. "12 new followers" instead of twelve separate notifications.
+ * A notification that is alone in its window is delivered unchanged. Other event types are passed straight through,
+ * so they may overtake held back notifications. Only the first and last notification and a count are kept per
+ * window, whatever the size of the burst. Once closed, notifications are delivered right away.
+ */
+public class CoalescingSubject implements Subject, AutoCloseable
+{
+    private final Subject delegate;
+    private final long windowNanos;
+    private final int coalescedTypes;
+    private final Map<DigestKey, NotificationDigest> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "notification-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder digests = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private volatile boolean closed;
+
+    public CoalescingSubject(Subject delegate, Duration window, EventType... coalescedTypes)
+    {
+        if (window.isNegative() || window.isZero())
+        {
+            throw new IllegalArgumentException("Coalescing window must be positive");
+        }
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.coalescedTypes = EventTypes.maskOf(coalescedTypes);
+    }
+
+    @Override
+    public void registerObserver(Observer o)
+    {
+        delegate.registerObserver(o);
+    }
+
+    @Override
+    public void registerObservers(Collection<? extends Observer> observers)
+    {
+        delegate.registerObservers(observers);
+    }
+
+    @Override
+    public void unregisterObserver(Observer o)
+    {
+        delegate.unregisterObserver(o);
+    }
+
+    @Override
+    public void notifyObservers(Notification notification)
+    {
+        if (!isCoalesced(notification))
+        {
+            delegate.notifyObservers(notification);
+            return;
+        }
+        hold(notification);
+    }
+
+    @Override
+    public void notifyObservers(List<Notification> notifications)
+    {
+        List<Notification> passThrough = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications)
+        {
+            if (isCoalesced(notification))
+            {
+                hold(notification);
+            }
+            else
+            {
+                passThrough.add(notification);
+            }
+        }
+        if (!passThrough.isEmpty())
+        {
+            delegate.notifyObservers(passThrough);
+        }
+    }
+
+    /**
+     * Number of notifications that were merged into a digest instead of being delivered on their own.
+     */
+    public long getCoalescedCount()
+    {
+        return coalesced.sum();
+    }
+
+    public long getDigestCount()
+    {
+        return digests.sum();
+    }
+
+    public int getPendingCount()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Digests whose delivery at the end of their window failed; they are not retried.
+     */
+    public long getFailedFlushCount()
+    {
+        return failedFlushes.sum();
+    }
+
+    /**
+     * Delivers every held back notification now instead of at the end of its window.
+     */
+    public void flush()
+    {
+        for (DigestKey key : pending.keySet())
+        {
+            deliver(key);
+        }
+    }
+
+    /**
+     * Delivers every held back notification and stops the window timer. Notifications held back while closing are
+     * delivered by the thread that holds them back.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    private boolean isCoalesced(Notification notification)
+    {
+        return (coalescedTypes & notification.type().mask()) != 0;
+    }
+
+    private void hold(Notification notification)
+    {
+        if (closed)
+        {
+            delegate.notifyObservers(notification);
+            return;
+        }
+        DigestKey key = new DigestKey(notification.recipient(), notification.type(), notification.audience());
+        boolean[] opened = {false};
+        pending.compute(key, (k, digest) -> {
+            if (digest == null)
+            {
+                opened[0] = true;
+                return new NotificationDigest(notification);
+            }
+            digest.add(notification);
+            return digest;
+        });
+        if (opened[0])
+        {
+            try
+            {
+                scheduler.schedule(() -> flushWindow(key), windowNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e)
+            {
+                // Closed after the check above, possibly after its flush already ran.
+                deliver(key);
+            }
+        }
+    }
+
+    /**
+     * Delivers a digest at the end of its window. A failure is counted and logged rather than left in the scheduler's
+     * future, which nobody reads.
+     */
+    private void flushWindow(DigestKey key)
+    {
+        try
+        {
+            deliver(key);
+        } catch (RuntimeException e)
+        {
+            failedFlushes.increment();
+            System.out.println("Error: Failed to deliver the digest for " + key + ": " + e.getMessage());
+        }
+    }
+
+    private void deliver(DigestKey key)
+    {
+        NotificationDigest digest = pending.remove(key);
+        if (digest == null)
+        {
+            return;
+        }
+        if (digest.count() > 1)
+        {
+            coalesced.add(digest.count() - 1);
+            digests.increment();
+        }
+        delegate.notifyObservers(digest.toNotification());
+    }
+
+    private record DigestKey(String recipient, EventType type, Audience audience)
+    {
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.observers;
+
+import org.example.model.Notification;
+import org.example.util.ExpiringFingerprintSet;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Subject that drops notifications whose idempotency key was already published within a time window, so a publisher
+ * retrying after a timeout does not deliver the same event twice. Keys are remembered as 64-bit fingerprints in a
+ * bounded set; size it to the keyed publish rate times the window. Notifications without a key pass straight
+ * through.
+ */
+public class DeduplicatingSubject implements Subject
+{
+    private final Subject delegate;
+    private final ExpiringFingerprintSet seenKeys;
+    private final LongAdder duplicates = new LongAdder();
+
+    public DeduplicatingSubject(Subject delegate, Duration window, int capacity)
+    {
+        this(delegate, window, capacity, Clock.systemUTC());
+    }
+
+    /**
+     * Measures the window with {@code clock}.
+     */
+    public DeduplicatingSubject(Subject delegate, Duration window, int capacity, Clock clock)
+    {
+        this.delegate = delegate;
+        this.seenKeys = new ExpiringFingerprintSet(capacity, window.toMillis(), clock);
+    }
+
+    @Override
+    public void registerObserver(Observer o)
+    {
+        delegate.registerObserver(o);
+    }
+
+    @Override
+    public void registerObservers(Collection<? extends Observer> observers)
+    {
+        delegate.registerObservers(observers);
+    }
+
+    @Override
+    public void unregisterObserver(Observer o)
+    {
+        delegate.unregisterObserver(o);
+    }
+
+    @Override
+    public void notifyObservers(Notification notification)
+    {
+        if (isFirstPublish(notification))
+        {
+            delegate.notifyObservers(notification);
+        }
+    }
+
+    @Override
+    public void notifyObservers(List<Notification> notifications)
+    {
+        List<Notification> unique = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications)
+        {
+            if (isFirstPublish(notification))
+            {
+                unique.add(notification);
+            }
+        }
+        if (!unique.isEmpty())
+        {
+            delegate.notifyObservers(unique);
+        }
+    }
+
+    public long getDuplicateCount()
+    {
+        return duplicates.sum();
+    }
+
+    /**
+     * Keys evicted before their window ended because the cache was full; a retry of one of them is not recognized.
+     */
+    public long getEvictedEarlyCount()
+    {
+        return seenKeys.getEvictedEarlyCount();
+    }
+
+    private boolean isFirstPublish(Notification notification)
+    {
+        String key = notification.idempotencyKey();
+        if (key == null || seenKeys.add(ExpiringFingerprintSet.fingerprint(key)))
+        {
+            return true;
+        }
+        duplicates.increment();
+        return false;
+    }
+}
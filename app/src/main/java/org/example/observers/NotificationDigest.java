@@ -0,0 +1,70 @@
+package org.example.observers;
+
+import org.example.events.EventType;
+import org.example.events.GameEvents;
+import org.example.events.SocialEvents;
+import org.example.model.MessageTemplate;
+import org.example.model.Notification;
+
+/**
+ * Notifications of one recipient and event type merged into a single one. Only the first and last notification and
+ * a count are kept. Not thread-safe; callers serialize access, e.g. inside {@link java.util.Map#compute}.
+ */
+final class NotificationDigest
+{
+    private final Notification first;
+    private Notification last;
+    private int count;
+
+    NotificationDigest(Notification first)
+    {
+        this.first = first;
+        this.last = first;
+        this.count = 1;
+    }
+
+    void add(Notification notification)
+    {
+        last = notification;
+        count++;
+    }
+
+    int count()
+    {
+        return count;
+    }
+
+    /**
+     * The only notification if nothing was merged, otherwise a digest such as "12 new followers".
+     */
+    Notification toNotification()
+    {
+        if (count == 1)
+        {
+            return first;
+        }
+        String count = String.valueOf(this.count);
+        Notification.Builder digest = Notification.builder(first.type())
+                .sender(last.sender(), last.senderIndex())
+                .recipient(first.recipient(), first.recipientIndex())
+                .audience(first.audience());
+        EventType type = first.type();
+        if (type == SocialEvents.NEW_FOLLOWER)
+        {
+            digest.template(MessageTemplate.NEW_FOLLOWERS_DIGEST, count);
+        }
+        else if (type == SocialEvents.FRIEND_REQUEST)
+        {
+            digest.template(MessageTemplate.FRIEND_REQUESTS_DIGEST, count);
+        }
+        else if (type == GameEvents.ITEM_ACQUIRED)
+        {
+            digest.template(MessageTemplate.ITEMS_ACQUIRED_DIGEST, first.recipient(), count);
+        }
+        else
+        {
+            digest.template(MessageTemplate.DIGEST, count, last.message());
+        }
+        return digest.build();
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.observers;
+
+import java.util.List;
+import org.example.model.Notification;
+
+/**
+ * Created by Michael Garcia on 17/03/25
+ */
+public interface Observer {
+
+  void showNotification(Notification notification);
+
+  /**
+   * Receives several notifications at once, in publishing order.
+   */
+  default void showNotifications(List<Notification> notifications) {
+    for (Notification notification : notifications) {
+      showNotification(notification);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package org.example.observers;
+
+import java.util.List;
+import org.example.delivery.ConsoleSink;
+import org.example.delivery.DeliverySink;
+import org.example.events.EventType;
+import org.example.exceptions.InvalidInputException;
+import org.example.model.Inbox;
+import org.example.model.Notification;
+import org.example.util.LongLongHashMap;
+
+/**
+ * Created by Michael Garcia on 17/03/25
+ */
+public class ObserverImpl implements Observer
+{
+  public static final int DEFAULT_INBOX_CAPACITY = 100;
+  private static final DeliverySink CONSOLE_SINK = new ConsoleSink();
+
+  private final String userId;
+  private final int index;
+  /** One bit per enabled {@link EventType}, see {@link EventType#mask()}. */
+  private volatile int enabledNotifications;
+  private final Inbox receivedNotifications;
+  private final DeliverySink deliverySink;
+  private volatile PreferenceListener preferenceListener;
+  private volatile PreferenceListener preferenceRecorder;
+  private volatile OutboxReader outboxReader;
+  /** Read position in the outbox of each followed high-follower user, by that user's index. Guarded by this. */
+  private LongLongHashMap outboxCursors;
+  /** Slot in the subscription index of the subject this observer reports to, or -1. Guarded by that index. */
+  private int subscriptionSlot = -1;
+
+  public ObserverImpl(String userId)
+  {
+    this(userId, DEFAULT_INBOX_CAPACITY);
+  }
+
+  public ObserverImpl(String userId, int inboxCapacity)
+  {
+    this(userId, inboxCapacity, CONSOLE_SINK);
+  }
+
+  public ObserverImpl(String userId, int inboxCapacity, DeliverySink deliverySink)
+  {
+    this(userId, Notification.NO_INDEX, inboxCapacity, deliverySink);
+  }
+
+  /**
+   * @param index the interned index of {@code userId}, or {@link Notification#NO_INDEX}
+   */
+  public ObserverImpl(String userId, int index, int inboxCapacity, DeliverySink deliverySink)
+  {
+    this.userId = userId;
+    this.index = index;
+    this.receivedNotifications = new Inbox(inboxCapacity);
+    this.deliverySink = deliverySink;
+  }
+  public String getUserId() {
+    return userId;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public void enableNotification(EventType type) {
+    enableNotifications(type.mask());
+  }
+
+  public void disableNotification(EventType type) {
+    disableNotifications(type.mask());
+  }
+
+  /**
+   * Before the change, pulls what the outboxes of followed users hold, so those notifications are filtered with the
+   * preferences that were in effect when they were published. The change is reported while it is made, so listeners
+   * see concurrent changes in the order they were applied.
+   */
+  public synchronized void enableNotifications(int typesMask) {
+    pullOutboxes();
+    int enabled = typesMask & ~enabledNotifications;
+    enabledNotifications |= typesMask;
+    if (enabled != 0) {
+      reportPreferences(enabled, 0);
+    }
+  }
+
+  /**
+   * Like {@link #enableNotifications(int)}, pulls the outboxes of followed users before the change.
+   */
+  public synchronized void disableNotifications(int typesMask) {
+    pullOutboxes();
+    int disabled = typesMask & enabledNotifications;
+    enabledNotifications &= ~typesMask;
+    if (disabled != 0) {
+      reportPreferences(0, disabled);
+    }
+  }
+
+  public boolean isNotificationEnabled(EventType type) {
+    return (enabledNotifications >>> type.id() & 1) != 0;
+  }
+
+  /**
+   * The enabled event types as a mask of {@link EventType#mask()} bits.
+   */
+  public int getEnabledNotifications() {
+    return enabledNotifications;
+  }
+
+  /**
+   * Binds the listener told about every later preference change, and tells it the types enabled now. An observer
+   * reports to a single subject.
+   */
+  synchronized void bindPreferenceListener(PreferenceListener listener) {
+    preferenceListener = listener;
+    if (listener != null && enabledNotifications != 0) {
+      listener.preferencesChanged(this, enabledNotifications, 0);
+    }
+  }
+
+  /**
+   * Binds the recorder told about every later preference change after the subject's listener, e.g. to log it.
+   */
+  public void bindPreferenceRecorder(PreferenceListener recorder) {
+    preferenceRecorder = recorder;
+  }
+
+  private void reportPreferences(int enabledTypes, int disabledTypes) {
+    PreferenceListener listener = preferenceListener;
+    if (listener != null) {
+      listener.preferencesChanged(this, enabledTypes, disabledTypes);
+    }
+    PreferenceListener recorder = preferenceRecorder;
+    if (recorder != null) {
+      recorder.preferencesChanged(this, enabledTypes, disabledTypes);
+    }
+  }
+
+  /**
+   * Binds the reader whose outboxes are merged into the inbox when it is read.
+   */
+  void bindOutboxReader(OutboxReader reader) {
+    outboxReader = reader;
+  }
+
+  long outboxCursor(int userIndex) {
+    return outboxCursors == null ? 0 : outboxCursors.get(userIndex, 0);
+  }
+
+  void setOutboxCursor(int userIndex, long cursor) {
+    if (outboxCursors == null) {
+      outboxCursors = new LongLongHashMap(4);
+    }
+    outboxCursors.put(userIndex, cursor);
+  }
+
+  int subscriptionSlot() {
+    return subscriptionSlot;
+  }
+
+  void setSubscriptionSlot(int slot) {
+    subscriptionSlot = slot;
+  }
+
+  @Override
+  public void showNotification(Notification notification) {
+    receivedNotifications.add(notification);
+    deliverySink.deliver(userId, notification);
+  }
+
+  @Override
+  public void showNotifications(List<Notification> notifications) {
+    receivedNotifications.addAll(notifications);
+    deliverySink.deliverAll(userId, notifications);
+  }
+
+  /**
+   * The notifications still retained in the inbox, oldest first.
+   */
+  public List<Notification> getReceivedNotifications() {
+    pullOutboxes();
+    return receivedNotifications.snapshot();
+  }
+
+  /**
+   * The inbox, after merging in what the outboxes of followed users hold for this user.
+   */
+  public Inbox getInbox() {
+    pullOutboxes();
+    return receivedNotifications;
+  }
+
+  /**
+   * The inbox as it is, without pulling from the outboxes of followed users, for readers such as snapshots that must
+   * not pay for or cause a pull.
+   */
+  public Inbox getPushedInbox() {
+    return receivedNotifications;
+  }
+
+  /**
+   * Pulled notifications go to the inbox only; the user is reading them, so they are not handed to the sink.
+   */
+  private void pullOutboxes() {
+    OutboxReader reader = outboxReader;
+    if (reader == null) {
+      return;
+    }
+    synchronized (this) {
+      List<Notification> pulled = reader.pull(this);
+      if (!pulled.isEmpty()) {
+        receivedNotifications.addAll(pulled);
+      }
+    }
+  }
+}
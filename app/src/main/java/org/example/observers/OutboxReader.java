@@ -0,0 +1,18 @@
+package org.example.observers;
+
+import org.example.model.Notification;
+
+import java.util.List;
+
+/**
+ * Hands an {@link ObserverImpl} the notifications waiting for it in the outboxes of the senders it follows, so they
+ * are merged into its inbox when the inbox is read rather than pushed when they are published.
+ */
+interface OutboxReader
+{
+    /**
+     * Notifications published since the observer's last pull, of the types it enabled. Called while holding the
+     * observer's lock, so the observer's outbox cursors are not advanced concurrently.
+     */
+    List<Notification> pull(ObserverImpl observer);
+}
@@ -0,0 +1,10 @@
+package org.example.observers;
+
+/**
+ * Receives the preference changes of an {@link ObserverImpl}, so a subject can keep its subscriber index up to date
+ * and a service can log them. Changes are reported as masks of {@link org.example.events.EventType#mask()} bits.
+ */
+public interface PreferenceListener
+{
+    void preferencesChanged(ObserverImpl observer, int enabledTypes, int disabledTypes);
+}
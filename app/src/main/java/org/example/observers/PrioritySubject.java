@@ -0,0 +1,516 @@
+package org.example.observers;
+
+import org.example.events.EventType;
+import org.example.events.EventTypes;
+import org.example.events.Priority;
+import org.example.metrics.LaneMetrics;
+import org.example.metrics.LaneMetricsMXBean;
+import org.example.metrics.NotificationMetrics;
+import org.example.model.Notification;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Subject that queues notifications in one bounded lane per {@link Priority} and delivers them to a delegate subject
+ * on a single dispatcher thread, which always serves the highest-priority lane that has notifications. A PvP alert
+ * published during a storm of low-priority broadcasts therefore only waits for the batch being dispatched, not for
+ * every broadcast queued before it. Within a lane notifications are delivered in the order they were accepted.
+ * <p>
+ * To keep a steady stream of urgent notifications from starving the lower lanes, a lane whose oldest notification
+ * has waited longer than the starvation threshold is served before the higher lanes. Promotions alternate with the
+ * regular order, so the highest non-empty lane still gets every other batch and the overdue lanes share the rest.
+ * The delegate should deliver synchronously, e.g. a {@link SubjectImpl}; a delegate that queues again would undo the
+ * ordering.
+ */
+public class PrioritySubject implements Subject, AutoCloseable
+{
+    public static final int DEFAULT_LANE_CAPACITY = 10_000;
+    public static final Duration DEFAULT_STARVATION_THRESHOLD = Duration.ofMillis(100);
+
+    private static final long POLL_INTERVAL_MS = 100;
+    /**
+     * Upper bound of notifications dispatched as one batch. Kept small, since a batch of broadcasts is what an urgent
+     * notification may have to wait for.
+     */
+    private static final int MAX_BATCH_SIZE = 32;
+
+    private final Subject delegate;
+    private final Priority[] priorityByType = new Priority[EventTypes.count()];
+    private final Lane[] lanes = new Lane[Priority.values().length];
+    private final AsyncSubject.OverflowPolicy overflowPolicy;
+    private final long starvationThresholdNanos;
+    private final String name;
+    private final Object signal = new Object();
+    private final Thread dispatcher;
+    private volatile boolean dispatcherIdle;
+    /** Whether the last batch came from a promoted lane; only used by the dispatcher. */
+    private boolean promotedLast;
+    /**
+     * Held shared while notifications are checked against {@link #running} and queued, and exclusively while closing,
+     * so nothing is queued once the dispatcher may have seen the subject closed and the lanes empty.
+     */
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    private PrioritySubject(Builder builder)
+    {
+        this.delegate = builder.delegate;
+        for (int id = 0; id < priorityByType.length; id++)
+        {
+            EventType type = EventTypes.byId(id);
+            priorityByType[id] = builder.priorityByType[id] != null ? builder.priorityByType[id] : type.priority();
+        }
+        for (Priority priority : Priority.values())
+        {
+            lanes[priority.ordinal()] = new Lane(priority, builder.laneCapacity);
+        }
+        this.overflowPolicy = builder.overflowPolicy;
+        this.starvationThresholdNanos = builder.starvationThreshold.toNanos();
+        this.name = builder.name;
+        dispatcher = new Thread(this::dispatchLoop, "notification-priority-dispatch");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public static Builder builder(Subject delegate)
+    {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public void registerObserver(Observer o)
+    {
+        delegate.registerObserver(o);
+    }
+
+    @Override
+    public void registerObservers(Collection<? extends Observer> observers)
+    {
+        delegate.registerObservers(observers);
+    }
+
+    @Override
+    public void unregisterObserver(Observer o)
+    {
+        delegate.unregisterObserver(o);
+    }
+
+    @Override
+    public void notifyObservers(Notification notification)
+    {
+        closeLock.readLock().lock();
+        try
+        {
+            if (!running)
+            {
+                throw new IllegalStateException("Subject is closed");
+            }
+            accept(notification);
+        } finally
+        {
+            closeLock.readLock().unlock();
+        }
+        wakeDispatcher();
+    }
+
+    /**
+     * Queues each notification in the lane of its type, so a batch may be delivered in more than one dispatch.
+     */
+    @Override
+    public void notifyObservers(List<Notification> notifications)
+    {
+        closeLock.readLock().lock();
+        try
+        {
+            if (!running)
+            {
+                throw new IllegalStateException("Subject is closed");
+            }
+            for (Notification notification : notifications)
+            {
+                accept(notification);
+            }
+        } finally
+        {
+            closeLock.readLock().unlock();
+        }
+        wakeDispatcher();
+    }
+
+    public Priority priorityOf(EventType type)
+    {
+        return priorityByType[type.id()];
+    }
+
+    public LaneMetricsMXBean laneMetrics(Priority priority)
+    {
+        return lanes[priority.ordinal()].metrics;
+    }
+
+    /**
+     * Registers the metrics of every lane with the platform MBean server, under
+     * {@code org.example.notifications:type=PriorityLane,name=<name>,priority=<priority>}.
+     */
+    public void registerMBeans()
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try
+        {
+            for (Lane lane : lanes)
+            {
+                server.registerMBean(lane.metrics, objectName(lane.priority));
+            }
+        } catch (JMException e)
+        {
+            throw new IllegalStateException("Failed to register the priority lane MBeans", e);
+        }
+    }
+
+    public void unregisterMBeans()
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try
+        {
+            for (Lane lane : lanes)
+            {
+                server.unregisterMBean(objectName(lane.priority));
+            }
+        } catch (JMException e)
+        {
+            throw new IllegalStateException("Failed to unregister the priority lane MBeans", e);
+        }
+    }
+
+    public ObjectName objectName(Priority priority) throws JMException
+    {
+        return new ObjectName(NotificationMetrics.DOMAIN + ":type=PriorityLane,name=" + ObjectName.quote(name)
+                + ",priority=" + priority);
+    }
+
+    /**
+     * Stops accepting notifications, once the ones being queued are, and waits until the dispatcher delivered
+     * everything queued. What the dispatcher left behind because it was interrupted is delivered on the calling
+     * thread, highest priority first. If the calling thread is interrupted meanwhile, it still waits and keeps its
+     * interrupt status.
+     */
+    @Override
+    public void close()
+    {
+        closeLock.writeLock().lock();
+        try
+        {
+            running = false;
+        } finally
+        {
+            closeLock.writeLock().unlock();
+        }
+        synchronized (signal)
+        {
+            signal.notifyAll();
+        }
+        boolean interrupted = false;
+        while (dispatcher.isAlive())
+        {
+            try
+            {
+                dispatcher.join();
+            } catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+        List<Pending> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        for (Lane lane : lanes)
+        {
+            while (lane.queue.drainTo(batch, MAX_BATCH_SIZE) > 0)
+            {
+                deliver(lane, batch);
+                batch.clear();
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void accept(Notification notification)
+    {
+        Lane lane = lanes[priorityByType[notification.type().id()].ordinal()];
+        Pending pending = new Pending(notification, System.nanoTime());
+        lane.metrics.recordAccepted();
+        if (lane.queue.offer(pending))
+        {
+            return;
+        }
+        switch (overflowPolicy)
+        {
+            case BLOCK -> enqueueBlocking(lane, pending);
+            case DROP_OLDEST -> enqueueDroppingOldest(lane, pending);
+            case DROP_NEWEST -> lane.metrics.recordDropped();
+            case CALLER_RUNS -> deliver(lane, List.of(pending));
+        }
+    }
+
+    private void enqueueBlocking(Lane lane, Pending pending)
+    {
+        try
+        {
+            wakeDispatcher();
+            lane.queue.put(pending);
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            lane.metrics.recordDropped();
+        }
+    }
+
+    private void enqueueDroppingOldest(Lane lane, Pending pending)
+    {
+        while (!lane.queue.offer(pending))
+        {
+            if (lane.queue.poll() != null)
+            {
+                lane.metrics.recordDropped();
+            }
+        }
+    }
+
+    private void wakeDispatcher()
+    {
+        if (dispatcherIdle)
+        {
+            synchronized (signal)
+            {
+                signal.notifyAll();
+            }
+        }
+    }
+
+    private void dispatchLoop()
+    {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (true)
+        {
+            Lane lane = nextLane(System.nanoTime());
+            if (lane != null)
+            {
+                lane.queue.drainTo(batch, MAX_BATCH_SIZE);
+                deliver(lane, batch);
+                batch.clear();
+            }
+            else if (!running)
+            {
+                return;
+            }
+            else if (!awaitNotification())
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The lane to serve next: the first non-empty lane, unless a lane after it holds a notification that waited past
+     * the starvation threshold, in which case the lane with the oldest such notification; null if every lane is empty.
+     * Lanes are never promoted twice in a row, so the highest non-empty lane gets at least every other batch.
+     */
+    private Lane nextLane(long now)
+    {
+        Lane first = null;
+        Lane starving = null;
+        long oldest = now - starvationThresholdNanos;
+        for (Lane lane : lanes)
+        {
+            Pending head = lane.queue.peek();
+            if (head == null)
+            {
+                continue;
+            }
+            if (first == null)
+            {
+                first = lane;
+            }
+            else if (!promotedLast && head.acceptedAt() - oldest <= 0)
+            {
+                starving = lane;
+                oldest = head.acceptedAt();
+            }
+        }
+        promotedLast = starving != null;
+        if (starving != null)
+        {
+            starving.metrics.recordStarvationPromotion();
+            return starving;
+        }
+        return first;
+    }
+
+    /**
+     * Waits until a notification is queued or the subject is closed. Returns false if the dispatcher was interrupted.
+     */
+    private boolean awaitNotification()
+    {
+        synchronized (signal)
+        {
+            dispatcherIdle = true;
+            try
+            {
+                while (running && isEmpty())
+                {
+                    signal.wait(POLL_INTERVAL_MS);
+                }
+                return true;
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally
+            {
+                dispatcherIdle = false;
+            }
+        }
+    }
+
+    private boolean isEmpty()
+    {
+        for (Lane lane : lanes)
+        {
+            if (!lane.queue.isEmpty())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void deliver(Lane lane, List<Pending> batch)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            if (batch.size() == 1)
+            {
+                delegate.notifyObservers(batch.get(0).notification());
+            }
+            else
+            {
+                List<Notification> notifications = new ArrayList<>(batch.size());
+                for (Pending pending : batch)
+                {
+                    notifications.add(pending.notification());
+                }
+                delegate.notifyObservers(notifications);
+            }
+        } catch (RuntimeException e)
+        {
+            System.out.println("Error: Failed to deliver " + batch.size() + " notifications: " + e.getMessage());
+            lane.metrics.recordDropped(batch.size());
+            return;
+        }
+        long end = System.nanoTime();
+        for (Pending pending : batch)
+        {
+            lane.metrics.recordDelivered(pending.acceptedAt(), start, end);
+        }
+    }
+
+    private record Pending(Notification notification, long acceptedAt)
+    {
+    }
+
+    private static final class Lane
+    {
+        private final Priority priority;
+        private final BlockingQueue<Pending> queue;
+        private final LaneMetrics metrics;
+
+        Lane(Priority priority, int capacity)
+        {
+            this.priority = priority;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.metrics = new LaneMetrics(priority, queue::size);
+        }
+    }
+
+    public static final class Builder
+    {
+        private final Subject delegate;
+        private final Priority[] priorityByType = new Priority[EventTypes.count()];
+        private int laneCapacity = DEFAULT_LANE_CAPACITY;
+        private AsyncSubject.OverflowPolicy overflowPolicy = AsyncSubject.OverflowPolicy.BLOCK;
+        private Duration starvationThreshold = DEFAULT_STARVATION_THRESHOLD;
+        private String name = "default";
+
+        private Builder(Subject delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Dispatches {@code type} in the lane of {@code priority} instead of its {@link EventType#priority()}.
+         */
+        public Builder priority(EventType type, Priority priority)
+        {
+            priorityByType[type.id()] = priority;
+            return this;
+        }
+
+        public Builder laneCapacity(int laneCapacity)
+        {
+            if (laneCapacity < 1)
+            {
+                throw new IllegalArgumentException("Lane capacity must be positive");
+            }
+            this.laneCapacity = laneCapacity;
+            return this;
+        }
+
+        /**
+         * What to do when a lane is full; {@link AsyncSubject.OverflowPolicy#CALLER_RUNS} delivers on the publishing
+         * thread, bypassing the lanes.
+         */
+        public Builder overflowPolicy(AsyncSubject.OverflowPolicy overflowPolicy)
+        {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * How long the oldest notification of a lower lane may wait before its lane is served ahead of the higher ones.
+         */
+        public Builder starvationThreshold(Duration starvationThreshold)
+        {
+            if (starvationThreshold.isNegative())
+            {
+                throw new IllegalArgumentException("Starvation threshold must not be negative");
+            }
+            this.starvationThreshold = starvationThreshold;
+            return this;
+        }
+
+        /**
+         * Distinguishes the MBeans of several subjects.
+         */
+        public Builder name(String name)
+        {
+            this.name = name;
+            return this;
+        }
+
+        public PrioritySubject build()
+        {
+            return new PrioritySubject(this);
+        }
+    }
+}
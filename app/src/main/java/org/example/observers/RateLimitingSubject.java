@@ -0,0 +1,352 @@
+package org.example.observers;
+
+import org.example.events.EventType;
+import org.example.events.EventTypes;
+import org.example.model.Notification;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Subject that limits how many notifications of an event type each recipient gets, with a token bucket per
+ * (recipient, event type), before handing them to the delegate for fan-out. What happens to a notification over the
+ * limit is chosen per event type by an {@link OverLimitPolicy}. Event types without a limit pass straight through.
+ */
+public class RateLimitingSubject implements Subject, AutoCloseable
+{
+    public enum OverLimitPolicy
+    {
+        /** Discard the notification. */
+        DROP,
+        /**
+         * Deliver the notification once a token is available. Notifications that would wait longer than it takes to
+         * refill the whole bucket are dropped.
+         */
+        DEFER,
+        /** Merge the notifications over the limit into one digest, delivered once a token is available. */
+        COALESCE
+    }
+
+    private static final long EVICTION_INTERVAL_MS = 10_000;
+
+    private final Subject delegate;
+    private final TokenBuckets buckets;
+    private final OverLimitPolicy[] policies = new OverLimitPolicy[EventTypes.count()];
+    /** Longest a deferred notification may wait, by event type id. */
+    private final long[] maxDeferNanos = new long[EventTypes.count()];
+    private final Map<Long, NotificationDigest> digests = new ConcurrentHashMap<>();
+    /** Deferred notifications by the order they were deferred in. */
+    private final ConcurrentNavigableMap<Long, Notification> deferred = new ConcurrentSkipListMap<>();
+    private final AtomicLong deferSequence = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "notification-rate-limiter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder allowedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder deferredCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private volatile boolean closed;
+
+    private RateLimitingSubject(Builder builder)
+    {
+        this.delegate = builder.delegate;
+        this.buckets = new TokenBuckets(builder.nanoClock);
+        for (Limit limit : builder.limits)
+        {
+            long intervalNanos = limit.refillInterval().toNanos();
+            buckets.limit(limit.type(), limit.burst(), intervalNanos);
+            policies[limit.type().id()] = limit.policy();
+            maxDeferNanos[limit.type().id()] = limit.burst() * intervalNanos;
+        }
+        scheduler.scheduleWithFixedDelay(buckets::evictFull, EVICTION_INTERVAL_MS, EVICTION_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder(Subject delegate)
+    {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public void registerObserver(Observer o)
+    {
+        delegate.registerObserver(o);
+    }
+
+    @Override
+    public void registerObservers(Collection<? extends Observer> observers)
+    {
+        delegate.registerObservers(observers);
+    }
+
+    @Override
+    public void unregisterObserver(Observer o)
+    {
+        delegate.unregisterObserver(o);
+    }
+
+    @Override
+    public void notifyObservers(Notification notification)
+    {
+        if (admit(notification))
+        {
+            delegate.notifyObservers(notification);
+        }
+    }
+
+    @Override
+    public void notifyObservers(List<Notification> notifications)
+    {
+        List<Notification> admitted = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications)
+        {
+            if (admit(notification))
+            {
+                admitted.add(notification);
+            }
+        }
+        if (!admitted.isEmpty())
+        {
+            delegate.notifyObservers(admitted);
+        }
+    }
+
+    /**
+     * Notifications of limited types that were within the limit.
+     */
+    public long getAllowedCount()
+    {
+        return allowedCount.sum();
+    }
+
+    public long getDroppedCount()
+    {
+        return droppedCount.sum();
+    }
+
+    public long getDeferredCount()
+    {
+        return deferredCount.sum();
+    }
+
+    /**
+     * Notifications over the limit that were merged into a digest.
+     */
+    public long getCoalescedCount()
+    {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * Deferred notifications and digests whose scheduled delivery failed; they are not retried.
+     */
+    public long getFailedCount()
+    {
+        return failedCount.sum();
+    }
+
+    /**
+     * Buckets currently tracked; buckets that are full again are evicted periodically.
+     */
+    public int getTrackedBucketCount()
+    {
+        return buckets.size();
+    }
+
+    public int evictFullBuckets()
+    {
+        return buckets.evictFull();
+    }
+
+    /**
+     * Stops the timers and delivers the deferred notifications and digests that are still pending right away. From
+     * then on notifications are no longer limited.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        scheduler.shutdownNow();
+        for (Map.Entry<Long, Notification> delivery = deferred.pollFirstEntry(); delivery != null;
+             delivery = deferred.pollFirstEntry())
+        {
+            delegate.notifyObservers(delivery.getValue());
+        }
+        for (Long key : digests.keySet())
+        {
+            deliverDigest(key);
+        }
+    }
+
+    /**
+     * Returns true if the notification may be delivered now; otherwise it was dropped, deferred or coalesced.
+     */
+    private boolean admit(Notification notification)
+    {
+        EventType type = notification.type();
+        OverLimitPolicy policy = policies[type.id()];
+        if (policy == null || closed)
+        {
+            return true;
+        }
+        long key = TokenBuckets.keyOf(notification);
+        // Once a digest is open, later notifications join it so they are not delivered ahead of it.
+        if (policy == OverLimitPolicy.COALESCE && digests.computeIfPresent(key, (k, digest) -> {
+            digest.add(notification);
+            return digest;
+        }) != null)
+        {
+            coalescedCount.increment();
+            return false;
+        }
+        long wait = buckets.acquire(key, type, policy == OverLimitPolicy.DEFER ? maxDeferNanos[type.id()] : 0);
+        if (wait == 0)
+        {
+            allowedCount.increment();
+            return true;
+        }
+        if (wait > 0)
+        {
+            deferredCount.increment();
+            long sequence = deferSequence.incrementAndGet();
+            deferred.put(sequence, notification);
+            if (!schedule(() -> deliverDeferred(sequence), wait))
+            {
+                deliverDeferred(sequence);
+            }
+            return false;
+        }
+        if (policy == OverLimitPolicy.COALESCE)
+        {
+            coalesce(key, notification);
+        }
+        else
+        {
+            droppedCount.increment();
+        }
+        return false;
+    }
+
+    private void coalesce(long key, Notification notification)
+    {
+        boolean[] opened = {false};
+        digests.compute(key, (k, digest) -> {
+            if (digest == null)
+            {
+                opened[0] = true;
+                return new NotificationDigest(notification);
+            }
+            digest.add(notification);
+            return digest;
+        });
+        coalescedCount.increment();
+        if (opened[0] && !schedule(() -> deliverDigest(key), buckets.nanosUntilToken(key, notification.type())))
+        {
+            deliverDigest(key);
+        }
+    }
+
+    /**
+     * Schedules a delivery, counting and logging it if it fails. Returns false if the subject was closed meanwhile,
+     * in which case the caller delivers right away, since close() may already have drained what was pending.
+     */
+    private boolean schedule(Runnable delivery, long delayNanos)
+    {
+        try
+        {
+            scheduler.schedule(() -> {
+                try
+                {
+                    delivery.run();
+                } catch (RuntimeException e)
+                {
+                    failedCount.increment();
+                    System.out.println("Error: Failed to deliver a rate limited notification: " + e.getMessage());
+                }
+            }, delayNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (RejectedExecutionException e)
+        {
+            return false;
+        }
+    }
+
+    private void deliverDigest(long key)
+    {
+        NotificationDigest digest = digests.remove(key);
+        if (digest == null)
+        {
+            return;
+        }
+        Notification notification = digest.toNotification();
+        // The digest takes the token that just became available.
+        buckets.acquire(key, notification.type(), Long.MAX_VALUE);
+        delegate.notifyObservers(notification);
+    }
+
+    private void deliverDeferred(long sequence)
+    {
+        Notification notification = deferred.remove(sequence);
+        if (notification != null)
+        {
+            delegate.notifyObservers(notification);
+        }
+    }
+
+    private record Limit(EventType type, int burst, Duration refillInterval, OverLimitPolicy policy)
+    {
+    }
+
+    public static final class Builder
+    {
+        private final Subject delegate;
+        private final List<Limit> limits = new ArrayList<>();
+        private LongSupplier nanoClock = System::nanoTime;
+
+        private Builder(Subject delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Lets each recipient receive {@code burst} notifications of {@code type} at once, and one more every
+         * {@code refillInterval} after that.
+         */
+        public Builder limit(EventType type, int burst, Duration refillInterval, OverLimitPolicy policy)
+        {
+            if (burst < 1 || refillInterval.isNegative() || refillInterval.isZero())
+            {
+                throw new IllegalArgumentException("Burst and refill interval must be positive");
+            }
+            limits.add(new Limit(type, burst, refillInterval, policy));
+            return this;
+        }
+
+        Builder nanoClock(LongSupplier nanoClock)
+        {
+            this.nanoClock = nanoClock;
+            return this;
+        }
+
+        public RateLimitingSubject build()
+        {
+            return new RateLimitingSubject(this);
+        }
+    }
+}
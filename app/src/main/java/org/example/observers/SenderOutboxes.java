@@ -0,0 +1,129 @@
+package org.example.observers;
+
+import org.example.model.Inbox;
+import org.example.model.InboxPage;
+import org.example.model.Notification;
+import org.example.social.SocialGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Outboxes of the users with more followers than a threshold. A notification to the followers of such a user is
+ * written once into the user's outbox instead of into every follower's inbox; followers pull it when they next read
+ * their inbox. This bounds the work and memory of publishing a single event to one outbox write.
+ * Pulled notifications are grouped per sender, not interleaved with the ones pushed meanwhile.
+ * A user only pulls what was published after they registered and started following the sender, and a change of
+ * preferences only applies to what is published after it, see {@link ObserverImpl#enableNotifications(int)}.
+ */
+class SenderOutboxes implements OutboxReader
+{
+    static final int OUTBOX_CAPACITY = 1024;
+
+    private final SocialGraph socialGraph;
+    private final int followerThreshold;
+    /** Outbox by index of the user whose followers it is for. */
+    private final Map<Integer, Inbox> outboxesByUser = new ConcurrentHashMap<>();
+    /** The registered user of an index, or null. */
+    private final IntFunction<ObserverImpl> usersByIndex;
+
+    SenderOutboxes(SocialGraph socialGraph, int followerThreshold, IntFunction<ObserverImpl> usersByIndex)
+    {
+        this.socialGraph = socialGraph;
+        this.followerThreshold = followerThreshold;
+        this.usersByIndex = usersByIndex;
+        if (followerThreshold != SubjectImpl.PUSH_ONLY)
+        {
+            socialGraph.addFollowerListener(this::followerAdded);
+        }
+    }
+
+    /**
+     * Starts a newly registered user at the end of every outbox, so a user who registers again does not pull the
+     * notifications published before.
+     */
+    void registered(ObserverImpl user)
+    {
+        if (user.getIndex() < 0 || outboxesByUser.isEmpty())
+        {
+            return;
+        }
+        synchronized (user)
+        {
+            for (Map.Entry<Integer, Inbox> outbox : outboxesByUser.entrySet())
+            {
+                user.setOutboxCursor(outbox.getKey(), outbox.getValue().cursor());
+            }
+        }
+    }
+
+    /**
+     * Starts a new follower at the end of the followed user's outbox, so they do not pull its backlog.
+     */
+    private void followerAdded(int followedIndex, int followerIndex)
+    {
+        Inbox outbox = outboxesByUser.get(followedIndex);
+        ObserverImpl follower = usersByIndex.apply(followerIndex);
+        if (outbox != null && follower != null)
+        {
+            synchronized (follower)
+            {
+                follower.setOutboxCursor(followedIndex, outbox.cursor());
+            }
+        }
+    }
+
+    /**
+     * Writes a notification for the followers of {@code userIndex} into the user's outbox if the user has more
+     * followers than the threshold. Returns false if the notification should be pushed instead.
+     */
+    boolean offer(int userIndex, Notification notification)
+    {
+        if (followerThreshold == SubjectImpl.PUSH_ONLY || socialGraph.followerCount(userIndex) <= followerThreshold)
+        {
+            return false;
+        }
+        outboxesByUser.computeIfAbsent(userIndex, i -> new Inbox(OUTBOX_CAPACITY)).add(notification);
+        return true;
+    }
+
+    /**
+     * Walks the outboxes rather than the followed users, since only a few users are above the threshold.
+     */
+    @Override
+    public List<Notification> pull(ObserverImpl observer)
+    {
+        int followerIndex = observer.getIndex();
+        if (followerIndex < 0 || outboxesByUser.isEmpty())
+        {
+            return List.of();
+        }
+        List<Notification> pulled = new ArrayList<>();
+        for (Map.Entry<Integer, Inbox> outbox : outboxesByUser.entrySet())
+        {
+            int userIndex = outbox.getKey();
+            if (!socialGraph.isFollowing(followerIndex, userIndex))
+            {
+                continue;
+            }
+            InboxPage page = outbox.getValue().since(observer.outboxCursor(userIndex), OUTBOX_CAPACITY);
+            observer.setOutboxCursor(userIndex, page.nextCursor());
+            for (Notification notification : page.notifications())
+            {
+                if (observer.isNotificationEnabled(notification.type()))
+                {
+                    pulled.add(notification);
+                }
+            }
+        }
+        return pulled;
+    }
+
+    Inbox outboxOf(int userIndex)
+    {
+        return outboxesByUser.get(userIndex);
+    }
+}
@@ -0,0 +1,323 @@
+package org.example.observers;
+
+import org.example.metrics.NotificationMetrics;
+import org.example.model.Audience;
+import org.example.model.Notification;
+import org.example.social.SocialGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Subject that partitions users into shards by user id. Each shard owns its observers and delivers on its own
+ * single-threaded executor, so a broadcast is spread over the shards while every user still receives their
+ * notifications in publishing order.
+ */
+public class ShardedSubject implements Subject, AutoCloseable
+{
+    /** Shard whose executor delivers to the unbound observers, so they also see notifications in order. */
+    private static final int UNBOUND_SHARD = 0;
+
+    private final SubjectImpl[] shards;
+    private final ExecutorService[] executors;
+    /** Observers that are not bound to a user; they receive every notification. */
+    private final List<Observer> unboundObservers = new CopyOnWriteArrayList<>();
+    /**
+     * Held shared while notifications are checked against {@link #running} and handed to the executors, and
+     * exclusively while closing, so no executor is asked to run a delivery after it was shut down.
+     */
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    public ShardedSubject(int shardCount)
+    {
+        this(shardCount, new SocialGraph());
+    }
+
+    /**
+     * Every shard resolves friend and follower audiences against {@code socialGraph} and delivers to the members it
+     * owns.
+     */
+    public ShardedSubject(int shardCount, SocialGraph socialGraph)
+    {
+        this(shardCount, socialGraph, SubjectImpl.PUSH_ONLY);
+    }
+
+    /**
+     * Every shard keeps its own outboxes, see {@link SubjectImpl#SubjectImpl(SocialGraph, int)}, so a notification for
+     * the followers of a high-follower user costs one outbox write per shard.
+     */
+    public ShardedSubject(int shardCount, SocialGraph socialGraph, int fanOutOnReadThreshold)
+    {
+        this(shardCount, socialGraph, fanOutOnReadThreshold, null);
+    }
+
+    /**
+     * Every shard records its part of each fan-out in the shared {@code metrics}, so the fan-out sizes and times are
+     * per shard while the delivery counts add up across shards.
+     */
+    public ShardedSubject(int shardCount, SocialGraph socialGraph, int fanOutOnReadThreshold,
+            NotificationMetrics metrics)
+    {
+        if (shardCount < 1)
+        {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        shards = new SubjectImpl[shardCount];
+        executors = new ExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++)
+        {
+            String threadName = "notification-shard-" + i;
+            shards[i] = new SubjectImpl(socialGraph, fanOutOnReadThreshold, metrics);
+            executors[i] = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public int getShardCount()
+    {
+        return shards.length;
+    }
+
+    @Override
+    public void registerObserver(Observer o)
+    {
+        if (o instanceof ObserverImpl userObs)
+        {
+            shards[shardFor(userObs.getUserId())].registerObserver(userObs);
+        }
+        else
+        {
+            unboundObservers.add(o);
+        }
+    }
+
+    @Override
+    public void registerObservers(Collection<? extends Observer> observers)
+    {
+        List<List<Observer>> observersByShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++)
+        {
+            observersByShard.add(new ArrayList<>());
+        }
+        List<Observer> unbound = new ArrayList<>();
+        for (Observer observer : observers)
+        {
+            if (observer instanceof ObserverImpl userObs)
+            {
+                observersByShard.get(shardFor(userObs.getUserId())).add(userObs);
+            }
+            else
+            {
+                unbound.add(observer);
+            }
+        }
+        for (int i = 0; i < shards.length; i++)
+        {
+            shards[i].registerObservers(observersByShard.get(i));
+        }
+        unboundObservers.addAll(unbound);
+    }
+
+    @Override
+    public void unregisterObserver(Observer o)
+    {
+        if (o instanceof ObserverImpl userObs)
+        {
+            shards[shardFor(userObs.getUserId())].unregisterObserver(userObs);
+        }
+        else
+        {
+            unboundObservers.remove(o);
+        }
+    }
+
+    @Override
+    public void notifyObservers(Notification published)
+    {
+        Notification notification = withUserIndex(published);
+        boolean[] targetShards = shardsFor(notification);
+        closeLock.readLock().lock();
+        try
+        {
+            ensureRunning();
+            for (int i = 0; i < shards.length; i++)
+            {
+                if (targetShards[i])
+                {
+                    SubjectImpl shard = shards[i];
+                    executors[i].execute(() -> shard.notifyObservers(notification));
+                }
+            }
+            if (!unboundObservers.isEmpty())
+            {
+                executors[UNBOUND_SHARD].execute(() -> {
+                    for (Observer observer : unboundObservers)
+                    {
+                        observer.showNotification(notification);
+                    }
+                });
+            }
+        } finally
+        {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void notifyObservers(List<Notification> notifications)
+    {
+        List<List<Notification>> batchesByShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++)
+        {
+            batchesByShard.add(new ArrayList<>());
+        }
+        for (Notification published : notifications)
+        {
+            Notification notification = withUserIndex(published);
+            boolean[] targetShards = shardsFor(notification);
+            for (int i = 0; i < shards.length; i++)
+            {
+                if (targetShards[i])
+                {
+                    batchesByShard.get(i).add(notification);
+                }
+            }
+        }
+        closeLock.readLock().lock();
+        try
+        {
+            ensureRunning();
+            for (int i = 0; i < shards.length; i++)
+            {
+                List<Notification> batch = batchesByShard.get(i);
+                if (!batch.isEmpty())
+                {
+                    SubjectImpl shard = shards[i];
+                    executors[i].execute(() -> shard.notifyObservers(batch));
+                }
+            }
+            if (!unboundObservers.isEmpty() && !notifications.isEmpty())
+            {
+                List<Notification> batch = List.copyOf(notifications);
+                executors[UNBOUND_SHARD].execute(() -> {
+                    for (Observer observer : unboundObservers)
+                    {
+                        observer.showNotifications(batch);
+                    }
+                });
+            }
+        } finally
+        {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops accepting notifications and waits until every shard delivered what was already published. Notifications
+     * published afterwards are rejected with an {@link IllegalStateException}. If the calling thread is interrupted
+     * meanwhile, it still waits and keeps its interrupt status.
+     */
+    @Override
+    public void close()
+    {
+        closeLock.writeLock().lock();
+        try
+        {
+            running = false;
+            for (ExecutorService executor : executors)
+            {
+                executor.shutdown();
+            }
+        } finally
+        {
+            closeLock.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        for (ExecutorService executor : executors)
+        {
+            while (!executor.isTerminated())
+            {
+                try
+                {
+                    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ensureRunning()
+    {
+        if (!running)
+        {
+            throw new IllegalStateException("Subject is closed");
+        }
+    }
+
+    /**
+     * Shards owning at least one member of the notification's audience. Friend and follower audiences are resolved by
+     * the shards themselves, so they go to every shard.
+     */
+    private boolean[] shardsFor(Notification notification)
+    {
+        boolean[] targetShards = new boolean[shards.length];
+        switch (notification.audience())
+        {
+            case Audience.Self self -> targetShards[shardFor(notification.recipient())] = true;
+            case Audience.Explicit explicit ->
+            {
+                for (String userId : explicit.userIds())
+                {
+                    targetShards[shardFor(userId)] = true;
+                }
+            }
+            default -> Arrays.fill(targetShards, true);
+        }
+        return targetShards;
+    }
+
+    /**
+     * Friend and follower audiences are resolved by every shard, but only the shard owning the user the audience is
+     * built around knows the user's index, so it is filled in before the notification is handed to the shards.
+     */
+    private Notification withUserIndex(Notification notification)
+    {
+        return switch (notification.audience())
+        {
+            case Audience.FriendsOf friendsOf when friendsOf.userIndex() < 0 -> notification.withAudience(
+                    new Audience.FriendsOf(friendsOf.userId(), shardOf(friendsOf.userId()).indexOf(friendsOf.userId())));
+            case Audience.FollowersOf followersOf when followersOf.userIndex() < 0 -> notification.withAudience(
+                    new Audience.FollowersOf(followersOf.userId(),
+                            shardOf(followersOf.userId()).indexOf(followersOf.userId())));
+            default -> notification;
+        };
+    }
+
+    private SubjectImpl shardOf(String userId)
+    {
+        return shards[shardFor(userId)];
+    }
+
+    int shardFor(String userId)
+    {
+        int hash = userId == null ? 0 : userId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+}
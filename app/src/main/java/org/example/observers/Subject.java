@@ -0,0 +1,32 @@
+package org.example.observers;
+
+import java.util.Collection;
+import java.util.List;
+import org.example.model.Notification;
+
+/**
+ * Created by Michael Garcia on 17/03/25
+ */
+public interface Subject {
+
+  void registerObserver(Observer o);
+
+  default void registerObservers(Collection<? extends Observer> observers) {
+    for (Observer observer : observers) {
+      registerObserver(observer);
+    }
+  }
+
+  void unregisterObserver(Observer o);
+
+  void notifyObservers(Notification notification);
+
+  /**
+   * Publishes a batch of notifications. Each observer receives its matching notifications in batch order.
+   */
+  default void notifyObservers(List<Notification> notifications) {
+    for (Notification notification : notifications) {
+      notifyObservers(notification);
+    }
+  }
+}
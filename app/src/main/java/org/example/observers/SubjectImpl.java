@@ -0,0 +1,451 @@
+package org.example.observers;
+
+import org.example.events.EventType;
+import org.example.metrics.NotificationMetrics;
+import org.example.model.Audience;
+import org.example.model.Inbox;
+import org.example.model.Notification;
+import org.example.social.SocialGraph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Created by Michael Garcia on 18/03/25
+ */
+public class SubjectImpl implements Subject
+{
+    /** Threshold that pushes every notification, whatever the number of followers. */
+    public static final int PUSH_ONLY = Integer.MAX_VALUE;
+
+    /**
+     * Users indexed by id so targeted notifications reach their recipient without walking every observer.
+     * If the same user id is registered twice, the latest registration receives the targeted notifications.
+     */
+    private final Map<String, ObserverImpl> usersById = new ConcurrentHashMap<>();
+    /** Users with an interned index, so notifications that carry a recipient index skip the string lookup. */
+    private volatile AtomicReferenceArray<ObserverImpl> usersByIndex = new AtomicReferenceArray<>(0);
+    private final SubscriptionIndex subscriptions = new SubscriptionIndex();
+    /** Observers that are not bound to a user; they receive every notification. */
+    private final List<Observer> unboundObservers = new CopyOnWriteArrayList<>();
+    /** Resolves {@link Audience.FriendsOf} and {@link Audience.FollowersOf} audiences. */
+    private final SocialGraph socialGraph;
+    private final SenderOutboxes outboxes;
+    /** Records deliveries, filtered recipients and fan-out times; null when the subject is not instrumented. */
+    private final NotificationMetrics metrics;
+
+    public SubjectImpl()
+    {
+        this(new SocialGraph());
+    }
+
+    public SubjectImpl(SocialGraph socialGraph)
+    {
+        this(socialGraph, PUSH_ONLY);
+    }
+
+    /**
+     * Notifications to the followers of a user with more than {@code fanOutOnReadThreshold} followers are written to
+     * that user's outbox once and merged into the followers' inboxes when they read them. Everything else is pushed
+     * into the recipients' inboxes when published.
+     */
+    public SubjectImpl(SocialGraph socialGraph, int fanOutOnReadThreshold)
+    {
+        this(socialGraph, fanOutOnReadThreshold, null);
+    }
+
+    /**
+     * Like {@link #SubjectImpl(SocialGraph, int)}, recording every fan-out in {@code metrics}.
+     */
+    public SubjectImpl(SocialGraph socialGraph, int fanOutOnReadThreshold, NotificationMetrics metrics)
+    {
+        if (fanOutOnReadThreshold < 0)
+        {
+            throw new IllegalArgumentException("Fan-out on read threshold must not be negative");
+        }
+        this.socialGraph = socialGraph;
+        this.outboxes = new SenderOutboxes(socialGraph, fanOutOnReadThreshold, this::userAt);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void registerObserver(Observer o)
+    {
+        if (o instanceof ObserverImpl userObs)
+        {
+            addUser(userObs);
+        }
+        else
+        {
+            unboundObservers.add(o);
+        }
+    }
+
+    @Override
+    public void registerObservers(Collection<? extends Observer> observers)
+    {
+        List<Observer> unbound = new ArrayList<>();
+        for (Observer observer : observers)
+        {
+            if (observer instanceof ObserverImpl userObs)
+            {
+                addUser(userObs);
+            }
+            else
+            {
+                unbound.add(observer);
+            }
+        }
+        unboundObservers.addAll(unbound);
+    }
+
+    @Override
+    public void unregisterObserver(Observer o)
+    {
+        if (o instanceof ObserverImpl userObs)
+        {
+            usersById.remove(userObs.getUserId(), userObs);
+            if (userObs.getIndex() >= 0)
+            {
+                synchronized (this)
+                {
+                    usersByIndex.compareAndSet(userObs.getIndex(), userObs, null);
+                }
+            }
+            subscriptions.remove(userObs);
+            userObs.bindOutboxReader(null);
+        }
+        else
+        {
+            unboundObservers.remove(o);
+        }
+    }
+
+    @Override
+    public void notifyObservers(Notification notification)
+    {
+        long start = metrics != null ? NotificationMetrics.startTimer() : NotificationMetrics.NOT_TIMED;
+        int delivered = forEachRecipient(notification, recipient -> recipient.showNotification(notification));
+        if (metrics != null)
+        {
+            metrics.recordFanOut(notification.type(), delivered, start);
+        }
+        for (Observer observer : unboundObservers)
+        {
+            observer.showNotification(notification);
+        }
+    }
+
+    /**
+     * Broadcasts of the same type are grouped so each subscriber set is walked once per batch, and every observer
+     * receives all of its notifications in a single {@link Observer#showNotifications(List)} call.
+     */
+    @Override
+    public void notifyObservers(List<Notification> notifications)
+    {
+        if (notifications.isEmpty())
+        {
+            return;
+        }
+        long start = metrics != null ? NotificationMetrics.startTimer() : NotificationMetrics.NOT_TIMED;
+        Map<Observer, PendingDelivery> pending = new LinkedHashMap<>();
+        Map<EventType, List<Notification>> broadcastsByType = new LinkedHashMap<>();
+        for (Notification notification : notifications)
+        {
+            if (notification.isBroadcast())
+            {
+                broadcastsByType.computeIfAbsent(notification.type(), t -> new ArrayList<>()).add(notification);
+                continue;
+            }
+            List<Notification> single = List.of(notification);
+            int delivered = forEachRecipient(notification,
+                    recipient -> pending.computeIfAbsent(recipient, r -> new PendingDelivery()).add(single));
+            if (metrics != null)
+            {
+                metrics.recordDeliveries(notification.type(), delivered);
+            }
+        }
+        for (Map.Entry<EventType, List<Notification>> group : broadcastsByType.entrySet())
+        {
+            List<Notification> broadcasts = group.getValue();
+            int subscribers = forEachRecipient(broadcasts.get(0),
+                    subscriber -> pending.computeIfAbsent(subscriber, r -> new PendingDelivery()).add(broadcasts));
+            if (metrics != null)
+            {
+                recordGroupedBroadcasts(group.getKey(), subscribers, broadcasts.size());
+            }
+        }
+
+        Map<Notification, Integer> positions = null;
+        for (Map.Entry<Observer, PendingDelivery> delivery : pending.entrySet())
+        {
+            PendingDelivery batch = delivery.getValue();
+            if (batch.mixed && positions == null)
+            {
+                positions = positionsOf(notifications);
+            }
+            delivery.getKey().showNotifications(batch.inPublishingOrder(positions));
+        }
+        if (metrics != null)
+        {
+            metrics.recordBatchDispatch(start);
+        }
+        for (Observer observer : unboundObservers)
+        {
+            observer.showNotifications(notifications);
+        }
+    }
+
+    private void addUser(ObserverImpl user)
+    {
+        usersById.put(user.getUserId(), user);
+        int index = user.getIndex();
+        if (index >= 0)
+        {
+            synchronized (this)
+            {
+                AtomicReferenceArray<ObserverImpl> users = usersByIndex;
+                if (index >= users.length())
+                {
+                    AtomicReferenceArray<ObserverImpl> grown =
+                            new AtomicReferenceArray<>(Math.max(index + 1, users.length() * 2));
+                    for (int i = 0; i < users.length(); i++)
+                    {
+                        grown.set(i, users.get(i));
+                    }
+                    usersByIndex = grown;
+                    users = grown;
+                }
+                users.set(index, user);
+            }
+        }
+        subscriptions.add(user);
+        outboxes.registered(user);
+        user.bindOutboxReader(outboxes);
+    }
+
+    private ObserverImpl userAt(int index)
+    {
+        AtomicReferenceArray<ObserverImpl> users = usersByIndex;
+        return index >= 0 && index < users.length() ? users.get(index) : null;
+    }
+
+    /**
+     * The recipient by the notification's index when that index belongs to the recipient's id, otherwise by id, so a
+     * notification carrying a stale index is never delivered to whoever holds that index now.
+     */
+    private ObserverImpl recipientOf(Notification notification)
+    {
+        int index = notification.recipientIndex();
+        AtomicReferenceArray<ObserverImpl> users = usersByIndex;
+        if (index >= 0 && index < users.length())
+        {
+            ObserverImpl recipient = users.get(index);
+            if (recipient != null && recipient.getUserId().equals(notification.recipient()))
+            {
+                return recipient;
+            }
+        }
+        return usersById.get(notification.recipient());
+    }
+
+    /**
+     * Calls {@code action} for every user in the audience of a notification that enabled the notification's type, and
+     * returns how many users that was. Every audience, broadcasts and single recipients included, goes through here.
+     * Subscribers, friends and followers are iterated in place, under the read lock of the subscription index or the
+     * social graph, so the cost is proportional to the size of the audience and nothing is copied.
+     */
+    private int forEachRecipient(Notification notification, Consumer<ObserverImpl> action)
+    {
+        EventType type = notification.type();
+        return switch (notification.audience())
+        {
+            case Audience.Self self -> acceptIfEnabled(recipientOf(notification), type, action);
+            case Audience.Explicit explicit ->
+            {
+                int delivered = 0;
+                for (String userId : explicit.userIds())
+                {
+                    delivered += acceptIfEnabled(usersById.get(userId), type, action);
+                }
+                yield delivered;
+            }
+            case Audience.FriendsOf friendsOf ->
+            {
+                int index = indexOf(friendsOf.userId(), friendsOf.userIndex());
+                if (index < 0)
+                {
+                    yield 0;
+                }
+                NeighborVisitor friends = new NeighborVisitor(type, action);
+                socialGraph.forEachFriend(index, friends);
+                yield friends.delivered;
+            }
+            case Audience.FollowersOf followersOf ->
+            {
+                int index = indexOf(followersOf.userId(), followersOf.userIndex());
+                if (index < 0 || outboxes.offer(index, notification))
+                {
+                    yield 0;
+                }
+                NeighborVisitor followers = new NeighborVisitor(type, action);
+                socialGraph.forEachFollower(index, followers);
+                yield followers.delivered;
+            }
+            case Audience.Everyone everyone ->
+            {
+                int delivered = subscriptions.forEachSubscriber(type, action);
+                if (metrics != null)
+                {
+                    metrics.recordFiltered(type, Math.max(0, usersById.size() - delivered));
+                }
+                yield delivered;
+            }
+        };
+    }
+
+    private int acceptIfEnabled(ObserverImpl user, EventType type, Consumer<ObserverImpl> action)
+    {
+        if (!isEnabledFor(user, type))
+        {
+            return 0;
+        }
+        action.accept(user);
+        return 1;
+    }
+
+    /**
+     * True if {@code user} is registered and enabled {@code type}; a registered user that did not is counted as
+     * filtered by preference.
+     */
+    private boolean isEnabledFor(ObserverImpl user, EventType type)
+    {
+        if (user == null)
+        {
+            return false;
+        }
+        if (user.isNotificationEnabled(type))
+        {
+            return true;
+        }
+        if (metrics != null)
+        {
+            metrics.recordFiltered(type, 1);
+        }
+        return false;
+    }
+
+    private int indexOf(String userId, int userIndex)
+    {
+        return userIndex >= 0 ? userIndex : indexOf(userId);
+    }
+
+    /**
+     * Interned index of a registered user, or {@link Notification#NO_INDEX}.
+     */
+    int indexOf(String userId)
+    {
+        ObserverImpl user = userId == null ? null : usersById.get(userId);
+        return user != null ? user.getIndex() : Notification.NO_INDEX;
+    }
+
+    Inbox outboxOf(int userIndex)
+    {
+        return outboxes.outboxOf(userIndex);
+    }
+
+    private static Map<Notification, Integer> positionsOf(List<Notification> notifications)
+    {
+        Map<Notification, Integer> positions = new IdentityHashMap<>(notifications.size());
+        for (int i = 0; i < notifications.size(); i++)
+        {
+            positions.putIfAbsent(notifications.get(i), i);
+        }
+        return positions;
+    }
+
+    /**
+     * Records the deliveries of broadcasts of one type that were grouped in a batch, whose time is part of the batch
+     * dispatch time. The subscribers were walked once, for the first broadcast, which already recorded its filtered
+     * users.
+     */
+    private void recordGroupedBroadcasts(EventType type, int subscribers, int broadcasts)
+    {
+        for (int i = 0; i < broadcasts; i++)
+        {
+            metrics.recordDeliveries(type, subscribers);
+        }
+        metrics.recordFiltered(type, (broadcasts - 1L) * Math.max(0, usersById.size() - subscribers));
+    }
+
+    /**
+     * Visits the friends or followers of a user in place in the social graph, passing those that enabled the type to
+     * the action and counting them.
+     */
+    private final class NeighborVisitor implements IntConsumer
+    {
+        private final AtomicReferenceArray<ObserverImpl> users = usersByIndex;
+        private final EventType type;
+        private final Consumer<ObserverImpl> action;
+        private int delivered;
+
+        NeighborVisitor(EventType type, Consumer<ObserverImpl> action)
+        {
+            this.type = type;
+            this.action = action;
+        }
+
+        @Override
+        public void accept(int index)
+        {
+            if (index < users.length())
+            {
+                delivered += acceptIfEnabled(users.get(index), type, action);
+            }
+        }
+    }
+
+    /**
+     * Notifications collected for one observer. A single contribution is handed over as is; several contributions
+     * are merged and put back in publishing order.
+     */
+    private static final class PendingDelivery
+    {
+        private List<Notification> notifications;
+        private boolean mixed;
+
+        void add(List<Notification> contribution)
+        {
+            if (notifications == null)
+            {
+                notifications = contribution;
+                return;
+            }
+            if (!mixed)
+            {
+                notifications = new ArrayList<>(notifications);
+                mixed = true;
+            }
+            notifications.addAll(contribution);
+        }
+
+        List<Notification> inPublishingOrder(Map<Notification, Integer> positions)
+        {
+            if (mixed)
+            {
+                notifications.sort(Comparator.comparing(positions::get));
+            }
+            return notifications;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.observers;
+
+import org.example.events.EventType;
+import org.example.events.EventTypes;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Users that enabled each event type, so a broadcast only visits the users that opted in to it. Every registered
+ * observer holds a dense slot, and each type keeps one bit per slot. Slots are handed out in registration order, so
+ * broadcasts reach subscribers in that order; unregistering moves the last observer into the freed slot.
+ * Broadcasts share a read lock; changes take the write lock.
+ */
+class SubscriptionIndex implements PreferenceListener
+{
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ObserverImpl[] observersBySlot = new ObserverImpl[16];
+    private int registered;
+    /** One bitset per event type id, one bit per slot. */
+    private final long[][] subscribedByType = new long[EventTypes.count()][1];
+
+    /**
+     * Registering an observer that is already registered keeps its place.
+     */
+    void add(ObserverImpl observer)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (observer.subscriptionSlot() < 0)
+            {
+                int slot = registered++;
+                if (slot == observersBySlot.length)
+                {
+                    observersBySlot = Arrays.copyOf(observersBySlot, slot * 2);
+                }
+                observersBySlot[slot] = observer;
+                observer.setSubscriptionSlot(slot);
+            }
+        } finally
+        {
+            lock.writeLock().unlock();
+        }
+        observer.bindPreferenceListener(this);
+    }
+
+    void remove(ObserverImpl observer)
+    {
+        observer.bindPreferenceListener(null);
+        lock.writeLock().lock();
+        try
+        {
+            int slot = observer.subscriptionSlot();
+            if (slot < 0 || observersBySlot[slot] != observer)
+            {
+                return;
+            }
+            int last = --registered;
+            ObserverImpl moved = observersBySlot[last];
+            for (long[] subscribed : subscribedByType)
+            {
+                set(subscribed, slot, isSet(subscribed, last));
+                set(subscribed, last, false);
+            }
+            observersBySlot[slot] = moved;
+            observersBySlot[last] = null;
+            moved.setSubscriptionSlot(slot);
+            observer.setSubscriptionSlot(-1);
+        } finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Calls {@code action} for every subscriber of {@code type} in slot order, and returns how many there were. Holds
+     * the read lock throughout, so {@code action} must not change preferences or registrations.
+     */
+    int forEachSubscriber(EventType type, Consumer<ObserverImpl> action)
+    {
+        lock.readLock().lock();
+        try
+        {
+            long[] subscribed = subscribedByType[type.id()];
+            int visited = 0;
+            for (int word = 0; word < subscribed.length; word++)
+            {
+                for (long bits = subscribed[word]; bits != 0; bits &= bits - 1)
+                {
+                    action.accept(observersBySlot[word << 6 | Long.numberOfTrailingZeros(bits)]);
+                    visited++;
+                }
+            }
+            return visited;
+        } finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void preferencesChanged(ObserverImpl observer, int enabledTypes, int disabledTypes)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            int slot = observer.subscriptionSlot();
+            if (slot < 0 || observersBySlot[slot] != observer)
+            {
+                return;
+            }
+            for (int bits = enabledTypes; bits != 0; bits &= bits - 1)
+            {
+                int type = Integer.numberOfTrailingZeros(bits);
+                subscribedByType[type] = set(subscribedByType[type], slot, true);
+            }
+            for (int bits = disabledTypes; bits != 0; bits &= bits - 1)
+            {
+                set(subscribedByType[Integer.numberOfTrailingZeros(bits)], slot, false);
+            }
+        } finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean isSet(long[] bits, int slot)
+    {
+        int word = slot >>> 6;
+        return word < bits.length && (bits[word] & 1L << slot) != 0;
+    }
+
+    /**
+     * Sets or clears the bit of {@code slot}, growing the bitset when a bit past its end is set; returns the bitset.
+     */
+    private static long[] set(long[] bits, int slot, boolean value)
+    {
+        int word = slot >>> 6;
+        if (word >= bits.length)
+        {
+            if (!value)
+            {
+                return bits;
+            }
+            bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+        }
+        if (value)
+        {
+            bits[word] |= 1L << slot;
+        }
+        else
+        {
+            bits[word] &= ~(1L << slot);
+        }
+        return bits;
+    }
+}
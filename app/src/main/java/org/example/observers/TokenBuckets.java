@@ -0,0 +1,143 @@
+package org.example.observers;
+
+import org.example.events.EventType;
+import org.example.events.EventTypes;
+import org.example.model.Notification;
+import org.example.util.LongLongHashMap;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per (recipient, event type). A bucket is a single {@code long}, the time at which it would be full
+ * again (the "theoretical arrival time" of the generic cell rate algorithm), kept in a primitive map striped by key.
+ * Buckets that are full again carry no information and are removed by {@link #evictFull()}, so the state is bounded
+ * by the recipients that were recently limited rather than by the number of users.
+ */
+class TokenBuckets
+{
+    /** Returned by {@link #acquire} when no token is available within the allowed wait. */
+    static final long DENIED = -1;
+
+    private static final int STRIPES = 16;
+
+    /** Nanoseconds per token by event type id; 0 for types without a limit. */
+    private final long[] intervalNanos = new long[EventTypes.count()];
+    /** How far ahead of now a full bucket's arrival time may be, i.e. (burst - 1) tokens. */
+    private final long[] toleranceNanos = new long[EventTypes.count()];
+    private final LongLongHashMap[] stripes = new LongLongHashMap[STRIPES];
+    private final LongSupplier nanoClock;
+    private final long epoch;
+
+    TokenBuckets(LongSupplier nanoClock)
+    {
+        this.nanoClock = nanoClock;
+        this.epoch = nanoClock.getAsLong();
+        for (int i = 0; i < STRIPES; i++)
+        {
+            stripes[i] = new LongLongHashMap(64);
+        }
+    }
+
+    void limit(EventType type, int burst, long refillIntervalNanos)
+    {
+        if (burst < 1 || refillIntervalNanos < 1)
+        {
+            throw new IllegalArgumentException("Burst and refill interval must be positive");
+        }
+        intervalNanos[type.id()] = refillIntervalNanos;
+        toleranceNanos[type.id()] = (burst - 1) * refillIntervalNanos;
+    }
+
+    boolean isLimited(EventType type)
+    {
+        return intervalNanos[type.id()] != 0;
+    }
+
+    /**
+     * Bucket key of the notification's recipient and type. Recipients without an interned index are keyed by the
+     * hash of their id, so two of them may share a bucket.
+     */
+    static long keyOf(Notification notification)
+    {
+        long recipient = notification.recipientIndex() >= 0 ? notification.recipientIndex()
+                : 1L << 32 | (notification.recipient() == null ? 0 : notification.recipient().hashCode() & 0xFFFFFFFFL);
+        return recipient << 5 | notification.type().id();
+    }
+
+    /**
+     * Takes a token from the bucket, possibly one that only becomes available later. Returns how many nanoseconds
+     * until that token is available, 0 if it is available now, or {@link #DENIED} if that would be more than
+     * {@code maxWaitNanos}, in which case nothing is taken.
+     */
+    long acquire(long key, EventType type, long maxWaitNanos)
+    {
+        long interval = intervalNanos[type.id()];
+        long now = now();
+        LongLongHashMap buckets = stripeOf(key);
+        synchronized (buckets)
+        {
+            long arrival = Math.max(buckets.get(key, now), now);
+            long wait = arrival - toleranceNanos[type.id()] - now;
+            if (wait > maxWaitNanos)
+            {
+                return DENIED;
+            }
+            buckets.put(key, arrival + interval);
+            return Math.max(wait, 0);
+        }
+    }
+
+    /**
+     * Nanoseconds until the bucket has a token again, without taking it.
+     */
+    long nanosUntilToken(long key, EventType type)
+    {
+        long now = now();
+        LongLongHashMap buckets = stripeOf(key);
+        synchronized (buckets)
+        {
+            return Math.max(buckets.get(key, now) - toleranceNanos[type.id()] - now, 0);
+        }
+    }
+
+    /**
+     * Removes the buckets that are full again and returns how many were removed.
+     */
+    int evictFull()
+    {
+        long now = now();
+        int evicted = 0;
+        for (LongLongHashMap buckets : stripes)
+        {
+            synchronized (buckets)
+            {
+                evicted += buckets.removeIf((key, arrival) -> arrival <= now);
+            }
+        }
+        return evicted;
+    }
+
+    int size()
+    {
+        int size = 0;
+        for (LongLongHashMap buckets : stripes)
+        {
+            synchronized (buckets)
+            {
+                size += buckets.size();
+            }
+        }
+        return size;
+    }
+
+    private long now()
+    {
+        return nanoClock.getAsLong() - epoch;
+    }
+
+    private LongLongHashMap stripeOf(long key)
+    {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (hash >>> 60) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,486 @@
+package org.example.persistence;
+
+import org.example.events.EventType;
+import org.example.events.EventTypes;
+import org.example.model.InboxPage;
+import org.example.model.MessageTemplate;
+import org.example.model.Notification;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * The inboxes of the users hashed to one shard, appended to memory-mapped segment files. Frames are
+ * [length][CRC32C][kind][fields] and come in two kinds: a dictionary entry, which gives the next dictionary id to a
+ * string, and a notification, which refers to its recipient, type, sender and template arguments by dictionary id.
+ * Each notification also holds the position of the recipient's previous one, so a user's inbox is a chain through
+ * the segments. The heap only keeps the dictionary and, per user, the chain head, the count and the position of every
+ * {@value #CHECKPOINT_INTERVAL}th notification, which bounds the walk to any offset.
+ */
+final class InboxShard
+{
+    static final int CHECKPOINT_INTERVAL = 64;
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+    static final int MAX_FRAME_SIZE = 64 * 1024;
+
+    private static final String SEGMENT_SUFFIX = ".inbox";
+    private static final byte DICTIONARY_ENTRY = 1;
+    private static final byte NOTIFICATION = 2;
+    private static final byte NO_TEMPLATE = -1;
+    private static final int NONE = -1;
+    /** Event types are stored by {@link EventTypes#qualifiedName}, which stays stable when types are added. */
+    private static final String[] TYPE_KEYS = typeKeys();
+    private static final Map<String, EventType> TYPES_BY_KEY = typesByKey();
+    private static final MessageTemplate[] TEMPLATES = MessageTemplate.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_FRAME_SIZE);
+    private final CRC32C checksum = new CRC32C();
+    private final Map<String, Integer> idsByString = new HashMap<>();
+    /** Strings by dictionary id; replaced when it grows, so readers can decode without the lock. */
+    private volatile String[] strings = new String[64];
+    private int stringCount;
+    /** Inbox state by the recipient's dictionary id; guarded by this. */
+    private UserInbox[] inboxes = new UserInbox[64];
+    /** Mapped segments in position order; replaced when a segment is added. */
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private final List<FileChannel> channels = new ArrayList<>();
+    private MappedByteBuffer segment;
+    private long position;
+    /** Index of the first segment written to since the last force; guarded by this. */
+    private int firstUnforcedSegment = Integer.MAX_VALUE;
+
+    InboxShard(Path directory, int segmentSize) throws IOException
+    {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Long> starts = segmentStarts();
+        this.segmentSize = starts.isEmpty() ? segmentSize : (int) Files.size(segmentPath(starts.get(0)));
+        if (starts.isEmpty())
+        {
+            openSegment(0);
+        }
+        for (int i = 0; i < starts.size(); i++)
+        {
+            openSegment(starts.get(i));
+            if (!scan(segment, starts.get(i)))
+            {
+                // Frames after a torn one may be stale; clear them so they are never mistaken for new ones.
+                for (int offset = segment.position(); offset < segmentSize; offset++)
+                {
+                    segment.put(offset, (byte) 0);
+                }
+                for (long stale : starts.subList(i + 1, starts.size()))
+                {
+                    Files.delete(segmentPath(stale));
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Appends a notification to the inbox of {@code userId} and returns its offset in that inbox.
+     */
+    synchronized long append(String userId, Notification notification)
+    {
+        int recipient = idOf(userId);
+        int type = idOf(TYPE_KEYS[notification.type().id()]);
+        int sender = notification.sender() == null ? NONE : idOf(notification.sender());
+        MessageTemplate template = notification.template();
+        String[] args = notification.templateArgs();
+        int[] argIds = null;
+        if (template != null)
+        {
+            argIds = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                argIds[i] = idOf(args[i]);
+            }
+        }
+        UserInbox inbox = inboxOf(recipient);
+        scratch.clear();
+        try
+        {
+            scratch.put(NOTIFICATION).putLong(inbox.head).putInt(recipient).putInt(type).putInt(sender);
+            if (template != null)
+            {
+                scratch.put((byte) template.ordinal()).put((byte) argIds.length);
+                for (int argId : argIds)
+                {
+                    scratch.putInt(argId);
+                }
+            }
+            else
+            {
+                scratch.put(NO_TEMPLATE);
+                putString(scratch, notification.message());
+            }
+        } catch (BufferOverflowException e)
+        {
+            throw new IllegalArgumentException("Notification exceeds " + MAX_FRAME_SIZE + " bytes: " + notification);
+        }
+        long framePosition = writeFrame();
+        return inbox.add(framePosition);
+    }
+
+    /**
+     * Up to {@code limit} notifications of {@code userId} from offset {@code cursor} on, oldest first. The frames
+     * are decoded straight from the mapped segments, without the lock.
+     */
+    InboxPage page(String userId, long cursor, int limit)
+    {
+        long start;
+        long end;
+        long walkFrom;
+        long walkFromOffset;
+        synchronized (this)
+        {
+            Integer recipient = idsByString.get(userId);
+            UserInbox inbox = recipient != null && recipient < inboxes.length ? inboxes[recipient] : null;
+            long count = inbox != null ? inbox.count : 0;
+            start = Math.min(Math.max(cursor, 0), count);
+            end = Math.min(count, start + Math.max(limit, 0));
+            if (start == end)
+            {
+                return new InboxPage(List.of(), start, 0);
+            }
+            int checkpoint = (int) ((end - 1 + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL);
+            if ((long) checkpoint * CHECKPOINT_INTERVAL < count)
+            {
+                walkFrom = inbox.checkpoints[checkpoint];
+                walkFromOffset = (long) checkpoint * CHECKPOINT_INTERVAL;
+            }
+            else
+            {
+                walkFrom = inbox.head;
+                walkFromOffset = count - 1;
+            }
+        }
+        MappedByteBuffer[] mapped = segments;
+        long framePosition = walkFrom;
+        for (long offset = walkFromOffset; offset > end - 1; offset--)
+        {
+            framePosition = previousOf(mapped, framePosition);
+        }
+        Notification[] page = new Notification[(int) (end - start)];
+        for (int i = page.length - 1; i >= 0; i--)
+        {
+            page[i] = decode(mapped, framePosition, userId);
+            framePosition = previousOf(mapped, framePosition);
+        }
+        return new InboxPage(Arrays.asList(page), end, 0);
+    }
+
+    synchronized long size(String userId)
+    {
+        Integer recipient = idsByString.get(userId);
+        UserInbox inbox = recipient != null && recipient < inboxes.length ? inboxes[recipient] : null;
+        return inbox != null ? inbox.count : 0;
+    }
+
+    /**
+     * Forces the pages written since the last force to disk.
+     */
+    void force()
+    {
+        MappedByteBuffer[] toForce;
+        int from;
+        synchronized (this)
+        {
+            toForce = segments;
+            from = firstUnforcedSegment;
+            firstUnforcedSegment = Integer.MAX_VALUE;
+        }
+        for (int i = from; i < toForce.length; i++)
+        {
+            toForce[i].force();
+        }
+    }
+
+    synchronized void close() throws IOException
+    {
+        for (MappedByteBuffer mapped : segments)
+        {
+            mapped.force();
+        }
+        for (FileChannel channel : channels)
+        {
+            channel.close();
+        }
+    }
+
+    private int idOf(String value)
+    {
+        Integer id = idsByString.get(value);
+        if (id != null)
+        {
+            return id;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        scratch.clear();
+        if (bytes.length > MAX_FRAME_SIZE - 1 - Integer.BYTES)
+        {
+            throw new IllegalArgumentException("Dictionary entry exceeds " + MAX_FRAME_SIZE + " bytes");
+        }
+        scratch.put(DICTIONARY_ENTRY).putInt(bytes.length).put(bytes);
+        writeFrame();
+        return addString(value);
+    }
+
+    private int addString(String value)
+    {
+        String[] current = strings;
+        if (stringCount == current.length)
+        {
+            current = Arrays.copyOf(current, stringCount * 2);
+        }
+        current[stringCount] = value;
+        strings = current;
+        idsByString.put(value, stringCount);
+        return stringCount++;
+    }
+
+    private UserInbox inboxOf(int recipient)
+    {
+        if (recipient >= inboxes.length)
+        {
+            inboxes = Arrays.copyOf(inboxes, Math.max(recipient + 1, inboxes.length * 2));
+        }
+        UserInbox inbox = inboxes[recipient];
+        if (inbox == null)
+        {
+            inbox = new UserInbox();
+            inboxes[recipient] = inbox;
+        }
+        return inbox;
+    }
+
+    /**
+     * Frames the scratch buffer into the current segment, rolling to a new one if it does not fit, and returns the
+     * frame's position.
+     */
+    private long writeFrame()
+    {
+        scratch.flip();
+        int length = scratch.remaining();
+        if (segment.remaining() < HEADER_SIZE + length)
+        {
+            try
+            {
+                openSegment((long) segments.length * segmentSize);
+            } catch (IOException e)
+            {
+                throw new UncheckedIOException("Failed to add an inbox segment in " + directory, e);
+            }
+        }
+        long framePosition = position;
+        checksum.reset();
+        checksum.update(scratch.array(), 0, length);
+        segment.putInt(length);
+        segment.putInt((int) checksum.getValue());
+        segment.put(scratch);
+        position += HEADER_SIZE + length;
+        firstUnforcedSegment = Math.min(firstUnforcedSegment, segments.length - 1);
+        return framePosition;
+    }
+
+    /**
+     * Rebuilds the dictionary and the inbox chains from a segment. Returns false if the segment ends in a torn frame,
+     * which then ends the store.
+     */
+    private boolean scan(MappedByteBuffer data, long start)
+    {
+        int offset = 0;
+        while (offset + HEADER_SIZE <= data.capacity())
+        {
+            int length = data.getInt(offset);
+            if (length <= 0 || length > data.capacity() - offset - HEADER_SIZE)
+            {
+                break;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(data.slice(offset + HEADER_SIZE, length));
+            if ((int) crc.getValue() != data.getInt(offset + Integer.BYTES))
+            {
+                data.position(offset);
+                position = start + offset;
+                return false;
+            }
+            int fields = offset + HEADER_SIZE;
+            if (data.get(fields) == DICTIONARY_ENTRY)
+            {
+                byte[] bytes = new byte[data.getInt(fields + 1)];
+                data.get(fields + 1 + Integer.BYTES, bytes);
+                addString(new String(bytes, StandardCharsets.UTF_8));
+            }
+            else
+            {
+                inboxOf(data.getInt(fields + 1 + Long.BYTES)).add(start + offset);
+            }
+            offset += HEADER_SIZE + length;
+        }
+        data.position(offset);
+        position = start + offset;
+        return true;
+    }
+
+    private long previousOf(MappedByteBuffer[] mapped, long framePosition)
+    {
+        return frameBuffer(mapped, framePosition).getLong(frameOffset(framePosition) + HEADER_SIZE + 1);
+    }
+
+    private Notification decode(MappedByteBuffer[] mapped, long framePosition, String userId)
+    {
+        MappedByteBuffer data = frameBuffer(mapped, framePosition);
+        int at = frameOffset(framePosition) + HEADER_SIZE + 1 + Long.BYTES + Integer.BYTES;
+        String[] dictionary = strings;
+        EventType type = TYPES_BY_KEY.get(dictionary[data.getInt(at)]);
+        int sender = data.getInt(at + Integer.BYTES);
+        byte template = data.get(at + 2 * Integer.BYTES);
+        at += 2 * Integer.BYTES + 1;
+        Notification.Builder builder = Notification.builder(type)
+                .sender(sender == NONE ? null : dictionary[sender])
+                .recipient(userId);
+        if (template == NO_TEMPLATE)
+        {
+            builder.message(getString(data, at));
+        }
+        else
+        {
+            String[] args = new String[data.get(at++)];
+            for (int i = 0; i < args.length; i++, at += Integer.BYTES)
+            {
+                args[i] = dictionary[data.getInt(at)];
+            }
+            builder.template(TEMPLATES[template], args);
+        }
+        return builder.build();
+    }
+
+    private MappedByteBuffer frameBuffer(MappedByteBuffer[] mapped, long framePosition)
+    {
+        return mapped[(int) (framePosition / segmentSize)];
+    }
+
+    private int frameOffset(long framePosition)
+    {
+        return (int) (framePosition % segmentSize);
+    }
+
+    private synchronized void openSegment(long start) throws IOException
+    {
+        FileChannel channel = FileChannel.open(segmentPath(start), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        channels.add(channel);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        MappedByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+        grown[grown.length - 1] = segment;
+        segments = grown;
+        position = start;
+    }
+
+    private List<Long> segmentStarts() throws IOException
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long start)
+    {
+        return directory.resolve(String.format("%020d%s", start, SEGMENT_SUFFIX));
+    }
+
+    private static void putString(ByteBuffer buffer, String value)
+    {
+        if (value == null)
+        {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer, int at)
+    {
+        int length = buffer.getInt(at);
+        if (length < 0)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(at + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String[] typeKeys()
+    {
+        String[] keys = new String[EventTypes.count()];
+        for (int id = 0; id < keys.length; id++)
+        {
+            keys[id] = EventTypes.qualifiedName(EventTypes.byId(id));
+        }
+        return keys;
+    }
+
+    private static Map<String, EventType> typesByKey()
+    {
+        Map<String, EventType> types = new HashMap<>();
+        for (int id = 0; id < TYPE_KEYS.length; id++)
+        {
+            types.put(TYPE_KEYS[id], EventTypes.byId(id));
+        }
+        return types;
+    }
+
+    /**
+     * Chain head, count and checkpoint positions of one user's inbox.
+     */
+    private static final class UserInbox
+    {
+        private long head = NONE;
+        private long count;
+        private long[] checkpoints = new long[1];
+
+        /**
+         * Links the frame at {@code framePosition} as the newest notification and returns its offset.
+         */
+        long add(long framePosition)
+        {
+            if (count % CHECKPOINT_INTERVAL == 0)
+            {
+                int checkpoint = (int) (count / CHECKPOINT_INTERVAL);
+                if (checkpoint == checkpoints.length)
+                {
+                    checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+                }
+                checkpoints[checkpoint] = framePosition;
+            }
+            head = framePosition;
+            return count++;
+        }
+    }
+}
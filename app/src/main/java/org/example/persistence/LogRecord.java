@@ -0,0 +1,44 @@
+package org.example.persistence;
+
+import org.example.model.Notification;
+
+/**
+ * A state change of the notification service, as written to and replayed from the {@link NotificationLog}.
+ */
+public sealed interface LogRecord
+{
+    record UserRegistered(String userId) implements LogRecord
+    {
+    }
+
+    record UserUnregistered(String userId) implements LogRecord
+    {
+    }
+
+    /**
+     * The event types the user enabled after the change, as a mask of {@link org.example.events.EventType#mask()}.
+     */
+    record PreferencesChanged(String userId, int enabledTypes) implements LogRecord
+    {
+    }
+
+    record FriendRequestAdded(String fromUserId, String toUserId) implements LogRecord
+    {
+    }
+
+    record FriendRequestRemoved(String fromUserId, String toUserId) implements LogRecord
+    {
+    }
+
+    record FriendshipAdded(String userId, String otherUserId) implements LogRecord
+    {
+    }
+
+    record FollowerAdded(String followedUserId, String followerId) implements LogRecord
+    {
+    }
+
+    record NotificationPublished(Notification notification) implements LogRecord
+    {
+    }
+}
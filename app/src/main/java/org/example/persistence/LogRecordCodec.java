@@ -0,0 +1,270 @@
+package org.example.persistence;
+
+import org.example.events.EventType;
+import org.example.events.EventTypes;
+import org.example.model.Audience;
+import org.example.model.MessageTemplate;
+import org.example.model.Notification;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of {@link LogRecord}s: a tag byte followed by the fields. Strings are a length-prefixed UTF-8
+ * byte sequence, with length -1 for null. Notifications are written with user ids only: interned indexes are not
+ * stable across restarts, so the service resolves them again when it replays the log. For the same reason event types
+ * are written by {@link EventTypes#qualifiedName} and templates by name, never by id or ordinal, which shift when a
+ * type or template is added; a record naming one this version does not know is rejected.
+ */
+final class LogRecordCodec
+{
+    private static final byte USER_REGISTERED = 1;
+    private static final byte USER_UNREGISTERED = 2;
+    /** Tags 3 and 8 held types as ids in an earlier format, which is rejected. */
+    private static final byte PREFERENCES_CHANGED = 9;
+    private static final byte FRIEND_REQUEST_ADDED = 4;
+    private static final byte FRIEND_REQUEST_REMOVED = 5;
+    private static final byte FRIENDSHIP_ADDED = 6;
+    private static final byte FOLLOWER_ADDED = 7;
+    private static final byte NOTIFICATION_PUBLISHED = 10;
+
+    private static final byte AUDIENCE_SELF = 0;
+    private static final byte AUDIENCE_EVERYONE = 1;
+    private static final byte AUDIENCE_EXPLICIT = 2;
+    private static final byte AUDIENCE_FRIENDS_OF = 3;
+    private static final byte AUDIENCE_FOLLOWERS_OF = 4;
+
+    private LogRecordCodec()
+    {
+    }
+
+    /**
+     * Encodes the record into {@code buffer}; throws {@link java.nio.BufferOverflowException} if it does not fit.
+     */
+    static void encode(LogRecord record, ByteBuffer buffer)
+    {
+        switch (record)
+        {
+            case LogRecord.UserRegistered r ->
+            {
+                buffer.put(USER_REGISTERED);
+                putString(buffer, r.userId());
+            }
+            case LogRecord.UserUnregistered r ->
+            {
+                buffer.put(USER_UNREGISTERED);
+                putString(buffer, r.userId());
+            }
+            case LogRecord.PreferencesChanged r ->
+            {
+                buffer.put(PREFERENCES_CHANGED);
+                putString(buffer, r.userId());
+                putTypes(buffer, r.enabledTypes());
+            }
+            case LogRecord.FriendRequestAdded r -> putPair(buffer, FRIEND_REQUEST_ADDED, r.fromUserId(), r.toUserId());
+            case LogRecord.FriendRequestRemoved r ->
+                    putPair(buffer, FRIEND_REQUEST_REMOVED, r.fromUserId(), r.toUserId());
+            case LogRecord.FriendshipAdded r -> putPair(buffer, FRIENDSHIP_ADDED, r.userId(), r.otherUserId());
+            case LogRecord.FollowerAdded r -> putPair(buffer, FOLLOWER_ADDED, r.followedUserId(), r.followerId());
+            case LogRecord.NotificationPublished r ->
+            {
+                buffer.put(NOTIFICATION_PUBLISHED);
+                putNotification(buffer, r.notification());
+            }
+        }
+    }
+
+    static LogRecord decode(ByteBuffer buffer)
+    {
+        byte tag = buffer.get();
+        return switch (tag)
+        {
+            case USER_REGISTERED -> new LogRecord.UserRegistered(getString(buffer));
+            case USER_UNREGISTERED -> new LogRecord.UserUnregistered(getString(buffer));
+            case PREFERENCES_CHANGED -> new LogRecord.PreferencesChanged(getString(buffer), getTypes(buffer));
+            case FRIEND_REQUEST_ADDED -> new LogRecord.FriendRequestAdded(getString(buffer), getString(buffer));
+            case FRIEND_REQUEST_REMOVED -> new LogRecord.FriendRequestRemoved(getString(buffer), getString(buffer));
+            case FRIENDSHIP_ADDED -> new LogRecord.FriendshipAdded(getString(buffer), getString(buffer));
+            case FOLLOWER_ADDED -> new LogRecord.FollowerAdded(getString(buffer), getString(buffer));
+            case NOTIFICATION_PUBLISHED -> new LogRecord.NotificationPublished(getNotification(buffer));
+            default -> throw new IllegalStateException("Unknown log record tag " + tag);
+        };
+    }
+
+    static void putNotification(ByteBuffer buffer, Notification notification)
+    {
+        putString(buffer, EventTypes.qualifiedName(notification.type()));
+        MessageTemplate template = notification.template();
+        if (template == null)
+        {
+            putString(buffer, null);
+            putString(buffer, notification.message());
+        }
+        else
+        {
+            putString(buffer, template.name());
+            String[] args = notification.templateArgs();
+            buffer.put((byte) args.length);
+            for (String arg : args)
+            {
+                putString(buffer, arg);
+            }
+        }
+        putString(buffer, notification.sender());
+        putString(buffer, notification.recipient());
+        putAudience(buffer, notification.audience());
+        putString(buffer, notification.idempotencyKey());
+    }
+
+    static Notification getNotification(ByteBuffer buffer)
+    {
+        Notification.Builder builder = Notification.builder(getType(buffer));
+        String template = getString(buffer);
+        if (template == null)
+        {
+            builder.message(getString(buffer));
+        }
+        else
+        {
+            String[] args = new String[buffer.get()];
+            for (int i = 0; i < args.length; i++)
+            {
+                args[i] = getString(buffer);
+            }
+            builder.template(templateNamed(template), args);
+        }
+        builder.sender(getString(buffer));
+        builder.recipient(getString(buffer));
+        builder.audience(getAudience(buffer));
+        builder.idempotencyKey(getString(buffer));
+        return builder.build();
+    }
+
+    /**
+     * Writes a mask of {@link EventType#mask()} bits as the count and qualified names of its types.
+     */
+    static void putTypes(ByteBuffer buffer, int typesMask)
+    {
+        buffer.put((byte) Integer.bitCount(typesMask));
+        for (int bits = typesMask; bits != 0; bits &= bits - 1)
+        {
+            putString(buffer, EventTypes.qualifiedName(EventTypes.byId(Integer.numberOfTrailingZeros(bits))));
+        }
+    }
+
+    static int getTypes(ByteBuffer buffer)
+    {
+        int mask = 0;
+        for (int count = buffer.get(); count > 0; count--)
+        {
+            mask |= getType(buffer).mask();
+        }
+        return mask;
+    }
+
+    static void putString(ByteBuffer buffer, String value)
+    {
+        if (value == null)
+        {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer)
+    {
+        int length = buffer.getInt();
+        if (length < 0)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static EventType getType(ByteBuffer buffer)
+    {
+        String name = getString(buffer);
+        EventType type = EventTypes.byQualifiedName(name);
+        if (type == null)
+        {
+            throw new IllegalStateException("Unknown event type " + name);
+        }
+        return type;
+    }
+
+    private static MessageTemplate templateNamed(String name)
+    {
+        try
+        {
+            return MessageTemplate.valueOf(name);
+        } catch (IllegalArgumentException e)
+        {
+            throw new IllegalStateException("Unknown message template " + name);
+        }
+    }
+
+    private static void putPair(ByteBuffer buffer, byte tag, String first, String second)
+    {
+        buffer.put(tag);
+        putString(buffer, first);
+        putString(buffer, second);
+    }
+
+    private static void putAudience(ByteBuffer buffer, Audience audience)
+    {
+        switch (audience)
+        {
+            case Audience.Self self -> buffer.put(AUDIENCE_SELF);
+            case Audience.Everyone everyone -> buffer.put(AUDIENCE_EVERYONE);
+            case Audience.Explicit explicit ->
+            {
+                buffer.put(AUDIENCE_EXPLICIT);
+                buffer.putInt(explicit.userIds().size());
+                for (String userId : explicit.userIds())
+                {
+                    putString(buffer, userId);
+                }
+            }
+            case Audience.FriendsOf friendsOf ->
+            {
+                buffer.put(AUDIENCE_FRIENDS_OF);
+                putString(buffer, friendsOf.userId());
+            }
+            case Audience.FollowersOf followersOf ->
+            {
+                buffer.put(AUDIENCE_FOLLOWERS_OF);
+                putString(buffer, followersOf.userId());
+            }
+        }
+    }
+
+    private static Audience getAudience(ByteBuffer buffer)
+    {
+        byte kind = buffer.get();
+        return switch (kind)
+        {
+            case AUDIENCE_SELF -> Audience.SELF;
+            case AUDIENCE_EVERYONE -> Audience.EVERYONE;
+            case AUDIENCE_EXPLICIT ->
+            {
+                int size = buffer.getInt();
+                List<String> userIds = new ArrayList<>(size);
+                for (int i = 0; i < size; i++)
+                {
+                    userIds.add(getString(buffer));
+                }
+                yield Audience.explicit(userIds);
+            }
+            case AUDIENCE_FRIENDS_OF -> Audience.friendsOf(getString(buffer));
+            case AUDIENCE_FOLLOWERS_OF -> Audience.followersOf(getString(buffer));
+            default -> throw new IllegalStateException("Unknown audience kind " + kind);
+        };
+    }
+}
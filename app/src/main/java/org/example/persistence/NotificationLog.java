@@ -0,0 +1,385 @@
+package org.example.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log of {@link LogRecord}s, written through memory-mapped segment files of a fixed size.
+ * A record is framed as its length, a CRC32C of its bytes and the bytes; a zero length marks the end of the data in
+ * a segment, and a record whose checksum does not match (a write torn by a crash) ends the log.
+ * Appending only copies the record into the mapping. A committer thread forces the written pages to disk every commit
+ * interval, so all records appended in between share one force (group commit); {@link #sync()} waits for the next
+ * commit. Positions are offsets in the concatenation of all segments, and each segment file is named after the
+ * position it starts at.
+ */
+public class NotificationLog implements AutoCloseable
+{
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    public static final Duration DEFAULT_COMMIT_INTERVAL = Duration.ofMillis(5);
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long commitIntervalNanos;
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private final CRC32C checksum = new CRC32C();
+    /** Segments that were rolled over but not forced since; guarded by this. */
+    private final List<MappedByteBuffer> unforcedSegments = new ArrayList<>();
+    private final Object commitMonitor = new Object();
+    private final Thread committer;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    /** Position after the last appended record; guarded by this. */
+    private long appendedPosition;
+    /** Position up to which records were forced to disk; guarded by commitMonitor. */
+    private long durablePosition;
+    private volatile boolean open = true;
+
+    private NotificationLog(Path directory, int segmentSize, Duration commitInterval) throws IOException
+    {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.commitIntervalNanos = commitInterval.toNanos();
+        Files.createDirectories(directory);
+        List<Long> segments = segmentStarts();
+        if (segments.isEmpty())
+        {
+            openSegment(0);
+        }
+        else
+        {
+            long last = segments.get(segments.size() - 1);
+            openSegment(last);
+            segment.position(endOfData(segment));
+            zeroRemaining(segment);
+        }
+        appendedPosition = segmentStart + segment.position();
+        durablePosition = appendedPosition;
+        committer = new Thread(this::commitLoop, "notification-log-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public static NotificationLog open(Path directory) throws IOException
+    {
+        return open(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * Opens the log in {@code directory}, creating it if needed. Appends continue after the last intact record.
+     */
+    public static NotificationLog open(Path directory, int segmentSize, Duration commitInterval) throws IOException
+    {
+        if (segmentSize < HEADER_SIZE + MAX_RECORD_SIZE)
+        {
+            throw new IllegalArgumentException("Segment size must be at least " + (HEADER_SIZE + MAX_RECORD_SIZE));
+        }
+        return new NotificationLog(directory, segmentSize, commitInterval);
+    }
+
+    /**
+     * Appends a record and returns the position after it. The record is durable once {@link #durablePosition()}
+     * reaches that position.
+     */
+    public synchronized long append(LogRecord record)
+    {
+        if (!open)
+        {
+            throw new IllegalStateException("Log is closed");
+        }
+        scratch.clear();
+        try
+        {
+            LogRecordCodec.encode(record, scratch);
+        } catch (BufferOverflowException e)
+        {
+            throw new IllegalArgumentException("Log record exceeds " + MAX_RECORD_SIZE + " bytes: " + record);
+        }
+        scratch.flip();
+        int length = scratch.remaining();
+        if (segment.remaining() < HEADER_SIZE + length)
+        {
+            roll();
+        }
+        checksum.reset();
+        checksum.update(scratch.array(), 0, length);
+        segment.putInt(length);
+        segment.putInt((int) checksum.getValue());
+        segment.put(scratch);
+        appendedPosition = segmentStart + segment.position();
+        return appendedPosition;
+    }
+
+    /**
+     * Waits until every record appended so far is forced to disk.
+     */
+    public void sync() throws InterruptedException
+    {
+        long target;
+        synchronized (this)
+        {
+            target = appendedPosition;
+        }
+        synchronized (commitMonitor)
+        {
+            while (durablePosition < target && open)
+            {
+                commitMonitor.notifyAll();
+                commitMonitor.wait();
+            }
+        }
+    }
+
+    public long durablePosition()
+    {
+        synchronized (commitMonitor)
+        {
+            return durablePosition;
+        }
+    }
+
+    public synchronized long appendedPosition()
+    {
+        return appendedPosition;
+    }
+
+    /**
+     * Reads every intact record from {@code fromPosition} on, in append order. Meant for startup, before appending.
+     */
+    public void replay(long fromPosition, Consumer<LogRecord> consumer) throws IOException
+    {
+        List<Long> starts = segmentStarts();
+        for (int i = 0; i < starts.size(); i++)
+        {
+            long start = starts.get(i);
+            long end = i + 1 < starts.size() ? starts.get(i + 1) : Long.MAX_VALUE;
+            if (end <= fromPosition)
+            {
+                continue;
+            }
+            try (FileChannel file = FileChannel.open(segmentPath(start), StandardOpenOption.READ))
+            {
+                MappedByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                while (hasIntactRecord(data))
+                {
+                    int length = data.getInt();
+                    data.getInt();
+                    ByteBuffer record = data.slice(data.position(), length);
+                    data.position(data.position() + length);
+                    if (start + data.position() > fromPosition)
+                    {
+                        consumer.accept(LogRecordCodec.decode(record));
+                    }
+                }
+            }
+        }
+    }
+
+    public void replay(Consumer<LogRecord> consumer) throws IOException
+    {
+        replay(0, consumer);
+    }
+
+    /**
+     * Deletes the segments that only hold records before {@code position}, e.g. once a snapshot covers them.
+     * Returns how many segments were deleted.
+     */
+    public synchronized int deleteSegmentsBefore(long position) throws IOException
+    {
+        List<Long> starts = segmentStarts();
+        int deleted = 0;
+        for (int i = 0; i + 1 < starts.size() && starts.get(i + 1) <= position; i++)
+        {
+            Files.deleteIfExists(segmentPath(starts.get(i)));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Forces everything appended to disk and closes the log. If interrupted while waiting for the committer, still
+     * forces and closes, and keeps the thread's interrupt status.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        synchronized (this)
+        {
+            if (!open)
+            {
+                return;
+            }
+            open = false;
+        }
+        synchronized (commitMonitor)
+        {
+            commitMonitor.notifyAll();
+        }
+        try
+        {
+            committer.join();
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        commit();
+        synchronized (this)
+        {
+            channel.close();
+        }
+    }
+
+    private void commitLoop()
+    {
+        while (open)
+        {
+            synchronized (commitMonitor)
+            {
+                try
+                {
+                    commitMonitor.wait(commitIntervalNanos / 1_000_000, (int) (commitIntervalNanos % 1_000_000));
+                } catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            commit();
+        }
+    }
+
+    /**
+     * Forces the pages written since the last commit and wakes up the threads waiting in {@link #sync()}.
+     */
+    private void commit()
+    {
+        long target;
+        List<MappedByteBuffer> toForce;
+        synchronized (this)
+        {
+            target = appendedPosition;
+            toForce = new ArrayList<>(unforcedSegments);
+            unforcedSegments.clear();
+            toForce.add(segment);
+        }
+        synchronized (commitMonitor)
+        {
+            if (target <= durablePosition && toForce.size() == 1)
+            {
+                return;
+            }
+        }
+        for (MappedByteBuffer buffer : toForce)
+        {
+            buffer.force();
+        }
+        synchronized (commitMonitor)
+        {
+            durablePosition = Math.max(durablePosition, target);
+            commitMonitor.notifyAll();
+        }
+    }
+
+    private void roll()
+    {
+        try
+        {
+            unforcedSegments.add(segment);
+            channel.close();
+            openSegment(segmentStart + segment.position());
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException("Failed to roll the notification log", e);
+        }
+    }
+
+    private void openSegment(long start) throws IOException
+    {
+        channel = FileChannel.open(segmentPath(start), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segmentStart = start;
+    }
+
+    /**
+     * Zeroes a segment from its position to its end, so the bytes of a torn record, or of records written after it,
+     * cannot be read as records once appends overwrite part of them. Only bytes that are not zero yet are written,
+     * which keeps the untouched pages of a sparse segment file unallocated.
+     */
+    private static void zeroRemaining(ByteBuffer data)
+    {
+        for (int i = data.position(); i < data.limit(); i++)
+        {
+            if (data.get(i) != 0)
+            {
+                data.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private int endOfData(ByteBuffer data)
+    {
+        ByteBuffer view = data.duplicate();
+        view.position(0);
+        while (hasIntactRecord(view))
+        {
+            view.position(view.position() + HEADER_SIZE + view.getInt(view.position()));
+        }
+        return view.position();
+    }
+
+    /**
+     * True if a complete record with a matching checksum starts at the buffer's position.
+     */
+    private static boolean hasIntactRecord(ByteBuffer data)
+    {
+        int position = data.position();
+        if (data.limit() - position < HEADER_SIZE)
+        {
+            return false;
+        }
+        int length = data.getInt(position);
+        if (length <= 0 || length > data.limit() - position - HEADER_SIZE)
+        {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(data.slice(position + HEADER_SIZE, length));
+        return (int) crc.getValue() == data.getInt(position + Integer.BYTES);
+    }
+
+    private List<Long> segmentStarts() throws IOException
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long start)
+    {
+        return directory.resolve(String.format("%020d%s", start, SEGMENT_SUFFIX));
+    }
+}
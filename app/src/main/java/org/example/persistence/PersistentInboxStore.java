@@ -0,0 +1,134 @@
+package org.example.persistence;
+
+import org.example.delivery.DeliverySink;
+import org.example.model.InboxPage;
+import org.example.model.Notification;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notification history on disk, for inboxes that must outlive the process or outgrow the heap. Users are hashed to
+ * shards, and each shard appends its users' notifications to its own memory-mapped segment files, see
+ * {@link InboxShard}. Used as a {@link DeliverySink}, it stores every notification an observer receives; notifications
+ * pulled from sender outboxes on read are not delivered to sinks and so are not stored.
+ * Pages are read by offset in the user's inbox and decoded straight from the mapped pages, so recent pages of active
+ * users come from the page cache. Writes reach the disk when the operating system flushes them, or on
+ * {@link #force()}.
+ */
+public class PersistentInboxStore implements DeliverySink, AutoCloseable
+{
+    public static final int DEFAULT_SHARDS = 16;
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    private final InboxShard[] shards;
+
+    private PersistentInboxStore(InboxShard[] shards)
+    {
+        this.shards = shards;
+    }
+
+    public static PersistentInboxStore open(Path directory) throws IOException
+    {
+        return open(directory, DEFAULT_SHARDS, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the store in {@code directory}, creating it if needed, and rebuilds the inbox index by scanning the
+     * segments. The shard count must stay the same across restarts; existing segments keep their size.
+     */
+    public static PersistentInboxStore open(Path directory, int shardCount, int segmentSize) throws IOException
+    {
+        if (segmentSize < InboxShard.HEADER_SIZE + InboxShard.MAX_FRAME_SIZE)
+        {
+            throw new IllegalArgumentException(
+                    "Segment size must be at least " + (InboxShard.HEADER_SIZE + InboxShard.MAX_FRAME_SIZE));
+        }
+        Files.createDirectories(directory);
+        InboxShard[] shards = new InboxShard[shardCount];
+        for (int i = 0; i < shardCount; i++)
+        {
+            shards[i] = new InboxShard(directory.resolve(String.format("shard-%03d", i)), segmentSize);
+        }
+        return new PersistentInboxStore(shards);
+    }
+
+    @Override
+    public void deliver(String userId, Notification notification)
+    {
+        shardOf(userId).append(userId, notification);
+    }
+
+    @Override
+    public void deliverAll(String userId, List<Notification> notifications)
+    {
+        InboxShard shard = shardOf(userId);
+        for (Notification notification : notifications)
+        {
+            shard.append(userId, notification);
+        }
+    }
+
+    /**
+     * Up to {@code limit} notifications of {@code userId} from offset {@code cursor} on, oldest first. Pass the
+     * page's {@code nextCursor} to read the next page. Nothing is ever dropped, so {@code missed} is always 0.
+     */
+    public InboxPage page(String userId, long cursor, int limit)
+    {
+        return shardOf(userId).page(userId, cursor, limit);
+    }
+
+    /**
+     * Up to {@code count} most recent notifications of {@code userId}, oldest first.
+     */
+    public List<Notification> latest(String userId, int count)
+    {
+        InboxShard shard = shardOf(userId);
+        return shard.page(userId, shard.size(userId) - count, count).notifications();
+    }
+
+    /**
+     * How many notifications {@code userId} has received; also the cursor after the newest one.
+     */
+    public long size(String userId)
+    {
+        return shardOf(userId).size(userId);
+    }
+
+    /**
+     * Forces everything stored so far to disk.
+     */
+    public void force()
+    {
+        for (InboxShard shard : shards)
+        {
+            shard.force();
+        }
+    }
+
+    public ScheduledFuture<?> scheduleForce(ScheduledExecutorService scheduler, Duration interval)
+    {
+        long intervalMillis = interval.toMillis();
+        return scheduler.scheduleWithFixedDelay(this::force, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        for (InboxShard shard : shards)
+        {
+            shard.close();
+        }
+    }
+
+    private InboxShard shardOf(String userId)
+    {
+        return shards[Math.floorMod(userId.hashCode(), shards.length)];
+    }
+}
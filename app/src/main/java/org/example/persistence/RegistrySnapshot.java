@@ -0,0 +1,312 @@
+package org.example.persistence;
+
+import org.example.events.EventType;
+import org.example.events.EventTypes;
+import org.example.model.Notification;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of the user registry: interned user ids, registered users with their enabled event types, pending
+ * friend requests, friendships, followers and the notifications retained in every inbox. Everything but the ids and
+ * the notifications is stored as interned indexes; notifications are encoded as in the log, with user ids.
+ * The file starts with a header holding the log position the snapshot was taken at and an index giving the offset,
+ * length, entry count and CRC32C of every section, followed by the sections in a fixed order. The first section names
+ * the event type of every preference bit, by {@link EventTypes#qualifiedName}, so masks are remapped when read by a
+ * version that numbers its types differently; a type the reader does not know fails the read. Snapshots are written
+ * by {@link RegistrySnapshotWriter} and named after their log position.
+ */
+public final class RegistrySnapshot
+{
+    static final int MAGIC = 0x4E534E50;
+    static final int VERSION = 3;
+    static final String SUFFIX = ".snapshot";
+    static final int BUFFER_SIZE = 1 << 20;
+    static final int INDEX_ENTRY_SIZE = Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
+    static final int HEADER_SIZE = 3 * Integer.BYTES + Long.BYTES + Section.values().length * INDEX_ENTRY_SIZE;
+
+    /** Sections in the order they are stored and read. */
+    enum Section
+    {
+        EVENT_TYPES, USER_IDS, USERS, FRIEND_REQUESTS, FRIENDSHIPS, FOLLOWERS, INBOXES
+    }
+
+    /**
+     * Receives the contents of a snapshot in section order: all user ids in index order first, then the users with
+     * their enabled types as a mask of this version's {@link EventType#mask()} bits, friend requests, friendships (once
+     * per pair), followers and inbox notifications, oldest first per user.
+     */
+    public interface Visitor
+    {
+        void userId(int index, String userId);
+
+        void user(int index, int enabledTypes);
+
+        void friendRequest(int fromIndex, int toIndex);
+
+        void friendship(int userIndex, int otherIndex);
+
+        void follower(int followedIndex, int followerIndex);
+
+        void notification(int userIndex, Notification notification);
+    }
+
+    private RegistrySnapshot()
+    {
+    }
+
+    /**
+     * The snapshot in {@code directory} taken at the highest log position, if any.
+     */
+    public static Optional<Path> latest(Path directory) throws IOException
+    {
+        List<Long> positions = positions(directory);
+        return positions.isEmpty() ? Optional.empty() : Optional.of(path(directory, positions.get(positions.size() - 1)));
+    }
+
+    public static long logPositionOf(Path snapshot)
+    {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Deletes the snapshots taken before {@code logPosition} and returns how many were deleted.
+     */
+    public static int deleteBefore(Path directory, long logPosition) throws IOException
+    {
+        int deleted = 0;
+        for (long position : positions(directory))
+        {
+            if (position < logPosition && Files.deleteIfExists(path(directory, position)))
+            {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Streams the snapshot into {@code visitor} through a fixed-size buffer and returns the log position it was taken
+     * at. A section whose checksum does not match fails the read once the section was visited.
+     */
+    public static long read(Path file, Visitor visitor) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+            {
+                throw new IOException("Not a registry snapshot: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported registry snapshot version " + version + ": " + file);
+            }
+            long logPosition = header.getLong();
+            header.getInt();
+            SectionReader reader = new SectionReader(channel);
+            int[] typeMasks = new int[0];
+            for (Section section : Section.values())
+            {
+                int count = header.getInt();
+                long offset = header.getLong();
+                long length = header.getLong();
+                int checksum = header.getInt();
+                reader.open(offset, length);
+                if (section == Section.EVENT_TYPES)
+                {
+                    typeMasks = new int[count];
+                }
+                for (int i = 0; i < count; i++)
+                {
+                    readEntry(section, reader, i, typeMasks, visitor);
+                }
+                reader.verify(section, checksum);
+            }
+            return logPosition;
+        }
+    }
+
+    static Path path(Path directory, long logPosition)
+    {
+        return directory.resolve(String.format("%020d%s", logPosition, SUFFIX));
+    }
+
+    /**
+     * {@code typeMasks} holds, by stored bit, the mask of the same type in this version; it is filled from the
+     * {@link Section#EVENT_TYPES} entries.
+     */
+    private static void readEntry(Section section, SectionReader reader, int entry, int[] typeMasks, Visitor visitor)
+            throws IOException
+    {
+        switch (section)
+        {
+            case EVENT_TYPES ->
+            {
+                String name = reader.getString();
+                EventType type = EventTypes.byQualifiedName(name);
+                if (type == null)
+                {
+                    throw new IOException("Registry snapshot refers to an unknown event type " + name);
+                }
+                typeMasks[entry] = type.mask();
+            }
+            case USER_IDS -> visitor.userId(entry, reader.getString());
+            case USERS -> visitor.user(reader.getInt(), remap(reader.getInt(), typeMasks));
+            case FRIEND_REQUESTS -> visitor.friendRequest(reader.getInt(), reader.getInt());
+            case FRIENDSHIPS ->
+            {
+                int user = reader.getInt();
+                for (int i = reader.getInt(); i > 0; i--)
+                {
+                    visitor.friendship(user, reader.getInt());
+                }
+            }
+            case FOLLOWERS ->
+            {
+                int followed = reader.getInt();
+                for (int i = reader.getInt(); i > 0; i--)
+                {
+                    visitor.follower(followed, reader.getInt());
+                }
+            }
+            case INBOXES ->
+            {
+                int user = reader.getInt();
+                visitor.notification(user, LogRecordCodec.getNotification(reader.getBytes()));
+            }
+        }
+    }
+
+    private static int remap(int storedTypes, int[] typeMasks) throws IOException
+    {
+        int enabledTypes = 0;
+        for (int bits = storedTypes; bits != 0; bits &= bits - 1)
+        {
+            int bit = Integer.numberOfTrailingZeros(bits);
+            if (bit >= typeMasks.length)
+            {
+                throw new IOException("Registry snapshot preference bit " + bit + " names no event type");
+            }
+            enabledTypes |= typeMasks[bit];
+        }
+        return enabledTypes;
+    }
+
+    private static List<Long> positions(Path directory) throws IOException
+    {
+        if (!Files.isDirectory(directory))
+        {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .map(RegistrySnapshot::logPositionOf)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Reads one section at a time through a reused buffer, checksumming the bytes as they are read.
+     */
+    private static final class SectionReader
+    {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32C checksum = new CRC32C();
+        private long filePosition;
+        private long unread;
+
+        SectionReader(FileChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        void open(long offset, long length)
+        {
+            filePosition = offset;
+            unread = length;
+            checksum.reset();
+            buffer.clear().flip();
+        }
+
+        int getInt() throws IOException
+        {
+            ensure(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        String getString() throws IOException
+        {
+            return new String(getBytes().array(), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Reads a length-prefixed byte sequence into a new heap buffer.
+         */
+        ByteBuffer getBytes() throws IOException
+        {
+            int length = getInt();
+            ensure(length);
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return ByteBuffer.wrap(bytes);
+        }
+
+        void verify(Section section, int expected) throws IOException
+        {
+            if (buffer.hasRemaining() || unread > 0)
+            {
+                throw new IOException("Registry snapshot section " + section + " has trailing bytes");
+            }
+            if ((int) checksum.getValue() != expected)
+            {
+                throw new IOException("Registry snapshot section " + section + " is corrupt");
+            }
+        }
+
+        private void ensure(int bytes) throws IOException
+        {
+            if (buffer.remaining() >= bytes)
+            {
+                return;
+            }
+            buffer.compact();
+            int start = buffer.position();
+            buffer.limit((int) Math.min(buffer.capacity(), start + unread));
+            while (buffer.hasRemaining())
+            {
+                int read = channel.read(buffer, filePosition);
+                if (read < 0)
+                {
+                    break;
+                }
+                filePosition += read;
+                unread -= read;
+            }
+            ByteBuffer fresh = buffer.duplicate().flip().position(start);
+            checksum.update(fresh);
+            buffer.flip();
+            if (buffer.remaining() < bytes)
+            {
+                throw new IOException("Registry snapshot section is truncated");
+            }
+        }
+    }
+}
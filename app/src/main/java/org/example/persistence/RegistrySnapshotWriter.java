@@ -0,0 +1,231 @@
+package org.example.persistence;
+
+import org.example.events.EventTypes;
+import org.example.model.Notification;
+import org.example.persistence.RegistrySnapshot.Section;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Streams a {@link RegistrySnapshot} to a temporary file through a fixed-size buffer. The event type table is written
+ * on creation; entries must then be written in section order: user ids in index order, then users, friend requests,
+ * friendship rows, follower rows and inbox notifications.
+ * {@link #commit()} writes the index, forces the file and renames it into place, so a snapshot is either complete or
+ * absent; closing without committing deletes the temporary file.
+ */
+public class RegistrySnapshotWriter implements Closeable
+{
+    private final Path file;
+    private final Path temporaryFile;
+    private final long logPosition;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RegistrySnapshot.BUFFER_SIZE);
+    /** Encodes one notification at a time, so its length is known before it is copied into the buffer. */
+    private final ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+    private final CRC32C checksum = new CRC32C();
+    private final int[] counts = new int[Section.values().length];
+    private final long[] offsets = new long[Section.values().length];
+    private final long[] lengths = new long[Section.values().length];
+    private final int[] checksums = new int[Section.values().length];
+    private int section;
+    private long position = RegistrySnapshot.HEADER_SIZE;
+    private boolean committed;
+
+    private RegistrySnapshotWriter(Path directory, long logPosition) throws IOException
+    {
+        Files.createDirectories(directory);
+        this.file = RegistrySnapshot.path(directory, logPosition);
+        this.temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        this.logPosition = logPosition;
+        this.channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        offsets[0] = position;
+        for (int id = 0; id < EventTypes.count(); id++)
+        {
+            byte[] name = EventTypes.qualifiedName(EventTypes.byId(id)).getBytes(StandardCharsets.UTF_8);
+            reserve(Section.EVENT_TYPES, Integer.BYTES + name.length);
+            buffer.putInt(name.length).put(name);
+            counts[section]++;
+        }
+    }
+
+    /**
+     * Starts a snapshot in {@code directory} of the state at {@code logPosition}, the position replay continues from.
+     */
+    public static RegistrySnapshotWriter create(Path directory, long logPosition) throws IOException
+    {
+        return new RegistrySnapshotWriter(directory, logPosition);
+    }
+
+    /**
+     * Writes the id with the next index.
+     */
+    public void userId(String userId) throws IOException
+    {
+        byte[] bytes = userId.getBytes(StandardCharsets.UTF_8);
+        reserve(Section.USER_IDS, Integer.BYTES + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+        counts[section]++;
+    }
+
+    public void user(int index, int enabledTypes) throws IOException
+    {
+        reserve(Section.USERS, 2 * Integer.BYTES);
+        buffer.putInt(index).putInt(enabledTypes);
+        counts[section]++;
+    }
+
+    public void friendRequest(int fromIndex, int toIndex) throws IOException
+    {
+        reserve(Section.FRIEND_REQUESTS, 2 * Integer.BYTES);
+        buffer.putInt(fromIndex).putInt(toIndex);
+        counts[section]++;
+    }
+
+    /**
+     * Writes friendships of {@code userIndex}; each pair only needs to be written from one side.
+     */
+    public void friendships(int userIndex, int[] otherIndexes) throws IOException
+    {
+        row(Section.FRIENDSHIPS, userIndex, otherIndexes);
+    }
+
+    public void followers(int followedIndex, int[] followerIndexes) throws IOException
+    {
+        row(Section.FOLLOWERS, followedIndex, followerIndexes);
+    }
+
+    /**
+     * Writes the next notification retained in the inbox of {@code userIndex}; a user's notifications must be written
+     * oldest first.
+     */
+    public void notification(int userIndex, Notification notification) throws IOException
+    {
+        scratch.clear();
+        try
+        {
+            LogRecordCodec.putNotification(scratch, notification);
+        } catch (BufferOverflowException e)
+        {
+            throw new IllegalArgumentException("Notification exceeds " + scratch.capacity() + " bytes: " + notification);
+        }
+        scratch.flip();
+        reserve(Section.INBOXES, 2 * Integer.BYTES + scratch.remaining());
+        buffer.putInt(userIndex).putInt(scratch.remaining()).put(scratch);
+        counts[section]++;
+    }
+
+    /**
+     * Completes the snapshot and returns its file.
+     */
+    public Path commit() throws IOException
+    {
+        enter(Section.values().length);
+        ByteBuffer header = ByteBuffer.allocate(RegistrySnapshot.HEADER_SIZE);
+        header.putInt(RegistrySnapshot.MAGIC).putInt(RegistrySnapshot.VERSION).putLong(logPosition)
+                .putInt(counts.length);
+        for (int i = 0; i < counts.length; i++)
+        {
+            header.putInt(counts[i]).putLong(offsets[i]).putLong(lengths[i]).putInt(checksums[i]);
+        }
+        header.flip();
+        while (header.hasRemaining())
+        {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+        channel.close();
+        Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        committed = true;
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (!committed)
+        {
+            channel.close();
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private void row(Section rowSection, int node, int[] neighbors) throws IOException
+    {
+        if (neighbors.length == 0)
+        {
+            return;
+        }
+        reserve(rowSection, 2 * Integer.BYTES);
+        buffer.putInt(node).putInt(neighbors.length);
+        for (int neighbor : neighbors)
+        {
+            reserve(rowSection, Integer.BYTES);
+            buffer.putInt(neighbor);
+        }
+        counts[section]++;
+    }
+
+    private void reserve(Section target, int bytes) throws IOException
+    {
+        if (bytes > buffer.capacity())
+        {
+            throw new IllegalArgumentException("Snapshot entry exceeds " + buffer.capacity() + " bytes");
+        }
+        enter(target.ordinal());
+        if (buffer.remaining() < bytes)
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Closes the sections before {@code next}, which may be one past the last section to close them all.
+     */
+    private void enter(int next) throws IOException
+    {
+        if (next < section)
+        {
+            throw new IllegalStateException(Section.values()[next] + " entries must be written before "
+                    + Section.values()[section] + " entries");
+        }
+        if (next == section)
+        {
+            return;
+        }
+        flush();
+        while (section < next)
+        {
+            lengths[section] = position - offsets[section];
+            checksums[section] = (int) checksum.getValue();
+            checksum.reset();
+            section++;
+            if (section < offsets.length)
+            {
+                offsets[section] = position;
+            }
+        }
+    }
+
+    private void flush() throws IOException
+    {
+        buffer.flip();
+        checksum.update(buffer);
+        buffer.rewind();
+        while (buffer.hasRemaining())
+        {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+    }
+}
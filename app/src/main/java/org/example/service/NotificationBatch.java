@@ -0,0 +1,169 @@
+package org.example.service;
+
+import org.example.model.Audience;
+import org.example.model.IdempotencyKey;
+import org.example.model.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the events of one game tick and publishes them together, so the subject walks its observers once per
+ * batch instead of once per event. Obtained from {@link NotificationService#newBatch()}.
+ * <p>
+ * A batch published under an {@link IdempotencyKey} tags each event with the key and the event's position in the
+ * batch, so a {@link org.example.observers.DeduplicatingSubject} drops the events of a retried batch, whatever their
+ * audience. A single keyed event is a batch of one.
+ */
+public class NotificationBatch
+{
+    private final NotificationService service;
+    private final List<Notification> notifications = new ArrayList<>();
+    /** Friendships and followers the collected events create; recorded in the social graph on publish. */
+    private final List<Edge> edges = new ArrayList<>();
+    private IdempotencyKey idempotencyKey;
+
+    NotificationBatch(NotificationService service)
+    {
+        this.service = service;
+    }
+
+    public NotificationBatch playerLeveledUp(String playerId)
+    {
+        notifications.add(service.playerLeveledUpNotification(playerId));
+        return this;
+    }
+
+    public NotificationBatch playerLeveledUp(String playerId, Audience audience)
+    {
+        notifications.add(service.playerLeveledUpNotification(playerId, audience));
+        return this;
+    }
+
+    public NotificationBatch itemAcquired(String playerId, String itemName)
+    {
+        notifications.add(service.itemAcquiredNotification(playerId, itemName));
+        return this;
+    }
+
+    public NotificationBatch itemAcquired(String playerId, String itemName, Audience audience)
+    {
+        notifications.add(service.itemAcquiredNotification(playerId, itemName, audience));
+        return this;
+    }
+
+    public NotificationBatch friendRequestSent(String fromPlayerId, String toPlayerId)
+    {
+        notifications.add(service.friendRequestSentNotification(fromPlayerId, toPlayerId));
+        return this;
+    }
+
+    public NotificationBatch friendRequestAccepted(String playerId, String requesterId)
+    {
+        edges.add(new Edge(false, playerId, requesterId));
+        notifications.add(service.friendRequestAcceptedNotification(playerId, requesterId));
+        return this;
+    }
+
+    public NotificationBatch challengingQuestMission(String playerId)
+    {
+        notifications.add(service.challengingQuestMissionNotification(playerId));
+        return this;
+    }
+
+    public NotificationBatch challengingQuestMission(String playerId, Audience audience)
+    {
+        notifications.add(service.challengingQuestMissionNotification(playerId, audience));
+        return this;
+    }
+
+    public NotificationBatch achievement(String playerId)
+    {
+        notifications.add(service.achievementNotification(playerId));
+        return this;
+    }
+
+    public NotificationBatch achievement(String playerId, Audience audience)
+    {
+        notifications.add(service.achievementNotification(playerId, audience));
+        return this;
+    }
+
+    public NotificationBatch playerIsAttacked(String playerId, String fromPlayerId)
+    {
+        notifications.add(service.playerIsAttackedNotification(playerId, fromPlayerId));
+        return this;
+    }
+
+    public NotificationBatch playerIsDefeated(String playerId, String fromPlayerId)
+    {
+        notifications.add(service.playerIsDefeatedNotification(playerId, fromPlayerId));
+        return this;
+    }
+
+    public NotificationBatch gotNewFollower(String playerId, String followerId)
+    {
+        edges.add(new Edge(true, playerId, followerId));
+        notifications.add(service.gotNewFollowerNotification(playerId, followerId));
+        return this;
+    }
+
+    /**
+     * Tags the events of this batch with the publisher's idempotency key when it is published.
+     */
+    public NotificationBatch idempotencyKey(IdempotencyKey idempotencyKey)
+    {
+        this.idempotencyKey = idempotencyKey;
+        return this;
+    }
+
+    public int size()
+    {
+        return notifications.size();
+    }
+
+    /**
+     * Records the friendships and followers of the collected events, publishes the events and empties the batch, key
+     * included, so it can be reused for the next tick. A batch that is never published leaves the social graph
+     * untouched.
+     */
+    public void publish()
+    {
+        if (notifications.isEmpty())
+        {
+            return;
+        }
+        for (Edge edge : edges)
+        {
+            if (edge.follower())
+            {
+                service.recordFollower(edge.userId(), edge.otherUserId());
+            }
+            else
+            {
+                service.recordFriendship(edge.userId(), edge.otherUserId());
+            }
+        }
+        service.publish(idempotencyKey == null ? List.copyOf(notifications) : tagged(idempotencyKey.value()));
+        notifications.clear();
+        edges.clear();
+        idempotencyKey = null;
+    }
+
+    private List<Notification> tagged(String key)
+    {
+        List<Notification> tagged = new ArrayList<>(notifications.size());
+        for (int i = 0; i < notifications.size(); i++)
+        {
+            tagged.add(notifications.get(i).withIdempotencyKey(key + "#" + i));
+        }
+        return tagged;
+    }
+
+    /**
+     * A friendship between {@code userId} and {@code otherUserId}, or {@code otherUserId} following {@code userId}.
+     */
+    private record Edge(boolean follower, String userId, String otherUserId)
+    {
+    }
+}
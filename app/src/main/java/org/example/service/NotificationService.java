@@ -0,0 +1,1050 @@
+package org.example.service;
+
+
+/**
+ * Created by Michael Garcia on 17/03/25
+ */
+
+
+import org.example.delivery.ConsoleSink;
+import org.example.delivery.DeliverySink;
+import org.example.events.EventTypes;
+import org.example.events.GameEvents;
+import org.example.events.SocialEvents;
+import org.example.exceptions.InvalidInputException;
+import org.example.metrics.NotificationMetrics;
+import org.example.model.Audience;
+import org.example.model.MessageTemplate;
+import org.example.model.Notification;
+import org.example.observers.ObserverImpl;
+import org.example.observers.Subject;
+import org.example.persistence.LogRecord;
+import org.example.persistence.NotificationLog;
+import org.example.persistence.RegistrySnapshot;
+import org.example.persistence.RegistrySnapshotWriter;
+import org.example.social.FriendRequestStore;
+import org.example.social.SocialGraph;
+
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+public class NotificationService
+{
+    private static final int GAME_NOTIFICATIONS = EventTypes.maskOf(GameEvents.LEVEL_UP, GameEvents.CHALLENGE_COMPLETED,
+            GameEvents.ACHIEVEMENT_COMPLETED, GameEvents.ITEM_ACQUIRED, GameEvents.PVP);
+    private static final int SOCIAL_NOTIFICATIONS = EventTypes.maskOf(SocialEvents.NEW_FOLLOWER, SocialEvents.FRIEND_REQUEST,
+            SocialEvents.FRIEND_REQUEST_IS_ACCEPTED);
+
+    /** Pending friend requests older than this are dropped by the expiry task. */
+    public static final Duration DEFAULT_FRIEND_REQUEST_TTL = Duration.ofDays(30);
+
+    private final Subject subject;
+    private final int inboxCapacity;
+    private final DeliverySink deliverySink;
+    private final UserIdInterner userIds = new UserIdInterner();
+    /**
+     * Registered users by interned index; null for ids that were interned but are not registered. Replaced when it
+     * grows, under the service's lock, so snapshots can read it while users register.
+     */
+    private volatile AtomicReferenceArray<ObserverImpl> users = new AtomicReferenceArray<>(16);
+    private final SocialGraph socialGraph;
+    private final FriendRequestStore pendingFriendRequests = new FriendRequestStore(DEFAULT_FRIEND_REQUEST_TTL);
+    /** Write-ahead log of the state changes and published notifications; null when the service is not persistent. */
+    private final NotificationLog log;
+    /** Set while the log is replayed, so replayed changes are not logged again and nothing reaches the sink. */
+    private volatile boolean replaying;
+    /** Records publishes and their latency; null when the service is not instrumented. */
+    private final NotificationMetrics metrics;
+    /**
+     * Held shared by the publishes of a persistent service and exclusively while a snapshot reads the log position
+     * and the inbox cursors, so every notification is either in a snapshotted inbox or logged after the snapshot.
+     */
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    public NotificationService(Subject newSubject)
+    {
+        this(newSubject, ObserverImpl.DEFAULT_INBOX_CAPACITY);
+    }
+
+
+    public NotificationService(Subject newSubject, int inboxCapacity)
+    {
+        this(newSubject, inboxCapacity, new ConsoleSink());
+    }
+
+
+    /**
+     * Records friendships and followers in a social graph of its own; friend and follower audiences need a subject
+     * built on the same graph, see {@link #NotificationService(Subject, int, DeliverySink, SocialGraph)}.
+     */
+    public NotificationService(Subject newSubject, int inboxCapacity, DeliverySink deliverySink)
+    {
+        this(newSubject, inboxCapacity, deliverySink, new SocialGraph());
+    }
+
+
+    /**
+     * {@code socialGraph} should be the graph {@code newSubject} was built on, so that both see the same friendships
+     * and followers.
+     */
+    public NotificationService(Subject newSubject, int inboxCapacity, DeliverySink deliverySink, SocialGraph socialGraph)
+    {
+        this(newSubject, inboxCapacity, deliverySink, socialGraph, null);
+    }
+
+
+    /**
+     * Like {@link #NotificationService(Subject, int, DeliverySink, SocialGraph)}, recording every publish, and how long
+     * it took to log and dispatch it, in {@code metrics}. Pass the same metrics to the subject to also record
+     * deliveries and fan-out.
+     */
+    public NotificationService(Subject newSubject, int inboxCapacity, DeliverySink deliverySink, SocialGraph socialGraph,
+                               NotificationMetrics metrics)
+    {
+        this(newSubject, inboxCapacity, deliverySink, socialGraph, metrics, null);
+    }
+
+
+    private NotificationService(Subject newSubject, int inboxCapacity, DeliverySink deliverySink, SocialGraph socialGraph,
+                                NotificationMetrics metrics, NotificationLog log)
+    {
+        subject = newSubject;
+        this.inboxCapacity = inboxCapacity;
+        this.deliverySink = new ReplayAwareSink(deliverySink);
+        this.socialGraph = socialGraph;
+        this.metrics = metrics;
+        this.log = log;
+    }
+
+
+    /**
+     * Creates a service that writes every state change and published notification to {@code log}, after rebuilding
+     * the users, preferences, friend requests, social graph and inboxes by replaying what the log already holds.
+     * Replayed notifications are delivered through {@code newSubject} again but not handed to the sink; use a
+     * synchronous subject, since decorators that defer delivery would release them after the replay ended.
+     * Pending friend requests restart their time to live.
+     */
+    public static NotificationService recover(Subject newSubject, int inboxCapacity, DeliverySink deliverySink,
+                                              SocialGraph socialGraph, NotificationLog log) throws IOException
+    {
+        NotificationService service = new NotificationService(newSubject, inboxCapacity, deliverySink, socialGraph, null,
+                log);
+        service.replay(0);
+        return service;
+    }
+
+
+    /**
+     * Like {@link #recover(Subject, int, DeliverySink, SocialGraph, NotificationLog)}, but first streams the latest
+     * snapshot in {@code snapshotDirectory} into the service, inboxes included, and then only replays the log written
+     * after it.
+     */
+    public static NotificationService recover(Subject newSubject, int inboxCapacity, DeliverySink deliverySink,
+                                              SocialGraph socialGraph, NotificationLog log, Path snapshotDirectory)
+            throws IOException
+    {
+        return recover(newSubject, inboxCapacity, deliverySink, socialGraph, null, log, snapshotDirectory);
+    }
+
+
+    /**
+     * Like {@link #recover(Subject, int, DeliverySink, SocialGraph, NotificationLog, Path)}, recording in
+     * {@code metrics} as {@link #NotificationService(Subject, int, DeliverySink, SocialGraph, NotificationMetrics)}
+     * does. The metrics are paused while the log is replayed.
+     */
+    public static NotificationService recover(Subject newSubject, int inboxCapacity, DeliverySink deliverySink,
+                                              SocialGraph socialGraph, NotificationMetrics metrics, NotificationLog log,
+                                              Path snapshotDirectory) throws IOException
+    {
+        NotificationService service = new NotificationService(newSubject, inboxCapacity, deliverySink, socialGraph,
+                metrics, log);
+        Optional<Path> snapshot = RegistrySnapshot.latest(snapshotDirectory);
+        service.replay(snapshot.isPresent() ? service.restore(snapshot.get()) : 0);
+        return service;
+    }
+
+
+    public void registerUser(String userId) throws InvalidInputException
+    {
+        int index = userIds.intern(userId);
+        if (userAt(index) != null)
+        {
+            System.out.println("User already exists: " + userId);
+            return;
+        }
+        subject.registerObserver(createUser(userId, index));
+        log(new LogRecord.UserRegistered(userId));
+
+
+        System.out.println("User registered successfully: " + userId);
+    }
+
+
+    /**
+     * Registers many users with a single bulk registration on the subject. Ids that are already taken are skipped.
+     */
+    public void registerUsers(Collection<String> userIds)
+    {
+        List<ObserverImpl> newUsers = new ArrayList<>(userIds.size());
+        for (String userId : userIds)
+        {
+            int index = this.userIds.intern(userId);
+            if (userAt(index) != null)
+            {
+                System.out.println("User already exists: " + userId);
+                continue;
+            }
+            newUsers.add(createUser(userId, index));
+            log(new LogRecord.UserRegistered(userId));
+        }
+        subject.registerObservers(newUsers);
+
+
+        System.out.println("Users registered successfully: " + newUsers.size());
+    }
+
+
+    public void unregisterUser(String userId) throws InvalidInputException
+    {
+        removeUser(getUser(userId));
+        log(new LogRecord.UserUnregistered(userId));
+    }
+
+
+    public ObserverImpl getUser(String userId) throws InvalidInputException
+    {
+        if (!userExist(userId))
+        {
+            throw new InvalidInputException("The user does not exist");
+        }
+        return userAt(userIds.find(userId));
+    }
+
+
+    public boolean userExist(String userId)
+    {
+        return userAt(userIds.find(userId)) != null;
+    }
+
+    public boolean friendRequestExists(String fromUserId, String toUserId) {
+        int from = userIds.find(fromUserId);
+        int to = userIds.find(toUserId);
+        return from >= 0 && to >= 0 && pendingFriendRequests.contains(from, to);
+    }
+
+    /**
+     * Friend requests may name users that are not registered yet, so both ids are interned here.
+     */
+    public void addFriendRequest(String fromUserId, String toUserId) {
+        if (pendingFriendRequests.add(userIds.intern(fromUserId), userIds.intern(toUserId))) {
+            log(new LogRecord.FriendRequestAdded(fromUserId, toUserId));
+        }
+    }
+
+    public void removeFriendRequest(String fromUserId, String toUserId) {
+        int from = userIds.find(fromUserId);
+        int to = userIds.find(toUserId);
+        if (from >= 0 && to >= 0 && pendingFriendRequests.remove(from, to)) {
+            log(new LogRecord.FriendRequestRemoved(fromUserId, toUserId));
+        }
+    }
+
+    /**
+     * Ids of the users whose friend requests to {@code userId} are still pending.
+     */
+    public List<String> incomingFriendRequests(String userId)
+    {
+        int index = userIds.find(userId);
+        return index >= 0 ? toUserIds(pendingFriendRequests.incoming(index)) : List.of();
+    }
+
+    /**
+     * Ids of the users {@code userId} sent friend requests to that are still pending.
+     */
+    public List<String> outgoingFriendRequests(String userId)
+    {
+        int index = userIds.find(userId);
+        return index >= 0 ? toUserIds(pendingFriendRequests.outgoing(index)) : List.of();
+    }
+
+    public ScheduledFuture<?> scheduleFriendRequestExpiry(ScheduledExecutorService scheduler, Duration interval)
+    {
+        return pendingFriendRequests.scheduleExpiry(scheduler, interval);
+    }
+
+    /**
+     * Writes the users with their preferences, the pending friend requests, the social graph and the inboxes to a new
+     * snapshot in {@code directory} and returns its file. Nothing is locked while it is written, so a change made
+     * meanwhile may or may not be in it; the snapshot records the log position from before it started, and replaying
+     * the log from there settles every such change, since applying a logged change twice has no further effect.
+     * Delivering a notification twice does, so publishes are paused while the log position and the inbox cursors are
+     * read, and only the notifications before those cursors are written. Reading a cursor does not pull from the
+     * outboxes of followed users; every inbox pulls before publishes are paused instead, so the pause stays short.
+     * Notifications written to an outbox between that pull and the pause, and with a subject that delivers
+     * asynchronously, notifications still queued at the pause, are in neither.
+     */
+    public Path writeSnapshot(Path directory) throws IOException
+    {
+        long logPosition;
+        int idCount;
+        ObserverImpl[] inboxOwners;
+        long[] inboxCursors;
+        AtomicReferenceArray<ObserverImpl> pulled = users;
+        for (int index = 0; index < pulled.length(); index++)
+        {
+            ObserverImpl user = pulled.get(index);
+            if (user != null)
+            {
+                // Reading the inbox merges in what the outboxes hold, while publishes still run.
+                user.getInbox();
+            }
+        }
+        snapshotLock.writeLock().lock();
+        try
+        {
+            logPosition = log != null ? log.appendedPosition() : 0;
+            // Ids interned from here on were logged after logPosition, so replay restores them with their relations.
+            idCount = userIds.size();
+            inboxOwners = new ObserverImpl[idCount];
+            inboxCursors = new long[idCount];
+            for (int index = 0; index < idCount; index++)
+            {
+                ObserverImpl user = userAt(index);
+                if (user != null)
+                {
+                    inboxOwners[index] = user;
+                    inboxCursors[index] = user.getPushedInbox().cursor();
+                }
+            }
+        } finally
+        {
+            snapshotLock.writeLock().unlock();
+        }
+        try (RegistrySnapshotWriter writer = RegistrySnapshotWriter.create(directory, logPosition))
+        {
+            for (int index = 0; index < idCount; index++)
+            {
+                writer.userId(userIds.userId(index));
+            }
+            for (int index = 0; index < idCount; index++)
+            {
+                ObserverImpl user = userAt(index);
+                if (user != null)
+                {
+                    writer.user(index, user.getEnabledNotifications());
+                }
+            }
+            for (long key : pendingFriendRequests.keys())
+            {
+                int fromIndex = (int) (key >>> 32);
+                int toIndex = (int) key;
+                if (fromIndex < idCount && toIndex < idCount)
+                {
+                    writer.friendRequest(fromIndex, toIndex);
+                }
+            }
+            for (int index = 0; index < idCount; index++)
+            {
+                writer.friendships(index, indexesBetween(socialGraph.friendsOf(index), index, idCount));
+            }
+            for (int index = 0; index < idCount; index++)
+            {
+                writer.followers(index, indexesBetween(socialGraph.followersOf(index), -1, idCount));
+            }
+            for (int index = 0; index < idCount; index++)
+            {
+                if (inboxOwners[index] != null)
+                {
+                    for (Notification notification : inboxOwners[index].getPushedInbox().before(inboxCursors[index]))
+                    {
+                        writer.notification(index, notification);
+                    }
+                }
+            }
+            return writer.commit();
+        }
+    }
+
+    /**
+     * Writes a snapshot to {@code directory} every {@code interval}, then deletes the older snapshots and the log
+     * segments the new one covers. A failed snapshot ends the schedule and fails the returned future.
+     */
+    public ScheduledFuture<?> scheduleSnapshots(ScheduledExecutorService scheduler, Duration interval, Path directory)
+    {
+        long intervalMillis = interval.toMillis();
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try
+            {
+                Path snapshot = writeSnapshot(directory);
+                long logPosition = RegistrySnapshot.logPositionOf(snapshot);
+                RegistrySnapshot.deleteBefore(directory, logPosition);
+                if (log != null)
+                {
+                    log.deleteSegmentsBefore(logPosition);
+                }
+            } catch (IOException e)
+            {
+                throw new UncheckedIOException("Failed to write a registry snapshot", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean areFriends(String userId, String otherUserId)
+    {
+        int user = userIds.find(userId);
+        int other = userIds.find(otherUserId);
+        return user >= 0 && other >= 0 && socialGraph.areFriends(user, other);
+    }
+
+    public List<String> friendsOf(String userId)
+    {
+        int index = userIds.find(userId);
+        return index >= 0 ? toUserIds(socialGraph.friendsOf(index)) : List.of();
+    }
+
+    public boolean isFollowing(String followerId, String followedId)
+    {
+        int follower = userIds.find(followerId);
+        int followed = userIds.find(followedId);
+        return follower >= 0 && followed >= 0 && socialGraph.isFollowing(follower, followed);
+    }
+
+    public List<String> followersOf(String userId)
+    {
+        int index = userIds.find(userId);
+        return index >= 0 ? toUserIds(socialGraph.followersOf(index)) : List.of();
+    }
+
+    void recordFriendship(String playerId, String requesterId)
+    {
+        if (socialGraph.addFriendship(userIds.intern(playerId), userIds.intern(requesterId)))
+        {
+            log(new LogRecord.FriendshipAdded(playerId, requesterId));
+        }
+    }
+
+    void recordFollower(String playerId, String followerId)
+    {
+        if (socialGraph.addFollower(userIds.intern(playerId), userIds.intern(followerId)))
+        {
+            log(new LogRecord.FollowerAdded(playerId, followerId));
+        }
+    }
+
+    void publish(Notification notification)
+    {
+        NotificationMetrics recorder = replaying ? null : metrics;
+        long start = recorder != null ? NotificationMetrics.startTimer() : NotificationMetrics.NOT_TIMED;
+        if (log != null)
+        {
+            snapshotLock.readLock().lock();
+        }
+        try
+        {
+            log(new LogRecord.NotificationPublished(notification));
+            subject.notifyObservers(notification);
+        } finally
+        {
+            if (log != null)
+            {
+                snapshotLock.readLock().unlock();
+            }
+        }
+        if (recorder != null)
+        {
+            recorder.recordPublish(notification.type(), start);
+        }
+    }
+
+    void publish(List<Notification> notifications)
+    {
+        NotificationMetrics recorder = replaying ? null : metrics;
+        long start = recorder != null ? NotificationMetrics.startTimer() : NotificationMetrics.NOT_TIMED;
+        if (log != null)
+        {
+            snapshotLock.readLock().lock();
+        }
+        try
+        {
+            for (Notification notification : notifications)
+            {
+                log(new LogRecord.NotificationPublished(notification));
+            }
+            subject.notifyObservers(notifications);
+        } finally
+        {
+            if (log != null)
+            {
+                snapshotLock.readLock().unlock();
+            }
+        }
+        if (recorder != null)
+        {
+            recorder.recordBatchPublish(notifications, start);
+        }
+    }
+
+    SocialGraph getSocialGraph()
+    {
+        return socialGraph;
+    }
+
+    UserIdInterner getUserIds()
+    {
+        return userIds;
+    }
+
+    private List<String> toUserIds(int[] indexes)
+    {
+        List<String> ids = new ArrayList<>(indexes.length);
+        for (int index : indexes)
+        {
+            ids.add(userIds.userId(index));
+        }
+        return ids;
+    }
+
+    /**
+     * Fills in the interned index of the user a friend or follower audience is built around.
+     */
+    private Audience withIndexes(Audience audience)
+    {
+        return switch (audience)
+        {
+            case Audience.FriendsOf friendsOf when friendsOf.userIndex() < 0 ->
+                    new Audience.FriendsOf(friendsOf.userId(), userIds.find(friendsOf.userId()));
+            case Audience.FollowersOf followersOf when followersOf.userIndex() < 0 ->
+                    new Audience.FollowersOf(followersOf.userId(), userIds.find(followersOf.userId()));
+            default -> audience;
+        };
+    }
+
+    private ObserverImpl createUser(String userId, int index)
+    {
+        return createUser(userId, index, GAME_NOTIFICATIONS | SOCIAL_NOTIFICATIONS);
+    }
+
+    /**
+     * Creates a user with the given preferences; every later change of them is logged, however it is made.
+     */
+    private ObserverImpl createUser(String userId, int index, int enabledTypes)
+    {
+        ObserverImpl newUser = new ObserverImpl(userId, index, inboxCapacity, deliverySink);
+        newUser.enableNotifications(enabledTypes);
+        newUser.bindPreferenceRecorder((user, enabled, disabled) -> logPreferences(user));
+        setUser(index, newUser);
+        return newUser;
+    }
+
+    private void removeUser(ObserverImpl user)
+    {
+        users.set(user.getIndex(), null);
+        pendingFriendRequests.removeUser(user.getIndex());
+        socialGraph.removeUser(user.getIndex());
+        subject.unregisterObserver(user);
+    }
+
+    private void log(LogRecord record)
+    {
+        if (log != null && !replaying)
+        {
+            log.append(record);
+        }
+    }
+
+    /**
+     * Replayed notifications were counted when first published, so the metrics, which the subject records deliveries
+     * in too, are paused meanwhile.
+     */
+    private void replay(long fromPosition) throws IOException
+    {
+        if (metrics != null)
+        {
+            metrics.pause();
+        }
+        replaying = true;
+        try
+        {
+            log.replay(fromPosition, this::apply);
+        } finally
+        {
+            replaying = false;
+            if (metrics != null)
+            {
+                metrics.resume();
+            }
+        }
+    }
+
+    private void apply(LogRecord record)
+    {
+        switch (record)
+        {
+            case LogRecord.UserRegistered r ->
+            {
+                int index = userIds.intern(r.userId());
+                if (userAt(index) == null)
+                {
+                    subject.registerObserver(createUser(r.userId(), index));
+                }
+            }
+            case LogRecord.UserUnregistered r ->
+            {
+                ObserverImpl user = userAt(userIds.find(r.userId()));
+                if (user != null)
+                {
+                    removeUser(user);
+                }
+            }
+            case LogRecord.PreferencesChanged r ->
+            {
+                ObserverImpl user = userAt(userIds.find(r.userId()));
+                if (user != null)
+                {
+                    setPreferences(user, r.enabledTypes());
+                }
+            }
+            case LogRecord.FriendRequestAdded r -> addFriendRequest(r.fromUserId(), r.toUserId());
+            case LogRecord.FriendRequestRemoved r -> removeFriendRequest(r.fromUserId(), r.toUserId());
+            case LogRecord.FriendshipAdded r -> recordFriendship(r.userId(), r.otherUserId());
+            case LogRecord.FollowerAdded r -> recordFollower(r.followedUserId(), r.followerId());
+            case LogRecord.NotificationPublished r -> subject.notifyObservers(withIndexes(r.notification()));
+        }
+    }
+
+    /**
+     * Resolves the indexes of a logged notification, which only carries user ids, against this run's interner.
+     */
+    private Notification withIndexes(Notification notification)
+    {
+        return notification.withUserIndexes(indexOf(notification.sender()), indexOf(notification.recipient()))
+                .withAudience(withIndexes(notification.audience()));
+    }
+
+    private int indexOf(String userId)
+    {
+        return userId == null ? UserIdInterner.NOT_INTERNED : userIds.find(userId);
+    }
+
+    private ObserverImpl userAt(int index)
+    {
+        AtomicReferenceArray<ObserverImpl> current = users;
+        return index >= 0 && index < current.length() ? current.get(index) : null;
+    }
+
+    private synchronized void setUser(int index, ObserverImpl user)
+    {
+        AtomicReferenceArray<ObserverImpl> current = users;
+        if (index >= current.length())
+        {
+            AtomicReferenceArray<ObserverImpl> grown =
+                    new AtomicReferenceArray<>(Math.max(index + 1, current.length() * 2));
+            for (int i = 0; i < current.length(); i++)
+            {
+                grown.set(i, current.get(i));
+            }
+            users = grown;
+            current = grown;
+        }
+        current.set(index, user);
+    }
+
+    /**
+     * Loads a snapshot into this service, which must not have any users yet, and returns its log position.
+     */
+    private long restore(Path snapshot) throws IOException
+    {
+        List<ObserverImpl> restored = new ArrayList<>();
+        long logPosition = RegistrySnapshot.read(snapshot, new RegistrySnapshot.Visitor()
+        {
+            @Override
+            public void userId(int index, String userId)
+            {
+                if (userIds.intern(userId) != index)
+                {
+                    throw new IllegalStateException("A snapshot can only be restored into an empty service");
+                }
+            }
+
+            @Override
+            public void user(int index, int enabledTypes)
+            {
+                restored.add(createUser(userIds.userId(index), index, enabledTypes));
+            }
+
+            @Override
+            public void friendRequest(int fromIndex, int toIndex)
+            {
+                pendingFriendRequests.add(fromIndex, toIndex);
+            }
+
+            @Override
+            public void friendship(int userIndex, int otherIndex)
+            {
+                socialGraph.addFriendship(userIndex, otherIndex);
+            }
+
+            @Override
+            public void follower(int followedIndex, int followerIndex)
+            {
+                socialGraph.addFollower(followedIndex, followerIndex);
+            }
+
+            @Override
+            public void notification(int userIndex, Notification notification)
+            {
+                ObserverImpl user = userAt(userIndex);
+                if (user != null)
+                {
+                    user.getPushedInbox().add(notification);
+                }
+            }
+        });
+        socialGraph.compact();
+        subject.registerObservers(restored);
+        return logPosition;
+    }
+
+    private static void setPreferences(ObserverImpl user, int enabledTypes)
+    {
+        user.disableNotifications(~enabledTypes);
+        user.enableNotifications(enabledTypes);
+    }
+
+    /**
+     * The indexes greater than {@code lowerBound} and less than {@code upperBound}.
+     */
+    private static int[] indexesBetween(int[] indexes, int lowerBound, int upperBound)
+    {
+        int count = 0;
+        for (int index : indexes)
+        {
+            if (index > lowerBound && index < upperBound)
+            {
+                indexes[count++] = index;
+            }
+        }
+        return count == indexes.length ? indexes : Arrays.copyOf(indexes, count);
+    }
+
+
+    public void playerLeveledUp(String playerId)
+    {
+        publish(playerLeveledUpNotification(playerId));
+    }
+
+
+    public void playerLeveledUp(String playerId, Audience audience)
+    {
+        publish(playerLeveledUpNotification(playerId, audience));
+    }
+
+
+    public void enableGameEventNotifications(ObserverImpl newUser)
+    {
+        newUser.enableNotifications(GAME_NOTIFICATIONS);
+    }
+
+
+    public void disableGameEventNotifications(ObserverImpl newUser)
+    {
+        newUser.disableNotifications(GAME_NOTIFICATIONS);
+    }
+
+
+    public void enableSocialEventNotifications(ObserverImpl newUser)
+    {
+        newUser.enableNotifications(SOCIAL_NOTIFICATIONS);
+    }
+
+
+    public void disableSocialEventNotifications(ObserverImpl newUser)
+    {
+        newUser.disableNotifications(SOCIAL_NOTIFICATIONS);
+    }
+
+
+    private void logPreferences(ObserverImpl user)
+    {
+        log(new LogRecord.PreferencesChanged(user.getUserId(), user.getEnabledNotifications()));
+    }
+
+
+    public void itemAcquired(String playerId, String itemName)
+    {
+        publish(itemAcquiredNotification(playerId, itemName));
+    }
+
+
+    public void itemAcquired(String playerId, String itemName, Audience audience)
+    {
+        publish(itemAcquiredNotification(playerId, itemName, audience));
+    }
+
+
+    public void friendRequestSent(String fromPlayerId, String toPlayerId)
+    {
+        publish(friendRequestSentNotification(fromPlayerId, toPlayerId));
+    }
+
+
+    public void friendRequestAccepted(String playerId, String requesterId)
+    {
+        recordFriendship(playerId, requesterId);
+        publish(friendRequestAcceptedNotification(playerId, requesterId));
+    }
+
+
+    public void challengingQuestMission(String playerId)
+    {
+        publish(challengingQuestMissionNotification(playerId));
+    }
+
+
+    public void challengingQuestMission(String playerId, Audience audience)
+    {
+        publish(challengingQuestMissionNotification(playerId, audience));
+    }
+
+
+    public void achievement(String playerId)
+    {
+        publish(achievementNotification(playerId));
+    }
+
+
+    public void achievement(String playerId, Audience audience)
+    {
+        publish(achievementNotification(playerId, audience));
+    }
+
+
+    /**
+     * Only the two players of the fight are notified.
+     */
+    public void playerIsAttacked(String playerId, String fromPlayerId)
+    {
+        publish(playerIsAttackedNotification(playerId, fromPlayerId));
+    }
+
+
+    /**
+     * Only the two players of the fight are notified.
+     */
+    public void playerIsDefeated(String playerId, String fromPlayerId)
+    {
+        publish(playerIsDefeatedNotification(playerId, fromPlayerId));
+    }
+
+
+    public void gotNewFollower(String playerId, String followerId)
+    {
+        recordFollower(playerId, followerId);
+        publish(gotNewFollowerNotification(playerId, followerId));
+    }
+
+
+    /**
+     * Starts a batch of events that is published with a single {@link Subject#notifyObservers(java.util.List)} call.
+     */
+    public NotificationBatch newBatch()
+    {
+        return new NotificationBatch(this);
+    }
+
+
+    Notification playerLeveledUpNotification(String playerId)
+    {
+        return playerLeveledUpNotification(playerId, Audience.EVERYONE);
+    }
+
+
+    Notification playerLeveledUpNotification(String playerId, Audience audience)
+    {
+        int index = userIds.find(playerId);
+        return Notification.builder(GameEvents.LEVEL_UP)
+                .template(MessageTemplate.LEVEL_UP, playerId)
+                .sender(playerId, index)
+                .recipient(playerId, index)
+                .audience(withIndexes(audience))
+                .build();
+    }
+
+
+    Notification itemAcquiredNotification(String playerId, String itemName)
+    {
+        return itemAcquiredNotification(playerId, itemName, Audience.EVERYONE);
+    }
+
+
+    Notification itemAcquiredNotification(String playerId, String itemName, Audience audience)
+    {
+        int index = userIds.find(playerId);
+        return Notification.builder(GameEvents.ITEM_ACQUIRED)
+                .template(MessageTemplate.ITEM_ACQUIRED, playerId, itemName)
+                .sender(playerId, index)
+                .recipient(playerId, index)
+                .audience(withIndexes(audience))
+                .build();
+    }
+
+
+    Notification friendRequestSentNotification(String fromPlayerId, String toPlayerId)
+    {
+        return Notification.builder(SocialEvents.FRIEND_REQUEST)
+                .template(MessageTemplate.FRIEND_REQUEST_SENT, fromPlayerId)
+                .sender(fromPlayerId, userIds.find(fromPlayerId))
+                .recipient(toPlayerId, userIds.find(toPlayerId))
+                .broadcast(false)
+                .build();
+    }
+
+
+    Notification friendRequestAcceptedNotification(String playerId, String requesterId)
+    {
+        return Notification.builder(SocialEvents.FRIEND_REQUEST_IS_ACCEPTED)
+                .template(MessageTemplate.FRIEND_REQUEST_ACCEPTED, playerId)
+                .sender(playerId, userIds.find(playerId))
+                .recipient(requesterId, userIds.find(requesterId))
+                .broadcast(false)
+                .build();
+    }
+
+
+    Notification challengingQuestMissionNotification(String playerId)
+    {
+        return challengingQuestMissionNotification(playerId, Audience.EVERYONE);
+    }
+
+
+    Notification challengingQuestMissionNotification(String playerId, Audience audience)
+    {
+        int index = userIds.find(playerId);
+        return Notification.builder(GameEvents.CHALLENGE_COMPLETED)
+                .template(MessageTemplate.MISSION_UNLOCKED, playerId)
+                .sender(playerId, index)
+                .recipient(playerId, index)
+                .audience(withIndexes(audience))
+                .build();
+    }
+
+
+    Notification achievementNotification(String playerId)
+    {
+        return achievementNotification(playerId, Audience.EVERYONE);
+    }
+
+
+    Notification achievementNotification(String playerId, Audience audience)
+    {
+        int index = userIds.find(playerId);
+        return Notification.builder(GameEvents.ACHIEVEMENT_COMPLETED)
+                .template(MessageTemplate.DAILY_GOALS_FINISHED, playerId)
+                .sender(playerId, index)
+                .recipient(playerId, index)
+                .audience(withIndexes(audience))
+                .build();
+    }
+
+
+    Notification playerIsAttackedNotification(String playerId, String fromPlayerId)
+    {
+        return Notification.builder(GameEvents.PVP)
+                .template(MessageTemplate.ATTACKED, playerId, fromPlayerId)
+                .sender(fromPlayerId, userIds.find(fromPlayerId))
+                .recipient(playerId, userIds.find(playerId))
+                .audience(Audience.explicit(playerId, fromPlayerId))
+                .build();
+    }
+
+
+    Notification playerIsDefeatedNotification(String playerId, String fromPlayerId)
+    {
+        return Notification.builder(GameEvents.PVP)
+                .template(MessageTemplate.DEFEATED, playerId, fromPlayerId)
+                .sender(fromPlayerId, userIds.find(fromPlayerId))
+                .recipient(playerId, userIds.find(playerId))
+                .audience(Audience.explicit(playerId, fromPlayerId))
+                .build();
+    }
+
+
+    Notification gotNewFollowerNotification(String playerId, String followerId)
+    {
+        return Notification.builder(SocialEvents.NEW_FOLLOWER)
+                .template(MessageTemplate.NEW_FOLLOWER, followerId)
+                .sender(followerId, userIds.find(followerId))
+                .recipient(playerId, userIds.find(playerId))
+                .broadcast(false)
+                .build();
+    }
+
+
+    public void setNotificationPreference(String userId, String category, boolean isEnabled) throws InvalidInputException
+    {
+        ObserverImpl user = getUser(userId);
+        if (category.equalsIgnoreCase("game") && isEnabled)
+        {
+            enableGameEventNotifications(user);
+        }
+        else if (category.equalsIgnoreCase("game") && !isEnabled)
+        {
+            disableGameEventNotifications(user);
+        }
+        else if (category.equalsIgnoreCase("social") && isEnabled)
+        {
+            enableSocialEventNotifications(user);
+        }
+        else if (category.equalsIgnoreCase("social") && !isEnabled)
+        {
+            disableSocialEventNotifications(user);
+        }
+    }
+
+
+    /**
+     * Passes deliveries on to the configured sink, except while the log is replayed: those notifications were
+     * already delivered before the restart.
+     */
+    private final class ReplayAwareSink implements DeliverySink
+    {
+        private final DeliverySink delegate;
+
+        ReplayAwareSink(DeliverySink delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void deliver(String userId, Notification notification)
+        {
+            if (!replaying)
+            {
+                delegate.deliver(userId, notification);
+            }
+        }
+
+        @Override
+        public void deliverAll(String userId, List<Notification> notifications)
+        {
+            if (!replaying)
+            {
+                delegate.deliverAll(userId, notifications);
+            }
+        }
+    }
+}
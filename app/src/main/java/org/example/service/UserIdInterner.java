@@ -0,0 +1,66 @@
+package org.example.service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every user id a dense {@code int} index, so internal lookups and keys work on primitives instead of strings.
+ * Indexes are never reused, even after a user is unregistered. Lookups do not lock; interning new ids does.
+ */
+public class UserIdInterner
+{
+    public static final int NOT_INTERNED = -1;
+
+    private final Map<String, Integer> indexesByUserId = new ConcurrentHashMap<>();
+    private volatile String[] userIdsByIndex = new String[16];
+    private int size;
+
+    /**
+     * Returns the index of {@code userId}, assigning the next free index if it has none yet.
+     */
+    public int intern(String userId)
+    {
+        Integer index = indexesByUserId.get(userId);
+        if (index != null)
+        {
+            return index;
+        }
+        synchronized (this)
+        {
+            index = indexesByUserId.get(userId);
+            if (index != null)
+            {
+                return index;
+            }
+            String[] userIds = userIdsByIndex;
+            if (size == userIds.length)
+            {
+                userIds = Arrays.copyOf(userIds, size * 2);
+            }
+            userIds[size] = userId;
+            userIdsByIndex = userIds;
+            indexesByUserId.put(userId, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Returns the index of {@code userId} or {@link #NOT_INTERNED}.
+     */
+    public int find(String userId)
+    {
+        Integer index = indexesByUserId.get(userId);
+        return index != null ? index : NOT_INTERNED;
+    }
+
+    public String userId(int index)
+    {
+        return userIdsByIndex[index];
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+}
@@ -0,0 +1,304 @@
+package org.example.social;
+
+import org.example.util.IntHashSet;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Directed edges between user indexes stored as compressed sparse rows: one {@code int[]} of sorted neighbor segments
+ * plus one {@code int[]} of segment offsets. Edges added or removed since the last compaction live in small per-node
+ * delta sets, which are merged into the rows once they grow past a fraction of the compacted edge count.
+ * Reads share a read lock; changes take the write lock.
+ */
+public class CompactAdjacency
+{
+    private static final int MIN_COMPACTION_THRESHOLD = 4096;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** offsets[node] .. offsets[node + 1] is the sorted segment of node in targets. */
+    private int[] offsets = new int[1];
+    private int[] targets = new int[0];
+    private IntHashSet[] added = new IntHashSet[0];
+    private IntHashSet[] removed = new IntHashSet[0];
+    private int deltaSize;
+    private long edgeCount;
+
+    /**
+     * Adds the edge {@code from -> to}. Returns false if it already existed.
+     */
+    public boolean add(int from, int to)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (containsUnlocked(from, to))
+            {
+                return false;
+            }
+            if (from < removed.length && removed[from] != null && removed[from].remove(to))
+            {
+                deltaSize--;
+            }
+            else
+            {
+                ensureNode(from);
+                if (added[from] == null)
+                {
+                    added[from] = new IntHashSet(2);
+                }
+                added[from].add(to);
+                deltaSize++;
+            }
+            edgeCount++;
+            compactIfNeeded();
+            return true;
+        } finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the edge {@code from -> to}. Returns false if it did not exist.
+     */
+    public boolean remove(int from, int to)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (!containsUnlocked(from, to))
+            {
+                return false;
+            }
+            if (added[from] != null && added[from].remove(to))
+            {
+                deltaSize--;
+            }
+            else
+            {
+                if (removed[from] == null)
+                {
+                    removed[from] = new IntHashSet(2);
+                }
+                removed[from].add(to);
+                deltaSize++;
+            }
+            edgeCount--;
+            compactIfNeeded();
+            return true;
+        } finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(int from, int to)
+    {
+        lock.readLock().lock();
+        try
+        {
+            return containsUnlocked(from, to);
+        } finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int degree(int node)
+    {
+        lock.readLock().lock();
+        try
+        {
+            return degreeUnlocked(node);
+        } finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Calls {@code action} for every neighbor of {@code node}, holding the read lock.
+     */
+    public void forEachNeighbor(int node, IntConsumer action)
+    {
+        lock.readLock().lock();
+        try
+        {
+            forEachNeighborUnlocked(node, action);
+        } finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] neighbors(int node)
+    {
+        lock.readLock().lock();
+        try
+        {
+            int[] result = new int[degreeUnlocked(node)];
+            int[] count = {0};
+            forEachNeighborUnlocked(node, neighbor -> result[count[0]++] = neighbor);
+            return result;
+        } finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long edgeCount()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return edgeCount;
+        } finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate heap used by the rows and the per-node delta slots, in bytes. Delta set contents are not counted.
+     */
+    public long memoryBytes()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return 4L * offsets.length + 4L * targets.length + 8L * added.length;
+        } finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Merges the pending delta into the rows.
+     */
+    public void compact()
+    {
+        lock.writeLock().lock();
+        try
+        {
+            compactUnlocked();
+        } finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int degreeUnlocked(int node)
+    {
+        int degree = segmentEnd(node) - segmentStart(node);
+        if (node < added.length)
+        {
+            degree += added[node] != null ? added[node].size() : 0;
+            degree -= removed[node] != null ? removed[node].size() : 0;
+        }
+        return degree;
+    }
+
+    private void forEachNeighborUnlocked(int node, IntConsumer action)
+    {
+        IntHashSet removedFromNode = node < removed.length ? removed[node] : null;
+        for (int i = segmentStart(node), end = segmentEnd(node); i < end; i++)
+        {
+            if (removedFromNode == null || !removedFromNode.contains(targets[i]))
+            {
+                action.accept(targets[i]);
+            }
+        }
+        if (node < added.length && added[node] != null)
+        {
+            for (int neighbor : added[node].toArray())
+            {
+                action.accept(neighbor);
+            }
+        }
+    }
+
+    private boolean containsUnlocked(int from, int to)
+    {
+        if (from < added.length)
+        {
+            if (added[from] != null && added[from].contains(to))
+            {
+                return true;
+            }
+            if (removed[from] != null && removed[from].contains(to))
+            {
+                return false;
+            }
+        }
+        int start = segmentStart(from);
+        int end = segmentEnd(from);
+        return start < end && Arrays.binarySearch(targets, start, end, to) >= 0;
+    }
+
+    private int segmentStart(int node)
+    {
+        return node + 1 < offsets.length ? offsets[node] : 0;
+    }
+
+    private int segmentEnd(int node)
+    {
+        return node + 1 < offsets.length ? offsets[node + 1] : 0;
+    }
+
+    private void ensureNode(int node)
+    {
+        if (node >= added.length)
+        {
+            int nodes = Math.max(node + 1, added.length * 2);
+            added = Arrays.copyOf(added, nodes);
+            removed = Arrays.copyOf(removed, nodes);
+        }
+    }
+
+    private void compactIfNeeded()
+    {
+        if (deltaSize > Math.max(MIN_COMPACTION_THRESHOLD, targets.length / 4))
+        {
+            compactUnlocked();
+        }
+    }
+
+    private void compactUnlocked()
+    {
+        int nodes = Math.max(offsets.length - 1, added.length);
+        int[] newOffsets = new int[nodes + 1];
+        int[] newTargets = new int[(int) edgeCount];
+        int position = 0;
+        for (int node = 0; node < nodes; node++)
+        {
+            newOffsets[node] = position;
+            int segmentStart = position;
+            IntHashSet removedFromNode = node < removed.length ? removed[node] : null;
+            for (int i = segmentStart(node), end = segmentEnd(node); i < end; i++)
+            {
+                if (removedFromNode == null || !removedFromNode.contains(targets[i]))
+                {
+                    newTargets[position++] = targets[i];
+                }
+            }
+            if (node < added.length && added[node] != null)
+            {
+                for (int neighbor : added[node].toArray())
+                {
+                    newTargets[position++] = neighbor;
+                }
+                Arrays.sort(newTargets, segmentStart, position);
+            }
+        }
+        newOffsets[nodes] = position;
+        offsets = newOffsets;
+        targets = newTargets;
+        added = new IntHashSet[nodes];
+        removed = new IntHashSet[nodes];
+        deltaSize = 0;
+    }
+}
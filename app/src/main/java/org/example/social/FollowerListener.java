@@ -0,0 +1,10 @@
+package org.example.social;
+
+/**
+ * Told about every follower relation recorded in a {@link SocialGraph}, e.g. so a subject can start the follower's
+ * read position in the followed user's outbox at the notifications published from then on.
+ */
+public interface FollowerListener
+{
+    void followerAdded(int followedIndex, int followerIndex);
+}
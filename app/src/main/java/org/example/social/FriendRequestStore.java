@@ -0,0 +1,313 @@
+package org.example.social;
+
+import org.example.util.IntHashSet;
+import org.example.util.LongLongHashMap;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Pending friend requests between interned user indexes. Requests are keyed on the packed (from, to) pair and
+ * indexed per user in both directions, so adding, accepting, rejecting and listing a user's requests never scan the
+ * whole store. Requests older than the time to live are removed by {@link #expireStale()}, which
+ * {@link #scheduleExpiry} runs periodically. Answered requests leave a tombstone in the expiry queue, which is
+ * compacted once tombstones make up most of it, so churn does not hold memory until the time to live passes.
+ * All methods are thread-safe.
+ */
+public class FriendRequestStore
+{
+    private static final int[] NO_REQUESTS = new int[0];
+    private static final int MIN_EXPIRY_CAPACITY = 64;
+    /** Sent-at of an expiry queue entry whose request was answered. */
+    private static final long TOMBSTONE = Long.MIN_VALUE;
+
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    /** Packed (from, to) to the sequence number of the request's entry in the expiry queue. */
+    private final LongLongHashMap sequenceByKey = new LongLongHashMap(1024);
+    private IntHashSet[] incoming = new IntHashSet[16];
+    private IntHashSet[] outgoing = new IntHashSet[16];
+    /** Requests in the order they were sent, so expiry only looks at the oldest ones. */
+    private long[] expiryKeys = new long[MIN_EXPIRY_CAPACITY];
+    private long[] expirySentAt = new long[MIN_EXPIRY_CAPACITY];
+    private int expiryHead;
+    private int expirySize;
+    /** Sequence number of the entry at the head of the expiry queue. */
+    private long expiryHeadSequence;
+    private int tombstones;
+
+    public FriendRequestStore(Duration ttl)
+    {
+        this(ttl, System::currentTimeMillis);
+    }
+
+    public FriendRequestStore(Duration ttl, LongSupplier clock)
+    {
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    public static long key(int fromIndex, int toIndex)
+    {
+        return (long) fromIndex << 32 | (toIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Records a request. Returns false if the same request is already pending, in which case it is left unchanged.
+     */
+    public synchronized boolean add(int fromIndex, int toIndex)
+    {
+        long key = key(fromIndex, toIndex);
+        if (sequenceByKey.containsKey(key))
+        {
+            return false;
+        }
+        sequenceByKey.put(key, enqueueForExpiry(key, clock.getAsLong()));
+        outgoing = ensureCapacity(outgoing, fromIndex);
+        incoming = ensureCapacity(incoming, toIndex);
+        setOf(outgoing, fromIndex).add(toIndex);
+        setOf(incoming, toIndex).add(fromIndex);
+        return true;
+    }
+
+    public synchronized boolean contains(int fromIndex, int toIndex)
+    {
+        return sequenceByKey.containsKey(key(fromIndex, toIndex));
+    }
+
+    /**
+     * Removes a pending request because it was accepted. Returns false if there was no such request.
+     */
+    public boolean accept(int fromIndex, int toIndex)
+    {
+        return remove(fromIndex, toIndex);
+    }
+
+    /**
+     * Removes a pending request because it was rejected. Returns false if there was no such request.
+     */
+    public boolean reject(int fromIndex, int toIndex)
+    {
+        return remove(fromIndex, toIndex);
+    }
+
+    public synchronized boolean remove(int fromIndex, int toIndex)
+    {
+        long key = key(fromIndex, toIndex);
+        long sequence = sequenceByKey.get(key, -1);
+        if (sequence < 0)
+        {
+            return false;
+        }
+        sequenceByKey.remove(key);
+        unindex(fromIndex, toIndex);
+        expirySentAt[slotOf(sequence)] = TOMBSTONE;
+        tombstones++;
+        trimTombstones();
+        if (tombstones > expirySize / 2 && expirySize > MIN_EXPIRY_CAPACITY)
+        {
+            compactExpiryQueue();
+        }
+        return true;
+    }
+
+    /**
+     * Senders of the requests pending for {@code userIndex}.
+     */
+    public synchronized int[] incoming(int userIndex)
+    {
+        return userIndex < incoming.length && incoming[userIndex] != null ? incoming[userIndex].toArray() : NO_REQUESTS;
+    }
+
+    /**
+     * Recipients of the requests {@code userIndex} sent that are still pending.
+     */
+    public synchronized int[] outgoing(int userIndex)
+    {
+        return userIndex < outgoing.length && outgoing[userIndex] != null ? outgoing[userIndex].toArray() : NO_REQUESTS;
+    }
+
+    /**
+     * Removes every request sent by or to {@code userIndex}, e.g. when the user is unregistered.
+     */
+    public synchronized void removeUser(int userIndex)
+    {
+        for (int toIndex : outgoing(userIndex))
+        {
+            remove(userIndex, toIndex);
+        }
+        for (int fromIndex : incoming(userIndex))
+        {
+            remove(fromIndex, userIndex);
+        }
+    }
+
+    /**
+     * Keys of all pending requests, as packed by {@link #key(int, int)}.
+     */
+    public synchronized long[] keys()
+    {
+        return sequenceByKey.keys();
+    }
+
+    public synchronized int size()
+    {
+        return sequenceByKey.size();
+    }
+
+    /**
+     * Entries in the expiry queue, including tombstones.
+     */
+    synchronized int expiryQueueSize()
+    {
+        return expirySize;
+    }
+
+    /**
+     * Removes the requests that are older than the time to live and returns how many were removed.
+     */
+    public synchronized int expireStale()
+    {
+        long expiredBefore = clock.getAsLong() - ttlMillis;
+        int expired = 0;
+        // Tombstones never reach the head, so every entry taken here is a pending request.
+        while (expirySize > 0 && expirySentAt[expiryHead] <= expiredBefore)
+        {
+            long key = expiryKeys[expiryHead];
+            popExpiryHead();
+            sequenceByKey.remove(key);
+            unindex((int) (key >>> 32), (int) key);
+            expired++;
+            trimTombstones();
+        }
+        return expired;
+    }
+
+    public ScheduledFuture<?> scheduleExpiry(ScheduledExecutorService scheduler, Duration interval)
+    {
+        long intervalMillis = interval.toMillis();
+        return scheduler.scheduleWithFixedDelay(this::expireStale, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void unindex(int fromIndex, int toIndex)
+    {
+        IntHashSet sent = outgoing[fromIndex];
+        sent.remove(toIndex);
+        if (sent.isEmpty())
+        {
+            outgoing[fromIndex] = null;
+        }
+        IntHashSet received = incoming[toIndex];
+        received.remove(fromIndex);
+        if (received.isEmpty())
+        {
+            incoming[toIndex] = null;
+        }
+    }
+
+    /**
+     * Appends an entry to the expiry queue and returns its sequence number.
+     */
+    private long enqueueForExpiry(long key, long sentAt)
+    {
+        if (expirySize == expiryKeys.length)
+        {
+            long[] keys = new long[expiryKeys.length * 2];
+            long[] sentAts = new long[keys.length];
+            for (int i = 0; i < expirySize; i++)
+            {
+                int from = (expiryHead + i) % expiryKeys.length;
+                keys[i] = expiryKeys[from];
+                sentAts[i] = expirySentAt[from];
+            }
+            expiryKeys = keys;
+            expirySentAt = sentAts;
+            expiryHead = 0;
+        }
+        long sequence = expiryHeadSequence + expirySize;
+        int tail = slotOf(sequence);
+        expiryKeys[tail] = key;
+        expirySentAt[tail] = sentAt;
+        expirySize++;
+        return sequence;
+    }
+
+    private int slotOf(long sequence)
+    {
+        return (int) ((expiryHead + (sequence - expiryHeadSequence)) % expiryKeys.length);
+    }
+
+    private void popExpiryHead()
+    {
+        expiryHead = (expiryHead + 1) % expiryKeys.length;
+        expiryHeadSequence++;
+        expirySize--;
+    }
+
+    /**
+     * Drops the tombstones at both ends of the expiry queue, which covers requests answered in the order they were
+     * sent or right after being sent.
+     */
+    private void trimTombstones()
+    {
+        while (expirySize > 0 && expirySentAt[expiryHead] == TOMBSTONE)
+        {
+            popExpiryHead();
+            tombstones--;
+        }
+        while (expirySize > 0 && expirySentAt[slotOf(expiryHeadSequence + expirySize - 1)] == TOMBSTONE)
+        {
+            expirySize--;
+            tombstones--;
+        }
+    }
+
+    /**
+     * Rewrites the expiry queue without its tombstones into arrays sized for what is left, renumbering the entries.
+     */
+    private void compactExpiryQueue()
+    {
+        int live = expirySize - tombstones;
+        int capacity = Math.max(MIN_EXPIRY_CAPACITY, Integer.highestOneBit(Math.max(live, 1)) * 2);
+        long[] keys = new long[capacity];
+        long[] sentAts = new long[capacity];
+        int count = 0;
+        for (int i = 0; i < expirySize; i++)
+        {
+            int from = (expiryHead + i) % expiryKeys.length;
+            if (expirySentAt[from] != TOMBSTONE)
+            {
+                keys[count] = expiryKeys[from];
+                sentAts[count] = expirySentAt[from];
+                sequenceByKey.put(keys[count], count);
+                count++;
+            }
+        }
+        expiryKeys = keys;
+        expirySentAt = sentAts;
+        expiryHead = 0;
+        expiryHeadSequence = 0;
+        expirySize = count;
+        tombstones = 0;
+    }
+
+    private static IntHashSet[] ensureCapacity(IntHashSet[] sets, int index)
+    {
+        return index < sets.length ? sets : Arrays.copyOf(sets, Math.max(index + 1, sets.length * 2));
+    }
+
+    private static IntHashSet setOf(IntHashSet[] sets, int index)
+    {
+        IntHashSet set = sets[index];
+        if (set == null)
+        {
+            set = new IntHashSet(2);
+            sets[index] = set;
+        }
+        return set;
+    }
+}
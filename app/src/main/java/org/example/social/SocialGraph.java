@@ -0,0 +1,162 @@
+package org.example.social;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+/**
+ * Friendships and follower relations between interned user indexes. Friendships are stored in both directions;
+ * follower relations are stored once per direction so both "followers of" and "followed by" are cheap to iterate.
+ */
+public class SocialGraph
+{
+    private final CompactAdjacency friends = new CompactAdjacency();
+    /** followed -> followers */
+    private final CompactAdjacency followers = new CompactAdjacency();
+    /** follower -> followed */
+    private final CompactAdjacency following = new CompactAdjacency();
+    private final List<FollowerListener> followerListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Records a friendship between two users. Returns false if they were already friends, or if both indexes are the
+     * same user, which is ignored.
+     */
+    public boolean addFriendship(int userIndex, int otherIndex)
+    {
+        if (userIndex == otherIndex)
+        {
+            return false;
+        }
+        boolean added = friends.add(userIndex, otherIndex);
+        friends.add(otherIndex, userIndex);
+        return added;
+    }
+
+    public boolean removeFriendship(int userIndex, int otherIndex)
+    {
+        boolean removed = friends.remove(userIndex, otherIndex);
+        friends.remove(otherIndex, userIndex);
+        return removed;
+    }
+
+    public boolean areFriends(int userIndex, int otherIndex)
+    {
+        return friends.contains(userIndex, otherIndex);
+    }
+
+    public int friendCount(int userIndex)
+    {
+        return friends.degree(userIndex);
+    }
+
+    public int[] friendsOf(int userIndex)
+    {
+        return friends.neighbors(userIndex);
+    }
+
+    public void forEachFriend(int userIndex, IntConsumer action)
+    {
+        friends.forEachNeighbor(userIndex, action);
+    }
+
+    /**
+     * Records that {@code followerIndex} follows {@code followedIndex}. Returns false if it already did, or if both
+     * indexes are the same user, which is ignored.
+     */
+    public boolean addFollower(int followedIndex, int followerIndex)
+    {
+        if (followedIndex == followerIndex)
+        {
+            return false;
+        }
+        boolean added = followers.add(followedIndex, followerIndex);
+        following.add(followerIndex, followedIndex);
+        if (added)
+        {
+            for (FollowerListener listener : followerListeners)
+            {
+                listener.followerAdded(followedIndex, followerIndex);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Tells {@code listener} about every follower relation added from now on, after it was recorded.
+     */
+    public void addFollowerListener(FollowerListener listener)
+    {
+        followerListeners.add(listener);
+    }
+
+    public boolean removeFollower(int followedIndex, int followerIndex)
+    {
+        boolean removed = followers.remove(followedIndex, followerIndex);
+        following.remove(followerIndex, followedIndex);
+        return removed;
+    }
+
+    public boolean isFollowing(int followerIndex, int followedIndex)
+    {
+        return following.contains(followerIndex, followedIndex);
+    }
+
+    public int followerCount(int userIndex)
+    {
+        return followers.degree(userIndex);
+    }
+
+    public int[] followersOf(int userIndex)
+    {
+        return followers.neighbors(userIndex);
+    }
+
+    public void forEachFollower(int userIndex, IntConsumer action)
+    {
+        followers.forEachNeighbor(userIndex, action);
+    }
+
+    public int[] followedBy(int followerIndex)
+    {
+        return following.neighbors(followerIndex);
+    }
+
+    /**
+     * Removes every friendship and follower relation of a user.
+     */
+    public void removeUser(int userIndex)
+    {
+        for (int friend : friends.neighbors(userIndex))
+        {
+            removeFriendship(userIndex, friend);
+        }
+        for (int follower : followers.neighbors(userIndex))
+        {
+            removeFollower(userIndex, follower);
+        }
+        for (int followed : following.neighbors(userIndex))
+        {
+            removeFollower(followed, userIndex);
+        }
+    }
+
+    public long edgeCount()
+    {
+        return friends.edgeCount() / 2 + followers.edgeCount();
+    }
+
+    /**
+     * Approximate heap used by the adjacency rows, in bytes.
+     */
+    public long memoryBytes()
+    {
+        return friends.memoryBytes() + followers.memoryBytes() + following.memoryBytes();
+    }
+
+    public void compact()
+    {
+        friends.compact();
+        followers.compact();
+        following.compact();
+    }
+}
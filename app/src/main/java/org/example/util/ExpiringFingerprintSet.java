@@ -0,0 +1,103 @@
+package org.example.util;
+
+import java.time.Clock;
+
+/**
+ * Bounded set of 63-bit fingerprints that are forgotten after a time window. Fingerprints are kept in a
+ * {@link LongLongHashMap} for O(1) lookups and in a fixed ring in insertion order, so expiry only looks at the oldest
+ * ones. When the ring is full the oldest fingerprint is evicted early, which caps memory at the capacity whatever the
+ * insertion rate. Thread-safe.
+ */
+public class ExpiringFingerprintSet
+{
+    private final long windowMillis;
+    private final Clock clock;
+    private final LongLongHashMap insertedAtByFingerprint;
+    private final long[] ringFingerprints;
+    private final long[] ringInsertedAt;
+    private int head;
+    private int size;
+    private long evictedEarly;
+
+    public ExpiringFingerprintSet(int capacity, long windowMillis, Clock clock)
+    {
+        if (capacity < 1 || windowMillis < 1)
+        {
+            throw new IllegalArgumentException("Capacity and window must be positive");
+        }
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.insertedAtByFingerprint = new LongLongHashMap(capacity);
+        this.ringFingerprints = new long[capacity];
+        this.ringInsertedAt = new long[capacity];
+    }
+
+    /**
+     * Adds the fingerprint unless it was added within the window. Returns false if it is already present.
+     */
+    public synchronized boolean add(long fingerprint)
+    {
+        long key = fingerprint & Long.MAX_VALUE;
+        long now = clock.millis();
+        expire(now);
+        if (insertedAtByFingerprint.containsKey(key))
+        {
+            return false;
+        }
+        if (size == ringFingerprints.length)
+        {
+            evictOldest();
+            evictedEarly++;
+        }
+        int tail = (head + size) % ringFingerprints.length;
+        ringFingerprints[tail] = key;
+        ringInsertedAt[tail] = now;
+        size++;
+        insertedAtByFingerprint.put(key, now);
+        return true;
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * Fingerprints evicted before their window ended because the set was full. A steadily growing count means the
+     * capacity is below the insertion rate times the window.
+     */
+    public synchronized long getEvictedEarlyCount()
+    {
+        return evictedEarly;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a string's characters.
+     */
+    public static long fingerprint(String value)
+    {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++)
+        {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private void expire(long now)
+    {
+        long expiredBefore = now - windowMillis;
+        while (size > 0 && ringInsertedAt[head] <= expiredBefore)
+        {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest()
+    {
+        insertedAtByFingerprint.remove(ringFingerprints[head]);
+        head = (head + 1) % ringFingerprints.length;
+        size--;
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of non-negative {@code int} values, without boxing.
+ * Uses linear probing with backward-shift deletion. Not thread-safe.
+ */
+public class IntHashSet
+{
+    private static final int EMPTY = -1;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] values;
+    private int size;
+    private int resizeAt;
+
+    public IntHashSet(int expectedSize)
+    {
+        allocate(Math.max(4, Integer.highestOneBit(Math.max(2, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1));
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public boolean contains(int value)
+    {
+        return value >= 0 && indexOf(value) >= 0;
+    }
+
+    public boolean add(int value)
+    {
+        if (value < 0)
+        {
+            throw new IllegalArgumentException("Values must not be negative: " + value);
+        }
+        int mask = values.length - 1;
+        int slot = slotOf(value, mask);
+        while (values[slot] != EMPTY)
+        {
+            if (values[slot] == value)
+            {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        values[slot] = value;
+        if (++size >= resizeAt)
+        {
+            rehash(values.length * 2);
+        }
+        return true;
+    }
+
+    public boolean remove(int value)
+    {
+        if (value < 0)
+        {
+            return false;
+        }
+        int hole = indexOf(value);
+        if (hole < 0)
+        {
+            return false;
+        }
+        int mask = values.length - 1;
+        int slot = hole;
+        while (true)
+        {
+            slot = (slot + 1) & mask;
+            int current = values[slot];
+            if (current == EMPTY)
+            {
+                break;
+            }
+            int home = slotOf(current, mask);
+            if (((slot - home) & mask) >= ((slot - hole) & mask))
+            {
+                values[hole] = current;
+                hole = slot;
+            }
+        }
+        values[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * The values in no particular order.
+     */
+    public int[] toArray()
+    {
+        int[] result = new int[size];
+        int i = 0;
+        for (int value : values)
+        {
+            if (value != EMPTY)
+            {
+                result[i++] = value;
+            }
+        }
+        return result;
+    }
+
+    private int indexOf(int value)
+    {
+        int mask = values.length - 1;
+        int slot = slotOf(value, mask);
+        while (values[slot] != EMPTY)
+        {
+            if (values[slot] == value)
+            {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity)
+    {
+        int[] old = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int value : old)
+        {
+            if (value != EMPTY)
+            {
+                int slot = slotOf(value, mask);
+                while (values[slot] != EMPTY)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                values[slot] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int slotOf(int value, int mask)
+    {
+        int hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,230 @@
+package org.example.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative {@code long} keys to {@code long} values, without boxing.
+ * Uses linear probing with backward-shift deletion, so removals leave no tombstones. Not thread-safe.
+ */
+public class LongLongHashMap
+{
+    private static final long EMPTY = -1;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int resizeAt;
+
+    public LongLongHashMap(int expectedSize)
+    {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean containsKey(long key)
+    {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the value of {@code key}, or {@code missingValue} if it is absent.
+     */
+    public long get(long key, long missingValue)
+    {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : missingValue;
+    }
+
+    /**
+     * Associates {@code value} with {@code key}. Returns false if the key was already present, in which case its
+     * value is replaced.
+     */
+    public boolean put(long key, long value)
+    {
+        checkKey(key);
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (keys[slot] != EMPTY)
+        {
+            if (keys[slot] == key)
+            {
+                values[slot] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt)
+        {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    public boolean remove(long key)
+    {
+        int index = indexOf(key);
+        if (index < 0)
+        {
+            return false;
+        }
+        shiftBack(index);
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes the entries {@code filter} accepts and returns how many were removed.
+     */
+    public int removeIf(EntryFilter filter)
+    {
+        int removed = 0;
+        int slot = 0;
+        while (slot < keys.length)
+        {
+            long key = keys[slot];
+            if (key != EMPTY && filter.test(key, values[slot]))
+            {
+                // The shift may move a later entry into this slot, so look at it again.
+                shiftBack(slot);
+                size--;
+                removed++;
+            }
+            else
+            {
+                slot++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Copies the keys, in table order.
+     */
+    public long[] keys()
+    {
+        long[] result = new long[size];
+        int count = 0;
+        for (long key : keys)
+        {
+            if (key != EMPTY)
+            {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Heap used by the tables, in bytes.
+     */
+    public long tableBytes()
+    {
+        return 2L * keys.length * Long.BYTES;
+    }
+
+    @FunctionalInterface
+    public interface EntryFilter
+    {
+        boolean test(long key, long value);
+    }
+
+    private int indexOf(long key)
+    {
+        if (key < 0)
+        {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (keys[slot] != EMPTY)
+        {
+            if (keys[slot] == key)
+            {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void shiftBack(int hole)
+    {
+        int mask = keys.length - 1;
+        int slot = hole;
+        while (true)
+        {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == EMPTY)
+            {
+                break;
+            }
+            int home = slotOf(key, mask);
+            // Move the entry into the hole unless its home slot lies cyclically between the hole and its position.
+            if (((slot - home) & mask) >= ((slot - hole) & mask))
+            {
+                keys[hole] = key;
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = EMPTY;
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            long key = oldKeys[i];
+            if (key != EMPTY)
+            {
+                int slot = slotOf(key, mask);
+                while (keys[slot] != EMPTY)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int slotOf(long key, int mask)
+    {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        return Math.max(capacity, 4);
+    }
+
+    private static void checkKey(long key)
+    {
+        if (key < 0)
+        {
+            throw new IllegalArgumentException("Keys must not be negative: " + key);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.workload;
+
+import org.example.metrics.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a trace replay. Latencies are measured from the time an event was due, so when the service falls behind
+ * a throttled replay the queueing delay is part of the latency.
+ *
+ * @param events   events replayed, rejected ones included
+ * @param rejected events the service rejected, e.g. because a user did not exist
+ */
+public record ReplayReport(long events, long rejected, long elapsedNanos, Histogram latencyNanos)
+{
+    public double eventsPerSecond()
+    {
+        return elapsedNanos == 0 ? 0 : events * 1e9 / elapsedNanos;
+    }
+
+    public String summary()
+    {
+        return String.format("""
+                        Replayed %d events (%d rejected) in %.3f s: %.0f events/s
+                        Latency (us): p50 %d, p90 %d, p99 %d, p99.9 %d, max %d, mean %.1f""",
+                events, rejected, elapsedNanos / 1e9, eventsPerSecond(),
+                micros(latencyNanos.percentile(0.5)), micros(latencyNanos.percentile(0.9)),
+                micros(latencyNanos.percentile(0.99)), micros(latencyNanos.percentile(0.999)),
+                micros(latencyNanos.max()), latencyNanos.mean() / 1_000);
+    }
+
+    private static long micros(long nanos)
+    {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.workload;
+
+/**
+ * One step of a recorded or generated workload, replayed against the service by {@link TraceReplayer}. Each event is
+ * a line of a trace file, see {@link TraceFile}.
+ */
+public sealed interface TraceEvent
+{
+    record Register(String userId) implements TraceEvent
+    {
+    }
+
+    /**
+     * Enables or disables a category of notifications, {@code game} or {@code social}, for a user.
+     */
+    record Preference(String userId, String category, boolean enabled) implements TraceEvent
+    {
+    }
+
+    record LevelUp(String userId) implements TraceEvent
+    {
+    }
+
+    record ItemAcquired(String userId, String itemName) implements TraceEvent
+    {
+    }
+
+    record FriendRequest(String fromUserId, String toUserId) implements TraceEvent
+    {
+    }
+
+    record FriendAccept(String userId, String requesterId) implements TraceEvent
+    {
+    }
+
+    record Attack(String userId, String attackerId) implements TraceEvent
+    {
+    }
+
+    record Defeat(String userId, String attackerId) implements TraceEvent
+    {
+    }
+
+    record Follow(String userId, String followerId) implements TraceEvent
+    {
+    }
+
+    record Quest(String userId) implements TraceEvent
+    {
+    }
+
+    record Achievement(String userId) implements TraceEvent
+    {
+    }
+}
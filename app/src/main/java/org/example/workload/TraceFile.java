@@ -0,0 +1,151 @@
+package org.example.workload;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes traces as text, one event per line: a keyword followed by its fields, separated by spaces. The item
+ * name of an {@code item} line is the rest of the line, so it may contain spaces. Blank lines and lines starting with
+ * {@code #} are skipped.
+ * <pre>
+ * register alice
+ * preference alice social off
+ * level_up alice
+ * item alice Sword of Dawn
+ * friend_request alice bob
+ * friend_accept bob alice
+ * attack bob alice
+ * defeat bob alice
+ * follow bob alice
+ * quest alice
+ * achievement alice
+ * </pre>
+ */
+public final class TraceFile
+{
+    private TraceFile()
+    {
+    }
+
+    public static List<TraceEvent> read(Path file) throws IOException
+    {
+        List<TraceEvent> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file))
+        {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null)
+            {
+                lineNumber++;
+                String trimmed = line.strip();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("#"))
+                {
+                    events.add(parse(trimmed, lineNumber));
+                }
+            }
+        }
+        return events;
+    }
+
+    public static void write(Path file, List<TraceEvent> events) throws IOException
+    {
+        try (BufferedWriter writer = Files.newBufferedWriter(file))
+        {
+            for (TraceEvent event : events)
+            {
+                writer.write(format(event));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Parses one non-blank line; throws {@link IllegalArgumentException} naming the line if it is malformed.
+     */
+    static TraceEvent parse(String line, int lineNumber)
+    {
+        String[] fields = line.split("\\s+");
+        String keyword = fields[0];
+        try
+        {
+            return switch (keyword)
+            {
+                case "register" -> new TraceEvent.Register(field(fields, 1, 2));
+                case "preference" ->
+                        new TraceEvent.Preference(field(fields, 1, 4), category(fields[2]), onOff(fields[3]));
+                case "level_up" -> new TraceEvent.LevelUp(field(fields, 1, 2));
+                case "item" ->
+                {
+                    String[] itemFields = line.split("\\s+", 3);
+                    yield new TraceEvent.ItemAcquired(field(itemFields, 1, 3), itemFields[2]);
+                }
+                case "friend_request" -> new TraceEvent.FriendRequest(field(fields, 1, 3), fields[2]);
+                case "friend_accept" -> new TraceEvent.FriendAccept(field(fields, 1, 3), fields[2]);
+                case "attack" -> new TraceEvent.Attack(field(fields, 1, 3), fields[2]);
+                case "defeat" -> new TraceEvent.Defeat(field(fields, 1, 3), fields[2]);
+                case "follow" -> new TraceEvent.Follow(field(fields, 1, 3), fields[2]);
+                case "quest" -> new TraceEvent.Quest(field(fields, 1, 2));
+                case "achievement" -> new TraceEvent.Achievement(field(fields, 1, 2));
+                default -> throw new IllegalArgumentException("unknown event '" + keyword + "'");
+            };
+        } catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Trace line " + lineNumber + ": " + e.getMessage() + ": " + line, e);
+        }
+    }
+
+    static String format(TraceEvent event)
+    {
+        return switch (event)
+        {
+            case TraceEvent.Register e -> "register " + e.userId();
+            case TraceEvent.Preference e ->
+                    "preference " + e.userId() + " " + e.category() + " " + (e.enabled() ? "on" : "off");
+            case TraceEvent.LevelUp e -> "level_up " + e.userId();
+            case TraceEvent.ItemAcquired e -> "item " + e.userId() + " " + e.itemName();
+            case TraceEvent.FriendRequest e -> "friend_request " + e.fromUserId() + " " + e.toUserId();
+            case TraceEvent.FriendAccept e -> "friend_accept " + e.userId() + " " + e.requesterId();
+            case TraceEvent.Attack e -> "attack " + e.userId() + " " + e.attackerId();
+            case TraceEvent.Defeat e -> "defeat " + e.userId() + " " + e.attackerId();
+            case TraceEvent.Follow e -> "follow " + e.userId() + " " + e.followerId();
+            case TraceEvent.Quest e -> "quest " + e.userId();
+            case TraceEvent.Achievement e -> "achievement " + e.userId();
+        };
+    }
+
+    /**
+     * The field at {@code index} of a line that must have exactly {@code count} fields.
+     */
+    private static String field(String[] fields, int index, int count)
+    {
+        if (fields.length != count)
+        {
+            throw new IllegalArgumentException("expected " + (count - 1) + " field(s)");
+        }
+        return fields[index];
+    }
+
+    private static String category(String category)
+    {
+        if (!category.equals("game") && !category.equals("social"))
+        {
+            throw new IllegalArgumentException("category must be 'game' or 'social'");
+        }
+        return category;
+    }
+
+    private static boolean onOff(String value)
+    {
+        return switch (value)
+        {
+            case "on" -> true;
+            case "off" -> false;
+            default -> throw new IllegalArgumentException("preference must be 'on' or 'off'");
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.workload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a synthetic trace: every user registers first, then a random mix of game events, social events and
+ * preference changes between them. Game events dominate, as in live traffic, and friend requests are only accepted
+ * after they were sent. The same seed always yields the same trace.
+ */
+public class TraceGenerator
+{
+    private final int users;
+    private final SplittableRandom random;
+    /** Friend requests sent and not accepted yet, as (from, to) user numbers. */
+    private final List<int[]> pendingRequests = new ArrayList<>();
+
+    public TraceGenerator(int users, long seed)
+    {
+        if (users < 2)
+        {
+            throw new IllegalArgumentException("A trace needs at least 2 users");
+        }
+        this.users = users;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * The registrations followed by {@code events} random events.
+     */
+    public List<TraceEvent> generate(int events)
+    {
+        List<TraceEvent> trace = new ArrayList<>(users + events);
+        for (int user = 0; user < users; user++)
+        {
+            trace.add(new TraceEvent.Register(userId(user)));
+        }
+        for (int i = 0; i < events; i++)
+        {
+            trace.add(next());
+        }
+        return trace;
+    }
+
+    private TraceEvent next()
+    {
+        int user = random.nextInt(users);
+        int other = otherThan(user);
+        int roll = random.nextInt(100);
+        if (roll < 30)
+        {
+            return new TraceEvent.Attack(userId(user), userId(other));
+        }
+        if (roll < 45)
+        {
+            return new TraceEvent.LevelUp(userId(user));
+        }
+        if (roll < 55)
+        {
+            return new TraceEvent.ItemAcquired(userId(user), "item-" + random.nextInt(100));
+        }
+        if (roll < 63)
+        {
+            pendingRequests.add(new int[]{user, other});
+            return new TraceEvent.FriendRequest(userId(user), userId(other));
+        }
+        if (roll < 69 && !pendingRequests.isEmpty())
+        {
+            int[] request = pendingRequests.remove(random.nextInt(pendingRequests.size()));
+            return new TraceEvent.FriendAccept(userId(request[1]), userId(request[0]));
+        }
+        if (roll < 77)
+        {
+            return new TraceEvent.Follow(userId(user), userId(other));
+        }
+        if (roll < 85)
+        {
+            return new TraceEvent.Defeat(userId(user), userId(other));
+        }
+        if (roll < 92)
+        {
+            return new TraceEvent.Preference(userId(user), random.nextBoolean() ? "game" : "social",
+                    random.nextInt(4) != 0);
+        }
+        return random.nextBoolean() ? new TraceEvent.Quest(userId(user)) : new TraceEvent.Achievement(userId(user));
+    }
+
+    private int otherThan(int user)
+    {
+        int other = random.nextInt(users - 1);
+        return other >= user ? other + 1 : other;
+    }
+
+    static String userId(int user)
+    {
+        return "player-" + user;
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.workload;
+
+import org.example.exceptions.InvalidInputException;
+import org.example.metrics.Histogram;
+import org.example.service.NotificationService;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a trace against a {@link NotificationService} on the calling thread, making the same calls as the
+ * interactive menu in {@link org.example.Main} does for each action, and times every event.
+ */
+public class TraceReplayer
+{
+    /** Replays the events back to back. */
+    public static final double UNTHROTTLED = 0;
+
+    private final NotificationService service;
+
+    public TraceReplayer(NotificationService service)
+    {
+        this.service = service;
+    }
+
+    /**
+     * Replays {@code events} at {@code eventsPerSecond}, or as fast as possible when it is {@link #UNTHROTTLED}.
+     * Events whose users do not exist, or that the menu would refuse, are counted as rejected and skipped.
+     */
+    public ReplayReport replay(List<TraceEvent> events, double eventsPerSecond)
+    {
+        if (eventsPerSecond < 0)
+        {
+            throw new IllegalArgumentException("Rate must not be negative");
+        }
+        double intervalNanos = eventsPerSecond == UNTHROTTLED ? 0 : 1e9 / eventsPerSecond;
+        Histogram latencies = new Histogram();
+        long rejected = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < events.size(); i++)
+        {
+            long due = start + (long) (i * intervalNanos);
+            long now = System.nanoTime();
+            while (now < due)
+            {
+                LockSupport.parkNanos(due - now);
+                now = System.nanoTime();
+            }
+            if (intervalNanos == 0)
+            {
+                due = now;
+            }
+            if (!apply(events.get(i)))
+            {
+                rejected++;
+            }
+            latencies.record(System.nanoTime() - due);
+        }
+        return new ReplayReport(events.size(), rejected, System.nanoTime() - start, latencies);
+    }
+
+    /**
+     * Applies one event and returns false if it was rejected.
+     */
+    boolean apply(TraceEvent event)
+    {
+        if (!accepts(event))
+        {
+            return false;
+        }
+        try
+        {
+            switch (event)
+            {
+                case TraceEvent.Register e -> service.registerUser(e.userId());
+                case TraceEvent.Preference e ->
+                        service.setNotificationPreference(e.userId(), e.category(), e.enabled());
+                case TraceEvent.LevelUp e -> service.playerLeveledUp(e.userId());
+                case TraceEvent.ItemAcquired e -> service.itemAcquired(e.userId(), e.itemName());
+                case TraceEvent.FriendRequest e ->
+                {
+                    service.friendRequestSent(e.fromUserId(), e.toUserId());
+                    service.addFriendRequest(e.fromUserId(), e.toUserId());
+                }
+                case TraceEvent.FriendAccept e ->
+                {
+                    service.friendRequestAccepted(e.userId(), e.requesterId());
+                    service.removeFriendRequest(e.requesterId(), e.userId());
+                }
+                case TraceEvent.Attack e -> service.playerIsAttacked(e.userId(), e.attackerId());
+                case TraceEvent.Defeat e -> service.playerIsDefeated(e.userId(), e.attackerId());
+                case TraceEvent.Follow e -> service.gotNewFollower(e.userId(), e.followerId());
+                case TraceEvent.Quest e -> service.challengingQuestMission(e.userId());
+                case TraceEvent.Achievement e -> service.achievement(e.userId());
+            }
+            return true;
+        } catch (InvalidInputException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * The checks the menu makes before calling the service.
+     */
+    private boolean accepts(TraceEvent event)
+    {
+        return switch (event)
+        {
+            case TraceEvent.Register e -> !service.userExist(e.userId());
+            case TraceEvent.Preference e -> service.userExist(e.userId());
+            case TraceEvent.LevelUp e -> service.userExist(e.userId());
+            case TraceEvent.ItemAcquired e -> service.userExist(e.userId());
+            case TraceEvent.FriendRequest e -> distinctUsers(e.fromUserId(), e.toUserId());
+            case TraceEvent.FriendAccept e -> service.userExist(e.userId())
+                    && service.friendRequestExists(e.requesterId(), e.userId());
+            case TraceEvent.Attack e -> distinctUsers(e.userId(), e.attackerId());
+            case TraceEvent.Defeat e -> distinctUsers(e.userId(), e.attackerId());
+            case TraceEvent.Follow e -> distinctUsers(e.userId(), e.followerId());
+            case TraceEvent.Quest e -> service.userExist(e.userId());
+            case TraceEvent.Achievement e -> service.userExist(e.userId());
+        };
+    }
+
+    private boolean distinctUsers(String userId, String otherUserId)
+    {
+        return service.userExist(userId) && service.userExist(otherUserId) && !userId.equalsIgnoreCase(otherUserId);
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.workload;
+
+import org.example.delivery.NoOpSink;
+import org.example.observers.ObserverImpl;
+import org.example.observers.SubjectImpl;
+import org.example.service.NotificationService;
+import org.example.social.SocialGraph;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Headless mode of {@link org.example.Main}: generates a trace file, or replays one against a fresh service that
+ * discards its deliveries and prints the achieved throughput and latency percentiles.
+ */
+public final class WorkloadDriver
+{
+    public static final String USAGE = """
+            Usage:
+              --replay <trace file> [--rate <events per second>]
+              --generate <trace file> [--users <count>] [--events <count>] [--seed <seed>]""";
+
+    private static final int DEFAULT_USERS = 1_000;
+    private static final int DEFAULT_EVENTS = 100_000;
+
+    private WorkloadDriver()
+    {
+    }
+
+    /**
+     * Runs the command in {@code args} and returns the process exit code.
+     */
+    public static int run(String[] args, PrintStream out)
+    {
+        try
+        {
+            Map<String, String> options = parseOptions(args);
+            if (options.containsKey("--replay"))
+            {
+                double rate = Double.parseDouble(options.getOrDefault("--rate", "0"));
+                replay(Path.of(options.get("--replay")), rate, out);
+            }
+            else if (options.containsKey("--generate"))
+            {
+                int users = Integer.parseInt(options.getOrDefault("--users", String.valueOf(DEFAULT_USERS)));
+                int events = Integer.parseInt(options.getOrDefault("--events", String.valueOf(DEFAULT_EVENTS)));
+                long seed = Long.parseLong(options.getOrDefault("--seed", "42"));
+                Path file = Path.of(options.get("--generate"));
+                TraceFile.write(file, new TraceGenerator(users, seed).generate(events));
+                out.println("Wrote " + (users + events) + " events to " + file);
+            }
+            else
+            {
+                throw new IllegalArgumentException("Either --replay or --generate is required");
+            }
+            return 0;
+        } catch (IllegalArgumentException e)
+        {
+            out.println("Error: " + e.getMessage());
+            out.println(USAGE);
+            return 2;
+        } catch (IOException e)
+        {
+            out.println("Error: " + e);
+            return 1;
+        }
+    }
+
+    private static void replay(Path file, double rate, PrintStream out) throws IOException
+    {
+        List<TraceEvent> events = TraceFile.read(file);
+        SocialGraph socialGraph = new SocialGraph();
+        NotificationService service = new NotificationService(new SubjectImpl(socialGraph),
+                ObserverImpl.DEFAULT_INBOX_CAPACITY, new NoOpSink(), socialGraph);
+        ReplayReport report = new TraceReplayer(service).replay(events, rate);
+        out.println(report.summary());
+    }
+
+    private static Map<String, String> parseOptions(String[] args)
+    {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2)
+        {
+            if (!args[i].startsWith("--") || i + 1 == args.length)
+            {
+                throw new IllegalArgumentException("Expected an option and its value at '" + args[i] + "'");
+            }
+            options.put(args[i], args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.delivery;
+import static org.junit.Assert.*;
+import org.example.events.GameEvents;
+import org.example.model.Notification;
+import org.example.observers.ObserverImpl;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+public class AsyncChannelSinkTest
+{
+    @Test
+    public void testWritesDeliveredNotificationsThroughChannel() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        AsyncChannelSink sink = new AsyncChannelSink(Channels.newChannel(output), 1024);
+        ObserverImpl observer = new ObserverImpl("player1", 10, sink);
+
+        for (int i = 0; i < 3; i++) {
+            observer.showNotification(new Notification(GameEvents.LEVEL_UP, "level " + i, "player1", "player1", true));
+        }
+        sink.close();
+
+        String written = output.toString(StandardCharsets.UTF_8);
+        assertEquals("User player1 received notification: level 0\n"
+                + "User player1 received notification: level 1\n"
+                + "User player1 received notification: level 2\n", written);
+        assertEquals(3, sink.getWrittenCount());
+        assertEquals(0, sink.getDroppedCount());
+        assertEquals(3, observer.getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testDeliveriesAfterCloseAreDropped() throws Exception {
+        AsyncChannelSink sink = new AsyncChannelSink(Channels.newChannel(new ByteArrayOutputStream()), 16);
+        sink.close();
+
+        sink.deliver("player1", new Notification(GameEvents.LEVEL_UP, "late", "player1", "player1", true));
+
+        assertEquals(1, sink.getDroppedCount());
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest
+{
+    @Test
+    public void testPercentilesAreWithinOneSubBucket()
+    {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 10_000; value++)
+        {
+            histogram.record(value);
+        }
+
+        assertEquals(10_000, histogram.count());
+        assertEquals(5_000.5, histogram.mean(), 0.001);
+        assertEquals(10_000, histogram.max());
+        long p50 = histogram.percentile(0.5);
+        long p99 = histogram.percentile(0.99);
+        assertTrue("p50 " + p50, p50 >= 5_000 && p50 <= 5_000 * 9 / 8);
+        assertTrue("p99 " + p99, p99 >= 9_900 && p99 <= 10_000);
+    }
+
+    @Test
+    public void testEmptyHistogramReportsZero()
+    {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(0.99));
+        assertEquals(0, histogram.mean(), 0);
+    }
+
+    @Test
+    public void testBucketsCoverEveryValue()
+    {
+        long[] values = {0, 7, 8, 15, 16, 17, 1023, 1024, Long.MAX_VALUE};
+        for (long value : values)
+        {
+            int bucket = Histogram.bucketOf(value);
+            assertTrue(value + " above its bucket", value <= Histogram.upperBoundOf(bucket));
+            assertTrue(value + " below its bucket", bucket == 0 || value > Histogram.upperBoundOf(bucket - 1));
+        }
+    }
+}
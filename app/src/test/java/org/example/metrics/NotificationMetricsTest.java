@@ -0,0 +1,77 @@
+package org.example.metrics;
+
+import org.example.events.GameEvents;
+import org.example.events.SocialEvents;
+import org.example.model.Audience;
+import org.example.model.Notification;
+import org.example.observers.ObserverImpl;
+import org.example.observers.SubjectImpl;
+import org.example.social.SocialGraph;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NotificationMetricsTest
+{
+    @Test
+    public void testSubjectRecordsDeliveriesAndFilteredRecipients()
+    {
+        NotificationMetrics metrics = new NotificationMetrics("subject-test");
+        SubjectImpl subject = new SubjectImpl(new SocialGraph(), SubjectImpl.PUSH_ONLY, metrics);
+        ObserverImpl alice = new ObserverImpl("alice");
+        ObserverImpl bob = new ObserverImpl("bob");
+        ObserverImpl carol = new ObserverImpl("carol");
+        subject.registerObservers(List.of(alice, bob, carol));
+        alice.enableNotification(GameEvents.LEVEL_UP);
+        bob.enableNotification(GameEvents.LEVEL_UP);
+        alice.enableNotification(SocialEvents.NEW_FOLLOWER);
+
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Global level up!", "system", "alice", true));
+        subject.notifyObservers(new Notification(SocialEvents.NEW_FOLLOWER, "Hi", "system", "alice", false)
+                .withAudience(Audience.explicit("alice", "bob", "dave")));
+        subject.notifyObservers(List.of(
+                new Notification(GameEvents.LEVEL_UP, "first", "system", "alice", true),
+                new Notification(GameEvents.LEVEL_UP, "second", "system", "alice", true)));
+
+        EventTypeMetricsMXBean levelUp = metrics.of(GameEvents.LEVEL_UP);
+        assertEquals(6, levelUp.getDeliveries());
+        assertEquals(3, levelUp.getFilteredByPreference());
+        assertEquals(2, levelUp.getFanOutSizeMax());
+        EventTypeMetricsMXBean newFollower = metrics.of(SocialEvents.NEW_FOLLOWER);
+        assertEquals(1, newFollower.getDeliveries());
+        assertEquals(1, newFollower.getFilteredByPreference());
+        assertEquals(7, metrics.getDeliveries());
+        assertEquals(4, metrics.getFilteredByPreference());
+    }
+
+    @Test
+    public void testMetricsAreReadableThroughPlatformMBeanServer() throws Exception
+    {
+        NotificationMetrics metrics = new NotificationMetrics("mbean-test");
+        metrics.recordPublish(GameEvents.PVP, System.nanoTime() - 2_000_000);
+        metrics.recordPublish(GameEvents.PVP, NotificationMetrics.NOT_TIMED);
+        metrics.recordFanOut(GameEvents.PVP, 3, NotificationMetrics.NOT_TIMED);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        metrics.registerMBeans();
+        try
+        {
+            ObjectName total = metrics.objectName(null);
+            ObjectName pvp = metrics.objectName(GameEvents.PVP);
+            assertEquals(2L, server.getAttribute(total, "Published"));
+            assertEquals(3L, server.getAttribute(pvp, "Deliveries"));
+            assertEquals("GameEvents.PVP", server.getAttribute(pvp, "EventType"));
+            assertTrue((Long) server.getAttribute(pvp, "PublishMicrosMax") >= 2_000);
+            assertEquals(0L, server.getAttribute(pvp, "FanOutMicrosMax"));
+        } finally
+        {
+            metrics.unregisterMBeans();
+        }
+        assertFalse(server.isRegistered(metrics.objectName(null)));
+    }
+}
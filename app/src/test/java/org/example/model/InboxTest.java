@@ -0,0 +1,91 @@
+package org.example.model;
+import static org.junit.Assert.*;
+import org.example.events.GameEvents;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class InboxTest
+{
+    private Inbox inbox;
+
+    @Before
+    public void setUp() {
+        inbox = new Inbox(3);
+    }
+
+    @Test
+    public void testOldestNotificationsAreOverwrittenWhenFull() {
+        for (int i = 0; i < 5; i++) {
+            inbox.add(new Notification(GameEvents.LEVEL_UP, "message" + i, "system", "player1", false));
+        }
+
+        List<Notification> retained = inbox.snapshot();
+        assertEquals(3, retained.size());
+        assertEquals("message2", retained.get(0).message());
+        assertEquals("message4", retained.get(2).message());
+        assertEquals(5, inbox.cursor());
+    }
+
+    @Test
+    public void testLatestReturnsMostRecentOldestFirst() {
+        for (int i = 0; i < 5; i++) {
+            inbox.add(new Notification(GameEvents.LEVEL_UP, "message" + i, "system", "player1", false));
+        }
+
+        List<Notification> latest = inbox.latest(2);
+        assertEquals(2, latest.size());
+        assertEquals("message3", latest.get(0).message());
+        assertEquals("message4", latest.get(1).message());
+    }
+
+    @Test
+    public void testSincePaginatesAndReportsMissedNotifications() {
+        inbox.add(new Notification(GameEvents.LEVEL_UP, "message0", "system", "player1", false));
+        InboxPage first = inbox.since(0, 10);
+        assertEquals(1, first.notifications().size());
+        assertEquals(1, first.nextCursor());
+
+        for (int i = 1; i < 6; i++) {
+            inbox.add(new Notification(GameEvents.LEVEL_UP, "message" + i, "system", "player1", false));
+        }
+        InboxPage second = inbox.since(first.nextCursor(), 2);
+        assertEquals(2, second.missed());
+        assertEquals("message3", second.notifications().get(0).message());
+        assertEquals("message4", second.notifications().get(1).message());
+
+        InboxPage third = inbox.since(second.nextCursor(), 2);
+        assertEquals(0, third.missed());
+        assertEquals(1, third.notifications().size());
+        assertEquals(6, third.nextCursor());
+    }
+
+    @Test
+    public void testInboxGrowsUpToItsCapacity() {
+        Inbox large = new Inbox(10);
+        assertTrue(large.snapshot().isEmpty());
+
+        for (int i = 0; i < 25; i++) {
+            large.add(new Notification(GameEvents.LEVEL_UP, "message" + i, "system", "player1", false));
+            assertEquals(Math.min(i + 1, 10), large.size());
+            assertEquals("message" + i, large.latest(1).get(0).message());
+        }
+
+        List<Notification> retained = large.snapshot();
+        assertEquals(10, retained.size());
+        assertEquals("message15", retained.get(0).message());
+        assertEquals("message24", retained.get(9).message());
+    }
+
+    @Test
+    public void testNegativeCountsReturnNothing() {
+        inbox.add(new Notification(GameEvents.LEVEL_UP, "message0", "system", "player1", false));
+
+        assertTrue(inbox.latest(-1).isEmpty());
+        InboxPage page = inbox.since(0, -1);
+        assertTrue(page.notifications().isEmpty());
+        assertEquals(0, page.nextCursor());
+        assertEquals(1, inbox.since(-5, 10).notifications().size());
+    }
+}
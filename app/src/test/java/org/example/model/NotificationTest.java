@@ -0,0 +1,51 @@
+package org.example.model;
+import static org.junit.Assert.*;
+import org.example.events.GameEvents;
+import org.junit.Test;
+
+public class NotificationTest
+{
+    @Test
+    public void testTemplatedMessageIsRenderedOnFirstRead() {
+        Notification notification = Notification.templated(GameEvents.ITEM_ACQUIRED, MessageTemplate.ITEM_ACQUIRED,
+                "Alice", "Alice", true, "Alice", "SwordOfAzeroth");
+
+        assertFalse(notification.isRendered());
+        assertEquals("Alice acquired a new item: SwordOfAzeroth", notification.message());
+        assertTrue(notification.isRendered());
+        assertSame(notification.message(), notification.message());
+    }
+
+    @Test
+    public void testTemplatedAndLiteralNotificationsWithSameTextAreEqual() {
+        Notification templated = Notification.templated(GameEvents.LEVEL_UP, MessageTemplate.LEVEL_UP,
+                "Alice", "Alice", true, "Alice");
+        Notification literal = new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true);
+
+        assertEquals(literal, templated);
+        assertEquals(literal.hashCode(), templated.hashCode());
+        assertEquals("[LEVEL_UP] Alice leveled up!", templated.toString());
+    }
+
+    @Test
+    public void testTemplatedNotificationsAreComparedWithoutRendering() {
+        Notification first = Notification.templated(GameEvents.LEVEL_UP, MessageTemplate.LEVEL_UP,
+                "Alice", "Alice", true, "Alice");
+        Notification second = Notification.templated(GameEvents.LEVEL_UP, MessageTemplate.LEVEL_UP,
+                "Alice", "Alice", true, "Alice");
+        Notification other = Notification.templated(GameEvents.LEVEL_UP, MessageTemplate.LEVEL_UP,
+                "Alice", "Alice", true, "Bob");
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, other);
+        assertFalse(first.isRendered());
+        assertFalse(second.isRendered());
+        assertFalse(other.isRendered());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testLiteralNotificationNeedsAMessage() {
+        new Notification(GameEvents.LEVEL_UP, null, "Alice", "Alice", true);
+    }
+}
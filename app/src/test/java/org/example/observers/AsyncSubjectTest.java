@@ -0,0 +1,121 @@
+package org.example.observers;
+import static org.junit.Assert.*;
+import org.example.delivery.NoOpSink;
+import org.example.events.GameEvents;
+import org.example.model.Notification;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncSubjectTest
+{
+    @Test
+    public void testNotificationsAreDeliveredInOrderByWorker() throws InterruptedException {
+        AsyncSubject subject = new AsyncSubject(new SubjectImpl(), 16, 1, AsyncSubject.OverflowPolicy.BLOCK);
+        ObserverImpl observer = new ObserverImpl("player1");
+        observer.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(observer);
+
+        for (int i = 0; i < 100; i++) {
+            subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "player" + i + " leveled up!", "player" + i, "player" + i, true));
+        }
+        subject.close();
+
+        assertEquals(100, observer.getReceivedNotifications().size());
+        assertEquals("player0 leveled up!", observer.getReceivedNotifications().get(0).message());
+        assertEquals("player99 leveled up!", observer.getReceivedNotifications().get(99).message());
+        assertEquals(100, subject.getDeliveredCount());
+        assertEquals(0, subject.getQueueDepth());
+    }
+
+    @Test
+    public void testDropNewestCountsRejectedNotifications() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        SubjectImpl delegate = new SubjectImpl();
+        delegate.registerObserver(notification -> {
+            workerBusy.countDown();
+            awaitQuietly(release);
+        });
+        AsyncSubject subject = new AsyncSubject(delegate, 2, 1, AsyncSubject.OverflowPolicy.DROP_NEWEST);
+
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "player0 leveled up!", "player0", "player0", true));
+        workerBusy.await();
+        for (int i = 1; i <= 5; i++) {
+            subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "player" + i + " leveled up!", "player" + i, "player" + i, true));
+        }
+
+        assertEquals(2, subject.getQueueDepth());
+        assertEquals(3, subject.getDroppedCount());
+        release.countDown();
+        subject.close();
+        assertEquals(3, subject.getDeliveredCount());
+    }
+
+    @Test
+    public void testCallerRunsDeliversOnPublishingThread() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        SubjectImpl delegate = new SubjectImpl();
+        delegate.registerObserver(notification -> {
+            if (!Thread.currentThread().getName().startsWith("notification-dispatch")) {
+                return;
+            }
+            workerBusy.countDown();
+            awaitQuietly(release);
+        });
+        AsyncSubject subject = new AsyncSubject(delegate, 1, 1, AsyncSubject.OverflowPolicy.CALLER_RUNS);
+
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "player0 leveled up!", "player0", "player0", true));
+        workerBusy.await();
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "player1 leveled up!", "player1", "player1", true));
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "player2 leveled up!", "player2", "player2", true));
+
+        assertEquals(1, subject.getCallerRunsCount());
+        release.countDown();
+        subject.close();
+        assertEquals(3, subject.getDeliveredCount());
+        assertEquals(0, subject.getDroppedCount());
+    }
+
+    @Test
+    public void testEveryAcceptedNotificationIsDeliveredWhenClosedConcurrently() throws InterruptedException {
+        AsyncSubject subject = new AsyncSubject(new SubjectImpl(), 4, 2, AsyncSubject.OverflowPolicy.BLOCK);
+        ObserverImpl observer = new ObserverImpl("player1", 0, 100_000, new NoOpSink());
+        observer.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(observer);
+        AtomicInteger accepted = new AtomicInteger();
+        Thread[] publishers = new Thread[4];
+        for (int t = 0; t < publishers.length; t++) {
+            publishers[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 10_000; i++) {
+                        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "player1 leveled up!", "player1", "player1", true));
+                        accepted.incrementAndGet();
+                    }
+                } catch (IllegalStateException e) {
+                    // closed
+                }
+            });
+            publishers[t].start();
+        }
+
+        Thread.sleep(5);
+        subject.close();
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+
+        assertEquals(accepted.get(), subject.getDeliveredCount());
+        assertEquals(accepted.get(), observer.getInbox().cursor());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.observers;
+import static org.junit.Assert.*;
+import org.example.events.GameEvents;
+import org.example.events.SocialEvents;
+import org.example.model.Notification;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+public class CoalescingSubjectTest
+{
+    @Test
+    public void testBurstForOneRecipientIsDeliveredAsDigest() {
+        CoalescingSubject subject = new CoalescingSubject(new SubjectImpl(), Duration.ofMinutes(1), SocialEvents.NEW_FOLLOWER);
+        ObserverImpl alice = new ObserverImpl("Alice");
+        ObserverImpl bob = new ObserverImpl("Bob");
+        alice.enableNotification(SocialEvents.NEW_FOLLOWER);
+        bob.enableNotification(SocialEvents.NEW_FOLLOWER);
+        subject.registerObserver(alice);
+        subject.registerObserver(bob);
+
+        for (int i = 0; i < 12; i++) {
+            subject.notifyObservers(new Notification(SocialEvents.NEW_FOLLOWER, "player" + i + " is now following you", "player" + i, "Alice", false));
+        }
+        subject.notifyObservers(new Notification(SocialEvents.NEW_FOLLOWER, "Charlie is now following you", "Charlie", "Bob", false));
+        assertTrue(alice.getReceivedNotifications().isEmpty());
+        assertEquals(2, subject.getPendingCount());
+        subject.close();
+
+        List<Notification> aliceInbox = alice.getReceivedNotifications();
+        assertEquals(1, aliceInbox.size());
+        assertEquals("12 new followers", aliceInbox.get(0).message());
+        assertEquals("player11", aliceInbox.get(0).sender());
+        assertEquals(List.of(new Notification(SocialEvents.NEW_FOLLOWER, "Charlie is now following you", "Charlie", "Bob", false)), bob.getReceivedNotifications());
+        assertEquals(11, subject.getCoalescedCount());
+        assertEquals(1, subject.getDigestCount());
+    }
+
+    @Test
+    public void testOtherTypesPassStraightThrough() {
+        CoalescingSubject subject = new CoalescingSubject(new SubjectImpl(), Duration.ofMinutes(1), SocialEvents.NEW_FOLLOWER);
+        ObserverImpl alice = new ObserverImpl("Alice");
+        alice.enableNotification(GameEvents.LEVEL_UP);
+        alice.enableNotification(SocialEvents.NEW_FOLLOWER);
+        subject.registerObserver(alice);
+
+        subject.notifyObservers(List.of(new Notification(SocialEvents.NEW_FOLLOWER, "Bob is now following you", "Bob", "Alice", false),
+                new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true)));
+
+        assertEquals(1, alice.getReceivedNotifications().size());
+        assertEquals(GameEvents.LEVEL_UP, alice.getReceivedNotifications().get(0).type());
+        subject.close();
+        assertEquals(2, alice.getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testDigestIsDeliveredWhenTheWindowEnds() throws InterruptedException {
+        CoalescingSubject subject = new CoalescingSubject(new SubjectImpl(), Duration.ofMillis(20), GameEvents.ITEM_ACQUIRED);
+        ObserverImpl alice = new ObserverImpl("Alice");
+        alice.enableNotification(GameEvents.ITEM_ACQUIRED);
+        subject.registerObserver(alice);
+
+        for (int i = 0; i < 3; i++) {
+            subject.notifyObservers(new Notification(GameEvents.ITEM_ACQUIRED, "Bob acquired item" + i, "Bob", "Bob", true));
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (alice.getReceivedNotifications().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(1, alice.getReceivedNotifications().size());
+        assertEquals("Bob acquired 3 new items", alice.getReceivedNotifications().get(0).message());
+        subject.close();
+    }
+
+    @Test
+    public void testNotificationsAfterCloseAreDeliveredDirectly() {
+        CoalescingSubject subject = new CoalescingSubject(new SubjectImpl(), Duration.ofMinutes(1), SocialEvents.NEW_FOLLOWER);
+        ObserverImpl alice = new ObserverImpl("Alice");
+        alice.enableNotification(SocialEvents.NEW_FOLLOWER);
+        subject.registerObserver(alice);
+        subject.close();
+
+        subject.notifyObservers(new Notification(SocialEvents.NEW_FOLLOWER, "Bob is now following you", "Bob", "Alice", false));
+
+        assertEquals(1, alice.getReceivedNotifications().size());
+        assertEquals(0, subject.getPendingCount());
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.observers;
+import static org.junit.Assert.*;
+import org.example.events.GameEvents;
+import org.example.model.Notification;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+public class DeduplicatingSubjectTest
+{
+    @Test
+    public void testRetriedPublishIsDeliveredOnceWithinTheWindow() {
+        ManualClock clock = new ManualClock();
+        DeduplicatingSubject subject = new DeduplicatingSubject(new SubjectImpl(), Duration.ofMinutes(1), 1000, clock);
+        ObserverImpl alice = new ObserverImpl("Alice");
+        alice.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(alice);
+
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true).withIdempotencyKey("req-1"));
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true).withIdempotencyKey("req-1"));
+        subject.notifyObservers(List.of(
+                new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true).withIdempotencyKey("req-2"),
+                new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true).withIdempotencyKey("req-1"),
+                new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true),
+                new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true)));
+        assertEquals(4, alice.getReceivedNotifications().size());
+        assertEquals(2, subject.getDuplicateCount());
+
+        clock.advance(Duration.ofMinutes(1));
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true).withIdempotencyKey("req-1"));
+        assertEquals(5, alice.getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testFullCacheEvictsOldestKeys() {
+        DeduplicatingSubject subject = new DeduplicatingSubject(new SubjectImpl(), Duration.ofMinutes(1), 2,
+                Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+        ObserverImpl alice = new ObserverImpl("Alice");
+        alice.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(alice);
+
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true).withIdempotencyKey("req-1"));
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true).withIdempotencyKey("req-2"));
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true).withIdempotencyKey("req-3"));
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true).withIdempotencyKey("req-3"));
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", true).withIdempotencyKey("req-1"));
+
+        assertEquals(4, alice.getReceivedNotifications().size());
+        assertEquals(1, subject.getDuplicateCount());
+        assertEquals(2, subject.getEvictedEarlyCount());
+    }
+
+    /**
+     * Clock that only moves when the test advances it.
+     */
+    private static final class ManualClock extends Clock {
+        private volatile Instant now = Instant.EPOCH;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
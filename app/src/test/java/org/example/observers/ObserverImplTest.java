@@ -1,6 +1,8 @@
 package org.example.observers;
 import static org.junit.Assert.*;
+import org.example.events.EventTypes;
 import org.example.events.GameEvents;
+import org.example.events.SocialEvents;
 import org.example.exceptions.InvalidInputException;
 import org.example.model.Notification;
 import org.junit.Before;
@@ -46,4 +48,21 @@ public class ObserverImplTest
         assertEquals("You leveled up!", received.get(0).message());
     }
 
+    @Test
+    public void testEnableNotificationsWithMask() {
+        observer.enableNotifications(EventTypes.maskOf(GameEvents.LEVEL_UP, SocialEvents.NEW_FOLLOWER));
+        observer.disableNotifications(GameEvents.LEVEL_UP.mask());
+
+        assertFalse(observer.isNotificationEnabled(GameEvents.LEVEL_UP));
+        assertTrue(observer.isNotificationEnabled(SocialEvents.NEW_FOLLOWER));
+    }
+
+    @Test
+    public void testGameAndSocialPvpAreDistinctPreferences() {
+        observer.enableNotification(GameEvents.PVP);
+
+        assertTrue(observer.isNotificationEnabled(GameEvents.PVP));
+        assertFalse(observer.isNotificationEnabled(SocialEvents.PVP));
+    }
+
 }
@@ -0,0 +1,134 @@
+package org.example.observers;
+
+import org.example.events.GameEvents;
+import org.example.events.Priority;
+import org.example.model.Notification;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PrioritySubjectTest
+{
+    @Test
+    public void testHighPriorityOvertakesQueuedLowPriority() throws InterruptedException {
+        BlockingDelegate delegate = new BlockingDelegate();
+        PrioritySubject subject = PrioritySubject.builder(delegate).build();
+
+        subject.notifyObservers(new Notification(GameEvents.ITEM_ACQUIRED, "blocker", "system", "player1", true));
+        assertTrue(delegate.busy.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            subject.notifyObservers(new Notification(GameEvents.ACHIEVEMENT_COMPLETED, "low" + i, "system", "player1", true));
+        }
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "normal", "system", "player1", true));
+        subject.notifyObservers(new Notification(GameEvents.PVP, "attacked", "system", "player1", true));
+        delegate.release.countDown();
+        subject.close();
+
+        assertEquals(List.of("blocker", "attacked", "normal", "low0", "low1", "low2"), delegate.messages);
+        assertEquals(1, subject.laneMetrics(Priority.HIGH).getDelivered());
+        assertEquals(4, subject.laneMetrics(Priority.LOW).getDelivered());
+        assertEquals(0, subject.laneMetrics(Priority.LOW).getQueueDepth());
+    }
+
+    @Test
+    public void testOverdueLowerLaneIsServedBeforeHigherLane() throws InterruptedException {
+        BlockingDelegate delegate = new BlockingDelegate();
+        PrioritySubject subject = PrioritySubject.builder(delegate)
+                .starvationThreshold(Duration.ofMillis(1))
+                .build();
+
+        subject.notifyObservers(new Notification(GameEvents.PVP, "blocker", "system", "player1", true));
+        assertTrue(delegate.busy.await(5, TimeUnit.SECONDS));
+        subject.notifyObservers(new Notification(GameEvents.ITEM_ACQUIRED, "low", "system", "player1", true));
+        for (int i = 0; i < 100; i++) {
+            subject.notifyObservers(new Notification(GameEvents.PVP, "high" + i, "system", "player1", true));
+        }
+        Thread.sleep(5);
+        delegate.release.countDown();
+        subject.close();
+
+        assertEquals(102, delegate.messages.size());
+        assertEquals("low", delegate.messages.get(1));
+        assertEquals(1, subject.laneMetrics(Priority.LOW).getStarvationPromotions());
+    }
+
+    @Test
+    public void testBuilderOverridesTheTypePriority() throws InterruptedException {
+        BlockingDelegate delegate = new BlockingDelegate();
+        PrioritySubject subject = PrioritySubject.builder(delegate)
+                .priority(GameEvents.ITEM_ACQUIRED, Priority.HIGH)
+                .build();
+
+        assertEquals(Priority.HIGH, subject.priorityOf(GameEvents.ITEM_ACQUIRED));
+        assertEquals(Priority.LOW, subject.priorityOf(GameEvents.ACHIEVEMENT_COMPLETED));
+        delegate.release.countDown();
+        subject.close();
+    }
+
+    @Test
+    public void testEveryAcceptedNotificationIsDeliveredWhenClosedConcurrently() throws InterruptedException {
+        BlockingDelegate delegate = new BlockingDelegate();
+        delegate.release.countDown();
+        PrioritySubject subject = PrioritySubject.builder(delegate).laneCapacity(4).build();
+        AtomicInteger accepted = new AtomicInteger();
+        Thread[] publishers = new Thread[4];
+        for (int t = 0; t < publishers.length; t++) {
+            publishers[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 10_000; i++) {
+                        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "player1 leveled up!", "player1", "player1", true));
+                        accepted.incrementAndGet();
+                    }
+                } catch (IllegalStateException e) {
+                    // closed
+                }
+            });
+            publishers[t].start();
+        }
+
+        Thread.sleep(5);
+        subject.close();
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+
+        assertEquals(accepted.get(), delegate.messages.size());
+        assertEquals(0, subject.laneMetrics(Priority.NORMAL).getQueueDepth());
+    }
+
+    /**
+     * Records the messages it is asked to deliver, holding the first delivery until released.
+     */
+    private static final class BlockingDelegate implements Subject {
+        private final CountDownLatch busy = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void registerObserver(Observer o) {
+        }
+
+        @Override
+        public void unregisterObserver(Observer o) {
+        }
+
+        @Override
+        public void notifyObservers(Notification notification) {
+            busy.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            messages.add(notification.message());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.observers;
+import static org.junit.Assert.*;
+import org.example.events.GameEvents;
+import org.example.model.Notification;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RateLimitingSubjectTest
+{
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testDropPolicyRefillsOverTime() {
+        AtomicLong clock = new AtomicLong();
+        RateLimitingSubject subject = RateLimitingSubject.builder(new SubjectImpl())
+                .limit(GameEvents.PVP, 3, Duration.ofSeconds(1), RateLimitingSubject.OverLimitPolicy.DROP)
+                .nanoClock(clock::get)
+                .build();
+        ObserverImpl alice = new ObserverImpl("Alice");
+        alice.enableNotification(GameEvents.PVP);
+        alice.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(alice);
+        ObserverImpl charlie = new ObserverImpl("Charlie");
+        charlie.enableNotification(GameEvents.PVP);
+        charlie.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(charlie);
+
+        for (int i = 0; i < 10; i++) {
+            subject.notifyObservers(new Notification(GameEvents.PVP, "Alice is being attacked (" + i + ")", "Bob", "Alice", false));
+        }
+        subject.notifyObservers(new Notification(GameEvents.PVP, "Charlie is being attacked (0)", "Bob", "Charlie", false));
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Alice leveled up!", "Alice", "Alice", false));
+        clock.addAndGet(SECOND);
+        subject.notifyObservers(new Notification(GameEvents.PVP, "Alice is being attacked (10)", "Bob", "Alice", false));
+        subject.notifyObservers(new Notification(GameEvents.PVP, "Alice is being attacked (11)", "Bob", "Alice", false));
+        subject.close();
+
+        assertEquals(5, alice.getReceivedNotifications().size());
+        assertEquals("Alice is being attacked (10)", alice.getReceivedNotifications().get(4).message());
+        assertEquals(1, charlie.getReceivedNotifications().size());
+        assertEquals(5, subject.getAllowedCount());
+        assertEquals(8, subject.getDroppedCount());
+    }
+
+    @Test
+    public void testDeferPolicyDeliversLaterAndDropsBeyondOneBucket() {
+        AtomicLong clock = new AtomicLong();
+        RateLimitingSubject subject = RateLimitingSubject.builder(new SubjectImpl())
+                .limit(GameEvents.PVP, 2, Duration.ofHours(1), RateLimitingSubject.OverLimitPolicy.DEFER)
+                .nanoClock(clock::get)
+                .build();
+        ObserverImpl alice = new ObserverImpl("Alice");
+        alice.enableNotification(GameEvents.PVP);
+        alice.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(alice);
+
+        for (int i = 0; i < 5; i++) {
+            subject.notifyObservers(new Notification(GameEvents.PVP, "Alice is being attacked (" + i + ")", "Bob", "Alice", false));
+        }
+        assertEquals(2, alice.getReceivedNotifications().size());
+        subject.close();
+
+        assertEquals(4, alice.getReceivedNotifications().size());
+        assertEquals("Alice is being attacked (3)", alice.getReceivedNotifications().get(3).message());
+        assertEquals(2, subject.getDeferredCount());
+        assertEquals(1, subject.getDroppedCount());
+    }
+
+    @Test
+    public void testCoalescePolicyMergesNotificationsOverTheLimit() {
+        AtomicLong clock = new AtomicLong();
+        RateLimitingSubject subject = RateLimitingSubject.builder(new SubjectImpl())
+                .limit(GameEvents.PVP, 2, Duration.ofHours(1), RateLimitingSubject.OverLimitPolicy.COALESCE)
+                .nanoClock(clock::get)
+                .build();
+        ObserverImpl alice = new ObserverImpl("Alice");
+        alice.enableNotification(GameEvents.PVP);
+        alice.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(alice);
+
+        subject.notifyObservers(List.of(
+                new Notification(GameEvents.PVP, "Alice is being attacked (0)", "Bob", "Alice", false),
+                new Notification(GameEvents.PVP, "Alice is being attacked (1)", "Bob", "Alice", false),
+                new Notification(GameEvents.PVP, "Alice is being attacked (2)", "Bob", "Alice", false)));
+        for (int i = 3; i < 10; i++) {
+            subject.notifyObservers(new Notification(GameEvents.PVP, "Alice is being attacked (" + i + ")", "Bob", "Alice", false));
+        }
+        assertEquals(2, alice.getReceivedNotifications().size());
+        subject.close();
+
+        List<Notification> received = alice.getReceivedNotifications();
+        assertEquals(3, received.size());
+        assertEquals("8 new notifications, latest: Alice is being attacked (9)", received.get(2).message());
+        assertEquals(8, subject.getCoalescedCount());
+    }
+
+    @Test
+    public void testFullBucketsAreEvicted() {
+        AtomicLong clock = new AtomicLong();
+        RateLimitingSubject subject = RateLimitingSubject.builder(new SubjectImpl())
+                .limit(GameEvents.PVP, 5, Duration.ofSeconds(1), RateLimitingSubject.OverLimitPolicy.DROP)
+                .nanoClock(clock::get)
+                .build();
+        for (int i = 0; i < 1000; i++) {
+            subject.notifyObservers(new Notification(GameEvents.PVP, "player" + i + " is being attacked (0)", "Bob", "player" + i, false));
+        }
+        assertEquals(1000, subject.getTrackedBucketCount());
+
+        clock.addAndGet(SECOND);
+        assertEquals(1000, subject.evictFullBuckets());
+        assertEquals(0, subject.getTrackedBucketCount());
+        subject.close();
+    }
+
+    @Test
+    public void testNotificationsAfterCloseAreNotLimited() {
+        RateLimitingSubject subject = RateLimitingSubject.builder(new SubjectImpl())
+                .limit(GameEvents.PVP, 1, Duration.ofHours(1), RateLimitingSubject.OverLimitPolicy.DEFER)
+                .build();
+        ObserverImpl alice = new ObserverImpl("Alice");
+        alice.enableNotification(GameEvents.PVP);
+        subject.registerObserver(alice);
+        subject.close();
+
+        for (int i = 0; i < 3; i++) {
+            subject.notifyObservers(new Notification(GameEvents.PVP, "Alice is being attacked (" + i + ")", "Bob", "Alice", false));
+        }
+
+        assertEquals(3, alice.getReceivedNotifications().size());
+        assertEquals(0, subject.getDeferredCount());
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.observers;
+import static org.junit.Assert.*;
+import org.example.delivery.NoOpSink;
+import org.example.events.GameEvents;
+import org.example.events.SocialEvents;
+import org.example.model.Audience;
+import org.example.model.Notification;
+import org.example.social.SocialGraph;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShardedSubjectTest
+{
+    @Test
+    public void testBroadcastReachesUsersOnEveryShard() throws InterruptedException {
+        ShardedSubject subject = new ShardedSubject(4);
+        List<ObserverImpl> observers = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            ObserverImpl observer = new ObserverImpl("player" + i);
+            observer.enableNotification(GameEvents.LEVEL_UP);
+            subject.registerObserver(observer);
+            observers.add(observer);
+        }
+
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "player0 leveled up!", "player0", "player0", true));
+        subject.close();
+
+        for (ObserverImpl observer : observers) {
+            assertEquals(1, observer.getReceivedNotifications().size());
+        }
+    }
+
+    @Test
+    public void testUserReceivesNotificationsInPublishingOrder() throws InterruptedException {
+        ShardedSubject subject = new ShardedSubject(8);
+        ObserverImpl alice = new ObserverImpl("Alice", 1000);
+        alice.enableNotification(SocialEvents.NEW_FOLLOWER);
+        alice.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(alice);
+
+        for (int i = 0; i < 1000; i++) {
+            if (i % 2 == 0) {
+                subject.notifyObservers(new Notification(SocialEvents.NEW_FOLLOWER, String.valueOf(i), "follower", "Alice", false));
+            } else {
+                subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, String.valueOf(i), "player" + i, "player" + i, true));
+            }
+        }
+        subject.close();
+
+        List<Notification> received = alice.getReceivedNotifications();
+        assertEquals(1000, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(String.valueOf(i), received.get(i).message());
+        }
+    }
+
+    @Test
+    public void testAudienceIsResolvedAcrossShards() throws InterruptedException {
+        SocialGraph graph = new SocialGraph();
+        ShardedSubject subject = new ShardedSubject(4, graph);
+        List<ObserverImpl> observers = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            ObserverImpl observer = new ObserverImpl("player" + i, i, 10, new NoOpSink());
+            observer.enableNotification(GameEvents.ITEM_ACQUIRED);
+            subject.registerObserver(observer);
+            observers.add(observer);
+        }
+        for (int i = 1; i < 32; i += 2) {
+            graph.addFriendship(0, i);
+        }
+
+        subject.notifyObservers(Notification.builder(GameEvents.ITEM_ACQUIRED).message("player0 got a sword")
+                .sender("player0").recipient("player0").audience(Audience.friendsOf("player0")).build());
+        subject.notifyObservers(Notification.builder(GameEvents.ITEM_ACQUIRED).message("player0 got a shield")
+                .sender("player0").recipient("player0").audience(Audience.explicit("player2", "player4")).build());
+        subject.close();
+
+        for (int i = 0; i < 32; i++) {
+            int expected = i % 2 == 1 || i == 2 || i == 4 ? 1 : 0;
+            assertEquals(expected, observers.get(i).getReceivedNotifications().size());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotificationsAfterCloseAreRejected() {
+        ShardedSubject subject = new ShardedSubject(4);
+        subject.close();
+
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "player1 leveled up!", "player1", "player1", true));
+    }
+}
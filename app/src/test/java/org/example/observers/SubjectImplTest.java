@@ -0,0 +1,389 @@
+package org.example.observers;
+import static org.junit.Assert.*;
+import org.example.delivery.DeliverySink;
+import org.example.delivery.NoOpSink;
+import org.example.events.GameEvents;
+import org.example.events.SocialEvents;
+import org.example.model.Audience;
+import org.example.model.Notification;
+import org.example.social.SocialGraph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by Michael Garcia on 18/03/25
+ */
+public class SubjectImplTest
+{
+    private SubjectImpl subject;
+    private ObserverImpl observer1;
+    private ObserverImpl observer2;
+    @Before
+    public void setUp()
+    {
+        subject = new SubjectImpl();
+        observer1 = new ObserverImpl("player1");
+        observer2 = new ObserverImpl("player2");
+        subject.registerObserver(observer1);
+        subject.registerObserver(observer2);
+    }
+
+    @Test
+    public void testObserversRegistered() {
+        assertTrue(observer1.getReceivedNotifications().isEmpty());
+        assertTrue(observer2.getReceivedNotifications().isEmpty());
+    }
+
+    @Test
+    public void testNotifyObserverForSpecificRecipient() {
+        observer1.enableNotification(GameEvents.CHALLENGE_COMPLETED);
+
+        Notification notification = new Notification(GameEvents.CHALLENGE_COMPLETED, "Mission unlocked!", "system", "player1", false);
+        subject.notifyObservers(notification);
+
+        assertEquals(1, observer1.getReceivedNotifications().size());
+        assertEquals(0, observer2.getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testNotifyObserversForGlobalEvent() {
+        observer1.enableNotification(GameEvents.LEVEL_UP);
+        observer2.enableNotification(GameEvents.LEVEL_UP);
+
+        Notification notification = new Notification(GameEvents.LEVEL_UP, "Global level up!", "system", "player1", true);
+        subject.notifyObservers(notification);
+
+        assertEquals(1, observer1.getReceivedNotifications().size());
+        assertEquals(1, observer2.getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testObserverIgnoresDisabledNotifications() {
+        observer1.enableNotification(GameEvents.LEVEL_UP);
+
+        Notification notification = new Notification(GameEvents.LEVEL_UP, "You leveled up!", "system", "player1", false);
+        subject.notifyObservers(notification);
+
+        assertEquals(1, observer1.getReceivedNotifications().size());
+        assertEquals(0, observer2.getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testTargetedNotificationForUnknownRecipientIsDropped() {
+        observer1.enableNotification(GameEvents.LEVEL_UP);
+        observer2.enableNotification(GameEvents.LEVEL_UP);
+
+        Notification notification = new Notification(GameEvents.LEVEL_UP, "You leveled up!", "system", "player3", false);
+        subject.notifyObservers(notification);
+
+        assertTrue(observer1.getReceivedNotifications().isEmpty());
+        assertTrue(observer2.getReceivedNotifications().isEmpty());
+    }
+
+    @Test
+    public void testTargetedNotificationWithStaleIndexReachesItsRecipient() {
+        ObserverImpl player4 = new ObserverImpl("player4", 0, 16, new NoOpSink());
+        ObserverImpl player5 = new ObserverImpl("player5", 1, 16, new NoOpSink());
+        player4.enableNotification(GameEvents.LEVEL_UP);
+        player5.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(player4);
+        subject.registerObserver(player5);
+
+        subject.notifyObservers(Notification.builder(GameEvents.LEVEL_UP)
+                .message("You leveled up!")
+                .recipient("player5", 0)
+                .build());
+
+        assertTrue(player4.getReceivedNotifications().isEmpty());
+        assertEquals(1, player5.getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testTargetedNotificationReachesUnboundObservers() {
+        List<Notification> received = new ArrayList<>();
+        subject.registerObserver(received::add);
+        observer1.enableNotification(GameEvents.CHALLENGE_COMPLETED);
+
+        Notification notification = new Notification(GameEvents.CHALLENGE_COMPLETED, "Mission unlocked!", "system", "player1", false);
+        subject.notifyObservers(notification);
+
+        assertEquals(1, observer1.getReceivedNotifications().size());
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    public void testBroadcastFollowsPreferenceChangesAfterRegistration() {
+        observer1.enableNotification(GameEvents.LEVEL_UP);
+        observer2.enableNotification(GameEvents.LEVEL_UP);
+        observer2.disableNotification(GameEvents.LEVEL_UP);
+
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Global level up!", "system", "player1", true));
+
+        assertEquals(1, observer1.getReceivedNotifications().size());
+        assertEquals(0, observer2.getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testPreferencesEnabledBeforeRegistrationAreIndexed() {
+        ObserverImpl observer3 = new ObserverImpl("player3");
+        observer3.enableNotification(GameEvents.ITEM_ACQUIRED);
+        subject.registerObserver(observer3);
+
+        subject.notifyObservers(new Notification(GameEvents.ITEM_ACQUIRED, "New item!", "system", "player1", true));
+
+        assertEquals(1, observer3.getReceivedNotifications().size());
+        assertEquals(0, observer1.getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testBatchDeliversMatchingNotificationsInPublishingOrder() {
+        observer1.enableNotification(GameEvents.LEVEL_UP);
+        observer1.enableNotification(SocialEvents.NEW_FOLLOWER);
+        observer2.enableNotification(GameEvents.ITEM_ACQUIRED);
+
+        subject.notifyObservers(List.of(
+                new Notification(GameEvents.LEVEL_UP, "first", "player2", "player2", true),
+                new Notification(SocialEvents.NEW_FOLLOWER, "second", "player2", "player1", false),
+                new Notification(GameEvents.ITEM_ACQUIRED, "third", "player1", "player1", true),
+                new Notification(GameEvents.LEVEL_UP, "fourth", "player2", "player2", true)));
+
+        List<Notification> received = observer1.getReceivedNotifications();
+        assertEquals(3, received.size());
+        assertEquals("first", received.get(0).message());
+        assertEquals("second", received.get(1).message());
+        assertEquals("fourth", received.get(2).message());
+        assertEquals(1, observer2.getReceivedNotifications().size());
+        assertEquals("third", observer2.getReceivedNotifications().get(0).message());
+    }
+
+    @Test
+    public void testUnregisteredObserverNoLongerReceivesNotifications() {
+        observer1.enableNotification(GameEvents.LEVEL_UP);
+        observer2.enableNotification(GameEvents.LEVEL_UP);
+        subject.unregisterObserver(observer2);
+
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Global level up!", "system", "player1", true));
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "You leveled up!", "system", "player2", false));
+
+        assertEquals(1, observer1.getReceivedNotifications().size());
+        assertTrue(observer2.getReceivedNotifications().isEmpty());
+    }
+
+    @Test
+    public void testUnregisteringMovesTheLastSubscriberIntoTheFreedSlot() {
+        ObserverImpl observer3 = new ObserverImpl("player3");
+        observer3.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(observer3);
+        observer1.enableNotification(GameEvents.LEVEL_UP);
+        observer2.enableNotification(GameEvents.ITEM_ACQUIRED);
+        subject.unregisterObserver(observer1);
+        observer3.disableNotification(GameEvents.LEVEL_UP);
+        observer3.enableNotification(GameEvents.ITEM_ACQUIRED);
+        subject.registerObserver(observer1);
+
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Global level up!", "system", "player1", true));
+        subject.notifyObservers(new Notification(GameEvents.ITEM_ACQUIRED, "New item!", "system", "player1", true));
+
+        assertEquals(1, observer1.getReceivedNotifications().size());
+        assertEquals(1, observer2.getReceivedNotifications().size());
+        assertEquals(1, observer3.getReceivedNotifications().size());
+        assertEquals(GameEvents.ITEM_ACQUIRED, observer3.getReceivedNotifications().get(0).type());
+    }
+
+    @Test
+    public void testRegisterObserversInBulk() {
+        ObserverImpl observer3 = new ObserverImpl("player3");
+        ObserverImpl observer4 = new ObserverImpl("player4");
+        observer3.enableNotification(GameEvents.LEVEL_UP);
+        observer4.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObservers(List.of(observer3, observer4));
+
+        subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "You leveled up!", "system", "player4", false));
+
+        assertTrue(observer3.getReceivedNotifications().isEmpty());
+        assertEquals(1, observer4.getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testTargetedNotificationResolvesRecipientByIndex() {
+        ObserverImpl indexed = new ObserverImpl("player3", 7, 10, new NoOpSink());
+        indexed.enableNotification(GameEvents.LEVEL_UP);
+        subject.registerObserver(indexed);
+
+        subject.notifyObservers(Notification.builder(GameEvents.LEVEL_UP)
+                .message("You leveled up!")
+                .recipient("player3", 7)
+                .build());
+
+        assertEquals(1, indexed.getReceivedNotifications().size());
+    }
+
+
+    @Test
+    public void testExplicitAudienceOnlyReachesListedUsers() {
+        ObserverImpl observer3 = new ObserverImpl("player3");
+        subject.registerObserver(observer3);
+        observer1.enableNotification(GameEvents.PVP);
+        observer2.enableNotification(GameEvents.PVP);
+        observer3.enableNotification(GameEvents.PVP);
+
+        subject.notifyObservers(Notification.builder(GameEvents.PVP).message("player1 is being attacked by player2")
+                .sender("player2").recipient("player1").audience(Audience.explicit("player1", "player2", "player1"))
+                .build());
+
+        assertEquals(1, observer1.getReceivedNotifications().size());
+        assertEquals(1, observer2.getReceivedNotifications().size());
+        assertTrue(observer3.getReceivedNotifications().isEmpty());
+    }
+
+    @Test
+    public void testFriendAndFollowerAudiencesAreResolvedFromTheSocialGraph() {
+        SocialGraph graph = new SocialGraph();
+        SubjectImpl graphSubject = new SubjectImpl(graph);
+        List<ObserverImpl> users = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ObserverImpl user = new ObserverImpl("user" + i, i, 10, new NoOpSink());
+            user.enableNotification(GameEvents.ITEM_ACQUIRED);
+            graphSubject.registerObserver(user);
+            users.add(user);
+        }
+        graph.addFriendship(0, 1);
+        graph.addFollower(0, 2);
+
+        graphSubject.notifyObservers(Notification.builder(GameEvents.ITEM_ACQUIRED).message("user0 got a sword")
+                .sender("user0").recipient("user0").audience(Audience.friendsOf("user0")).build());
+        graphSubject.notifyObservers(List.of(Notification.builder(GameEvents.ITEM_ACQUIRED).message("user0 got a shield")
+                .sender("user0").recipient("user0").audience(new Audience.FollowersOf("user0", 0)).build()));
+
+        assertTrue(users.get(0).getReceivedNotifications().isEmpty());
+        assertEquals("user0 got a sword", users.get(1).getReceivedNotifications().get(0).message());
+        assertEquals(1, users.get(1).getReceivedNotifications().size());
+        assertEquals("user0 got a shield", users.get(2).getReceivedNotifications().get(0).message());
+        assertEquals(1, users.get(2).getReceivedNotifications().size());
+        assertTrue(users.get(3).getReceivedNotifications().isEmpty());
+    }
+
+    @Test
+    public void testFollowersOfHighFollowerUserPullFromOutboxOnRead() {
+        SocialGraph graph = new SocialGraph();
+        SubjectImpl hybridSubject = new SubjectImpl(graph, 2);
+        List<ObserverImpl> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ObserverImpl user = new ObserverImpl("user" + i, i, 10, new NoOpSink());
+            user.enableNotification(GameEvents.LEVEL_UP);
+            hybridSubject.registerObserver(user);
+            users.add(user);
+        }
+        users.get(3).disableNotification(GameEvents.LEVEL_UP);
+        graph.addFollower(0, 1);
+        graph.addFollower(0, 2);
+        graph.addFollower(0, 3);
+        graph.addFollower(4, 1);
+
+        hybridSubject.notifyObservers(Notification.builder(GameEvents.LEVEL_UP).message("user0 leveled up")
+                .sender("user0").recipient("user0").audience(Audience.followersOf("user0")).build());
+        hybridSubject.notifyObservers(Notification.builder(GameEvents.LEVEL_UP).message("user4 leveled up")
+                .sender("user4").recipient("user4").audience(Audience.followersOf("user4")).build());
+
+        assertEquals(1, hybridSubject.outboxOf(0).size());
+        assertNull(hybridSubject.outboxOf(4));
+        List<Notification> received = users.get(1).getReceivedNotifications();
+        assertEquals(List.of("user4 leveled up", "user0 leveled up"),
+                received.stream().map(Notification::message).toList());
+        assertEquals(2, users.get(1).getReceivedNotifications().size());
+        assertEquals(1, users.get(2).getInbox().size());
+        assertTrue(users.get(3).getReceivedNotifications().isEmpty());
+        assertTrue(users.get(4).getReceivedNotifications().isEmpty());
+    }
+
+    @Test
+    public void testOutboxReadersOnlyPullWhatWasPublishedForThem() {
+        SocialGraph graph = new SocialGraph();
+        SubjectImpl hybridSubject = new SubjectImpl(graph, 1);
+        List<ObserverImpl> users = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ObserverImpl user = new ObserverImpl("user" + i, i, 10, new NoOpSink());
+            user.enableNotification(GameEvents.LEVEL_UP);
+            hybridSubject.registerObserver(user);
+            users.add(user);
+        }
+        graph.addFollower(0, 1);
+        graph.addFollower(0, 2);
+        hybridSubject.notifyObservers(Notification.builder(GameEvents.LEVEL_UP).message("first")
+                .sender("user0").recipient("user0").audience(Audience.followersOf("user0")).build());
+        users.get(1).disableNotification(GameEvents.LEVEL_UP);
+        graph.addFollower(0, 3);
+        hybridSubject.unregisterObserver(users.get(2));
+        ObserverImpl reregistered = new ObserverImpl("user2", 2, 10, new NoOpSink());
+        reregistered.enableNotification(GameEvents.LEVEL_UP);
+        hybridSubject.registerObserver(reregistered);
+        hybridSubject.notifyObservers(Notification.builder(GameEvents.LEVEL_UP).message("second")
+                .sender("user0").recipient("user0").audience(Audience.followersOf("user0")).build());
+
+        assertEquals(List.of("first"),
+                users.get(1).getReceivedNotifications().stream().map(Notification::message).toList());
+        assertEquals(List.of("second"),
+                reregistered.getReceivedNotifications().stream().map(Notification::message).toList());
+        assertEquals(List.of("second"),
+                users.get(3).getReceivedNotifications().stream().map(Notification::message).toList());
+    }
+
+    @Test
+    public void testConcurrentPreferenceChangesLeaveTheSubscriptionsInTheFinalState() throws InterruptedException {
+        for (int round = 0; round < 50; round++) {
+            ObserverImpl observer = new ObserverImpl("racer" + round, 0, 10, new NoOpSink());
+            subject.registerObserver(observer);
+            Thread enabler = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    observer.enableNotification(GameEvents.LEVEL_UP);
+                }
+            });
+            Thread disabler = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    observer.disableNotification(GameEvents.LEVEL_UP);
+                }
+            });
+            enabler.start();
+            disabler.start();
+            enabler.join();
+            disabler.join();
+
+            subject.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Global level up!", "system", "player1", true));
+
+            assertEquals(observer.isNotificationEnabled(GameEvents.LEVEL_UP) ? 1 : 0, observer.getReceivedNotifications().size());
+        }
+    }
+
+    @Test
+    public void testBroadcastReachesSubscribersInRegistrationOrder() {
+        SubjectImpl ordered = new SubjectImpl();
+        List<String> single = new ArrayList<>();
+        List<String> batched = new ArrayList<>();
+        List<String> registered = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ObserverImpl observer = new ObserverImpl("user" + (100 - i), 0, 10, new DeliverySink() {
+                @Override
+                public void deliver(String userId, Notification notification) {
+                    single.add(userId);
+                }
+
+                @Override
+                public void deliverAll(String userId, List<Notification> notifications) {
+                    batched.add(userId);
+                }
+            });
+            observer.enableNotification(GameEvents.LEVEL_UP);
+            ordered.registerObserver(observer);
+            registered.add(observer.getUserId());
+        }
+
+        ordered.notifyObservers(new Notification(GameEvents.LEVEL_UP, "Global level up!", "system", "player1", true));
+        ordered.notifyObservers(List.of(new Notification(GameEvents.LEVEL_UP, "Global level up!", "system", "player1", true)));
+
+        assertEquals(registered, single);
+        assertEquals(registered, batched);
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.persistence;
+
+import org.example.events.GameEvents;
+import org.example.model.Audience;
+import org.example.model.MessageTemplate;
+import org.example.model.Notification;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class NotificationLogTest
+{
+    private static final int SMALL_SEGMENT = 128 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplayReturnsRecordsInAppendOrder() throws Exception
+    {
+        Path dir = folder.getRoot().toPath();
+        Notification notification = Notification.builder(GameEvents.ITEM_ACQUIRED)
+                .template(MessageTemplate.ITEM_ACQUIRED, "Alice", "Sword")
+                .sender("Alice")
+                .audience(Audience.explicit("Bob", "Charlie"))
+                .idempotencyKey("item-1")
+                .build();
+        List<LogRecord> written = List.of(
+                new LogRecord.UserRegistered("Alice"),
+                new LogRecord.PreferencesChanged("Alice", GameEvents.LEVEL_UP.mask()),
+                new LogRecord.FriendRequestAdded("Alice", "Bob"),
+                new LogRecord.FollowerAdded("Alice", "Bob"),
+                new LogRecord.NotificationPublished(notification));
+
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            written.forEach(log::append);
+            log.sync();
+            assertEquals(log.appendedPosition(), log.durablePosition());
+        }
+
+        List<LogRecord> replayed = new ArrayList<>();
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            log.replay(replayed::add);
+        }
+        assertEquals(written, replayed);
+        Notification restored = ((LogRecord.NotificationPublished) replayed.get(4)).notification();
+        assertEquals("item-1", restored.idempotencyKey());
+        assertEquals(notification.message(), restored.message());
+    }
+
+    @Test
+    public void testRecordNamingAnUnknownTypeIsRejected()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        LogRecordCodec.encode(new LogRecord.NotificationPublished(Notification.builder(GameEvents.PVP)
+                .message("Alice is being attacked")
+                .sender("Bob")
+                .recipient("Alice")
+                .build()), buffer);
+        buffer.flip();
+        // Rename GameEvents.PVP to a type this version does not have, as a later version might write.
+        buffer.put(1 + Integer.BYTES + "GameEvents.".length(), "XYZ".getBytes(StandardCharsets.UTF_8));
+
+        try
+        {
+            LogRecordCodec.decode(buffer);
+            fail("Expected the unknown type to be rejected");
+        } catch (IllegalStateException e)
+        {
+            assertEquals("Unknown event type GameEvents.XYZ", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testAppendsRollOverToNewSegments() throws Exception
+    {
+        Path dir = folder.getRoot().toPath();
+        try (NotificationLog log = NotificationLog.open(dir, SMALL_SEGMENT, Duration.ofMillis(1)))
+        {
+            for (int i = 0; i < 10_000; i++)
+            {
+                log.append(new LogRecord.UserRegistered("user-" + i));
+            }
+        }
+        assertTrue(segmentCount(dir) > 1);
+
+        List<LogRecord> replayed = new ArrayList<>();
+        try (NotificationLog log = NotificationLog.open(dir, SMALL_SEGMENT, Duration.ofMillis(1)))
+        {
+            log.replay(replayed::add);
+        }
+        assertEquals(10_000, replayed.size());
+        assertEquals(new LogRecord.UserRegistered("user-9999"), replayed.get(9_999));
+    }
+
+    @Test
+    public void testReopenedLogContinuesAfterLastRecord() throws Exception
+    {
+        Path dir = folder.getRoot().toPath();
+        long firstEnd;
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            firstEnd = log.append(new LogRecord.UserRegistered("Alice"));
+        }
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            assertEquals(firstEnd, log.appendedPosition());
+            log.append(new LogRecord.UserRegistered("Bob"));
+        }
+
+        List<LogRecord> replayed = new ArrayList<>();
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            log.replay(firstEnd, replayed::add);
+        }
+        assertEquals(List.of(new LogRecord.UserRegistered("Bob")), replayed);
+    }
+
+    @Test
+    public void testReopenedLogDropsRecordsAfterTornRecord() throws Exception
+    {
+        Path dir = folder.getRoot().toPath();
+        long firstEnd;
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            firstEnd = log.append(new LogRecord.UserRegistered("Alice"));
+            log.append(new LogRecord.UserRegistered("Bob"));
+            log.append(new LogRecord.UserRegistered("Charlie"));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir))
+        {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE))
+        {
+            file.write(ByteBuffer.wrap(new byte[] {-1}), firstEnd + 2 * Integer.BYTES + 1);
+        }
+
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            assertEquals(firstEnd, log.appendedPosition());
+            log.append(new LogRecord.UserRegistered("Dave"));
+        }
+
+        List<LogRecord> replayed = new ArrayList<>();
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            log.replay(replayed::add);
+        }
+        assertEquals(List.of(new LogRecord.UserRegistered("Alice"), new LogRecord.UserRegistered("Dave")), replayed);
+    }
+
+    @Test
+    public void testDeleteSegmentsBeforeKeepsLaterRecords() throws Exception
+    {
+        Path dir = folder.getRoot().toPath();
+        try (NotificationLog log = NotificationLog.open(dir, SMALL_SEGMENT, Duration.ofMillis(1)))
+        {
+            long middle = 0;
+            for (int i = 0; i < 30_000; i++)
+            {
+                long end = log.append(new LogRecord.UserRegistered("user-" + i));
+                if (i == 19_999)
+                {
+                    middle = end;
+                }
+            }
+            int segments = segmentCount(dir);
+
+            int deleted = log.deleteSegmentsBefore(middle);
+
+            assertTrue(deleted > 0);
+            assertEquals(segments - deleted, segmentCount(dir));
+            List<LogRecord> replayed = new ArrayList<>();
+            log.replay(middle, replayed::add);
+            assertEquals(10_000, replayed.size());
+            assertEquals(new LogRecord.UserRegistered("user-20000"), replayed.get(0));
+        }
+    }
+
+    private static int segmentCount(Path dir) throws IOException
+    {
+        try (Stream<Path> files = Files.list(dir))
+        {
+            return (int) files.count();
+        }
+    }
+}
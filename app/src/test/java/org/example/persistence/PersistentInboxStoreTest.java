@@ -0,0 +1,131 @@
+package org.example.persistence;
+
+import org.example.events.GameEvents;
+import org.example.events.SocialEvents;
+import org.example.model.InboxPage;
+import org.example.model.MessageTemplate;
+import org.example.model.Notification;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PersistentInboxStoreTest
+{
+    private static final int SMALL_SEGMENT = 80 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPagesReturnEveryNotificationInOrder() throws IOException
+    {
+        try (PersistentInboxStore store = PersistentInboxStore.open(folder.getRoot().toPath(), 4, SMALL_SEGMENT))
+        {
+            for (int i = 0; i < 500; i++)
+            {
+                store.deliver("Alice", Notification.templated(GameEvents.ITEM_ACQUIRED,
+                        MessageTemplate.ITEM_ACQUIRED, "Bob", null, true, "Bob", "item-" + i));
+                store.deliver("Bob", Notification.templated(GameEvents.ITEM_ACQUIRED,
+                        MessageTemplate.ITEM_ACQUIRED, "Alice", null, true, "Alice", "item-" + i));
+            }
+
+            List<Notification> read = new ArrayList<>();
+            long cursor = 0;
+            InboxPage page;
+            do
+            {
+                page = store.page("Alice", cursor, 37);
+                read.addAll(page.notifications());
+                cursor = page.nextCursor();
+            } while (!page.notifications().isEmpty());
+
+            assertEquals(500, read.size());
+            assertEquals(500, store.size("Alice"));
+            for (int i = 0; i < read.size(); i++)
+            {
+                assertEquals("Bob acquired a new item: item-" + i, read.get(i).message());
+                assertEquals("Bob", read.get(i).sender());
+                assertEquals("Alice", read.get(i).recipient());
+            }
+            assertEquals(0, store.page("Alice", 130, 5).missed());
+            assertEquals("Bob acquired a new item: item-130", store.page("Alice", 130, 5).notifications().get(0).message());
+        }
+    }
+
+    @Test
+    public void testLatestReturnsNewestNotifications() throws IOException
+    {
+        try (PersistentInboxStore store = PersistentInboxStore.open(folder.getRoot().toPath(), 2, SMALL_SEGMENT))
+        {
+            for (int i = 0; i < 10; i++)
+            {
+                store.deliver("Alice", Notification.templated(GameEvents.ITEM_ACQUIRED,
+                        MessageTemplate.ITEM_ACQUIRED, "Bob", null, true, "Bob", "item-" + i));
+            }
+
+            List<Notification> latest = store.latest("Alice", 3);
+
+            assertEquals(3, latest.size());
+            assertEquals("Bob acquired a new item: item-7", latest.get(0).message());
+            assertEquals("Bob acquired a new item: item-9", latest.get(2).message());
+            assertEquals(10, store.latest("Alice", 50).size());
+            assertTrue(store.latest("Nobody", 5).isEmpty());
+        }
+    }
+
+    @Test
+    public void testTypesAndPlainMessagesSurviveReopen() throws IOException
+    {
+        Path dir = folder.getRoot().toPath();
+        try (PersistentInboxStore store = PersistentInboxStore.open(dir, 2, SMALL_SEGMENT))
+        {
+            store.deliver("Alice", new Notification(GameEvents.PVP, "You were attacked", "Bob", "Alice", false));
+            store.deliver("Alice", new Notification(SocialEvents.PVP, "Bob challenged you", null, "Alice", false));
+        }
+
+        try (PersistentInboxStore store = PersistentInboxStore.open(dir, 2, SMALL_SEGMENT))
+        {
+            store.deliver("Alice", Notification.templated(GameEvents.ITEM_ACQUIRED,
+                    MessageTemplate.ITEM_ACQUIRED, "Bob", null, true, "Bob", "Sword"));
+
+            List<Notification> inbox = store.page("Alice", 0, 10).notifications();
+            assertEquals(3, inbox.size());
+            assertSame(GameEvents.PVP, inbox.get(0).type());
+            assertEquals("You were attacked", inbox.get(0).message());
+            assertSame(SocialEvents.PVP, inbox.get(1).type());
+            assertNull(inbox.get(1).sender());
+            assertEquals("Bob acquired a new item: Sword", inbox.get(2).message());
+        }
+    }
+
+    @Test
+    public void testInboxesSpanSegmentsAcrossRestarts() throws IOException
+    {
+        Path dir = folder.getRoot().toPath();
+        try (PersistentInboxStore store = PersistentInboxStore.open(dir, 1, SMALL_SEGMENT))
+        {
+            for (int i = 0; i < 10_000; i++)
+            {
+                String sender = "sender-" + i % 3;
+                store.deliver("user-" + i % 7, Notification.templated(GameEvents.ITEM_ACQUIRED,
+                        MessageTemplate.ITEM_ACQUIRED, sender, null, true, sender, "item-" + i));
+            }
+        }
+        assertTrue(dir.resolve("shard-000").toFile().list().length > 1);
+
+        try (PersistentInboxStore store = PersistentInboxStore.open(dir, 1, SMALL_SEGMENT))
+        {
+            assertEquals(1_429, store.size("user-0"));
+            List<Notification> page = store.page("user-0", 1_000, 2).notifications();
+            assertEquals("sender-1 acquired a new item: item-7000", page.get(0).message());
+            assertEquals("sender-2 acquired a new item: item-7007", page.get(1).message());
+        }
+    }
+}
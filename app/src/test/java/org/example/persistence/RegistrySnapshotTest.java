@@ -0,0 +1,229 @@
+package org.example.persistence;
+
+import org.example.events.EventTypes;
+import org.example.events.GameEvents;
+import org.example.model.MessageTemplate;
+import org.example.model.Notification;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class RegistrySnapshotTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadReturnsWhatWasWritten() throws IOException
+    {
+        Path dir = folder.getRoot().toPath();
+        Path file;
+        try (RegistrySnapshotWriter writer = RegistrySnapshotWriter.create(dir, 42))
+        {
+            writer.userId("Alice");
+            writer.userId("Bob");
+            writer.userId("Charlie");
+            writer.user(0, 0b101);
+            writer.user(2, 0b11);
+            writer.friendRequest(2, 0);
+            writer.friendships(0, new int[]{1});
+            writer.followers(0, new int[]{1, 2});
+            writer.followers(1, new int[0]);
+            writer.notification(2, Notification.builder(GameEvents.LEVEL_UP)
+                    .template(MessageTemplate.LEVEL_UP, "Alice").sender("Alice").recipient("Alice").build());
+            file = writer.commit();
+        }
+
+        List<String> visited = new ArrayList<>();
+        long logPosition = RegistrySnapshot.read(file, new RecordingVisitor(visited));
+
+        assertEquals(42, logPosition);
+        assertEquals(List.of("id 0 Alice", "id 1 Bob", "id 2 Charlie", "user 0 5", "user 2 3", "request 2 0",
+                "friends 0 1", "follower 0 1", "follower 0 2", "notification 2 Alice leveled up!"), visited);
+    }
+
+    @Test
+    public void testLargeSnapshotStreamsThroughBuffer() throws IOException
+    {
+        Path dir = folder.getRoot().toPath();
+        int users = 300_000;
+        int allTypes = (1 << EventTypes.count()) - 1;
+        Path file;
+        try (RegistrySnapshotWriter writer = RegistrySnapshotWriter.create(dir, 0))
+        {
+            for (int i = 0; i < users; i++)
+            {
+                writer.userId("user-" + i);
+            }
+            for (int i = 0; i < users; i++)
+            {
+                writer.user(i, i & allTypes);
+            }
+            file = writer.commit();
+        }
+
+        int[] sum = {0};
+        RegistrySnapshot.read(file, new RecordingVisitor(new ArrayList<>())
+        {
+            @Override
+            public void user(int index, int enabledTypes)
+            {
+                assertEquals(index & allTypes, enabledTypes);
+                sum[0]++;
+            }
+
+            @Override
+            public void userId(int index, String userId)
+            {
+                assertEquals("user-" + index, userId);
+            }
+        });
+        assertEquals(users, sum[0]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSectionsMustBeWrittenInOrder() throws IOException
+    {
+        try (RegistrySnapshotWriter writer = RegistrySnapshotWriter.create(folder.getRoot().toPath(), 0))
+        {
+            writer.user(0, 1);
+            writer.userId("Alice");
+        }
+    }
+
+    @Test
+    public void testCorruptSectionFailsRead() throws IOException
+    {
+        Path file;
+        try (RegistrySnapshotWriter writer = RegistrySnapshotWriter.create(folder.getRoot().toPath(), 0))
+        {
+            writer.userId("Alice");
+            file = writer.commit();
+        }
+        long userIds = RegistrySnapshot.HEADER_SIZE;
+        for (int id = 0; id < EventTypes.count(); id++)
+        {
+            userIds += Integer.BYTES + EventTypes.qualifiedName(EventTypes.byId(id)).length();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE))
+        {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), userIds + Integer.BYTES);
+        }
+
+        try
+        {
+            RegistrySnapshot.read(file, new RecordingVisitor(new ArrayList<>()));
+            fail("Expected the corrupt section to be detected");
+        } catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("USER_IDS"));
+        }
+    }
+
+    @Test
+    public void testUnknownEventTypeFailsRead() throws IOException
+    {
+        Path file;
+        try (RegistrySnapshotWriter writer = RegistrySnapshotWriter.create(folder.getRoot().toPath(), 0))
+        {
+            writer.userId("Alice");
+            writer.user(0, GameEvents.LEVEL_UP.mask());
+            file = writer.commit();
+        }
+        // The first type name is GameEvents.LEVEL_UP; rename it to a type this version does not have.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE))
+        {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), RegistrySnapshot.HEADER_SIZE + Integer.BYTES);
+        }
+
+        try
+        {
+            RegistrySnapshot.read(file, new RecordingVisitor(new ArrayList<>()));
+            fail("Expected the unknown event type to be rejected");
+        } catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("XameEvents.LEVEL_UP"));
+        }
+    }
+
+    @Test
+    public void testLatestAndDeleteBefore() throws IOException
+    {
+        Path dir = folder.getRoot().toPath();
+        assertEquals(Optional.empty(), RegistrySnapshot.latest(dir));
+        for (long position : new long[]{10, 300, 2000})
+        {
+            try (RegistrySnapshotWriter writer = RegistrySnapshotWriter.create(dir, position))
+            {
+                writer.commit();
+            }
+        }
+        try (RegistrySnapshotWriter writer = RegistrySnapshotWriter.create(dir, 5000))
+        {
+            writer.userId("uncommitted");
+        }
+
+        Path latest = RegistrySnapshot.latest(dir).orElseThrow();
+        assertEquals(2000, RegistrySnapshot.logPositionOf(latest));
+        assertEquals(2, RegistrySnapshot.deleteBefore(dir, 2000));
+        assertEquals(latest, RegistrySnapshot.latest(dir).orElseThrow());
+        assertEquals(1, dir.toFile().list().length);
+    }
+
+    private static class RecordingVisitor implements RegistrySnapshot.Visitor
+    {
+        private final List<String> visited;
+
+        RecordingVisitor(List<String> visited)
+        {
+            this.visited = visited;
+        }
+
+        @Override
+        public void userId(int index, String userId)
+        {
+            visited.add("id " + index + " " + userId);
+        }
+
+        @Override
+        public void user(int index, int enabledTypes)
+        {
+            visited.add("user " + index + " " + enabledTypes);
+        }
+
+        @Override
+        public void friendRequest(int fromIndex, int toIndex)
+        {
+            visited.add("request " + fromIndex + " " + toIndex);
+        }
+
+        @Override
+        public void friendship(int userIndex, int otherIndex)
+        {
+            visited.add("friends " + userIndex + " " + otherIndex);
+        }
+
+        @Override
+        public void follower(int followedIndex, int followerIndex)
+        {
+            visited.add("follower " + followedIndex + " " + followerIndex);
+        }
+
+        @Override
+        public void notification(int userIndex, Notification notification)
+        {
+            visited.add("notification " + userIndex + " " + notification.message());
+        }
+    }
+}
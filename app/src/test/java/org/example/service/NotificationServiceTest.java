@@ -1,13 +1,27 @@
 package org.example.service;
 
+import org.example.delivery.NoOpSink;
 import org.example.events.GameEvents;
 import org.example.events.SocialEvents;
 import org.example.exceptions.InvalidInputException;
+import org.example.metrics.NotificationMetrics;
+import org.example.model.Audience;
+import org.example.model.IdempotencyKey;
 import org.example.model.Notification;
+import org.example.observers.DeduplicatingSubject;
 import org.example.observers.Subject;
 import org.example.observers.SubjectImpl;
 import org.example.observers.ObserverImpl;
+import org.example.persistence.NotificationLog;
+import org.example.social.SocialGraph;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -21,6 +35,9 @@ public class NotificationServiceTest
     public static final String BOB = "Bob";
     public static final String CHARLIE = "Charlie";
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testLevelUpNotificationOnlySentToSubscribedUser() throws InvalidInputException
     {
@@ -344,17 +361,6 @@ public class NotificationServiceTest
         assertFalse(service.userExist(BOB));
     }
 
-    @Test
-    public void testBuildFriendRequestKey()
-    {
-        Subject subject = new SubjectImpl();
-        NotificationService service = new NotificationService(subject);
-
-        String key = service.buildFriendRequestKey(ALICE, BOB);
-
-        assertEquals(ALICE + "->" + BOB, key, ALICE + "->" + BOB);
-    }
-
     @Test
     public void testAddFriendRequest()
     {
@@ -445,4 +451,295 @@ public class NotificationServiceTest
     }
 
 
+    @Test
+    public void testBatchPublishesAllEvents() throws InvalidInputException
+    {
+        Subject subject = new SubjectImpl();
+        NotificationService service = new NotificationService(subject);
+        service.registerUser(ALICE);
+        service.registerUser(BOB);
+
+        NotificationBatch batch = service.newBatch()
+                .playerLeveledUp(ALICE)
+                .itemAcquired(BOB, "SwordOfAzeroth")
+                .gotNewFollower(ALICE, BOB);
+        assertEquals(3, batch.size());
+        batch.publish();
+
+        ObserverImpl alice = service.getUser(ALICE);
+        assertEquals(3, alice.getReceivedNotifications().size());
+        assertEquals("Alice leveled up!", alice.getReceivedNotifications().get(0).message());
+        assertEquals("Bob is now following you", alice.getReceivedNotifications().get(2).message());
+        assertEquals(2, service.getUser(BOB).getReceivedNotifications().size());
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void testBatchRecordsSocialEdgesWhenPublished() throws InvalidInputException
+    {
+        Subject subject = new SubjectImpl();
+        NotificationService service = new NotificationService(subject);
+        service.registerUsers(List.of(ALICE, BOB, CHARLIE));
+
+        NotificationBatch batch = service.newBatch()
+                .friendRequestAccepted(ALICE, BOB)
+                .gotNewFollower(ALICE, CHARLIE);
+        assertFalse(service.areFriends(ALICE, BOB));
+        assertFalse(service.isFollowing(CHARLIE, ALICE));
+        batch.publish();
+
+        assertTrue(service.areFriends(ALICE, BOB));
+        assertTrue(service.isFollowing(CHARLIE, ALICE));
+    }
+
+    @Test
+    public void testRegisterAndUnregisterUsers() throws InvalidInputException
+    {
+        Subject subject = new SubjectImpl();
+        NotificationService service = new NotificationService(subject);
+
+        service.registerUsers(List.of(ALICE, BOB, CHARLIE));
+        ObserverImpl bob = service.getUser(BOB);
+        service.unregisterUser(BOB);
+        service.playerLeveledUp(ALICE);
+
+        assertTrue(service.userExist(ALICE));
+        assertFalse(service.userExist(BOB));
+        assertTrue(bob.getReceivedNotifications().isEmpty());
+        assertEquals(1, service.getUser(CHARLIE).getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testListPendingFriendRequests() throws InvalidInputException
+    {
+        Subject subject = new SubjectImpl();
+        NotificationService service = new NotificationService(subject);
+        service.registerUsers(List.of(ALICE, BOB, CHARLIE));
+
+        service.addFriendRequest(ALICE, CHARLIE);
+        service.addFriendRequest(BOB, CHARLIE);
+        service.removeFriendRequest(ALICE, CHARLIE);
+
+        assertEquals(List.of(BOB), service.incomingFriendRequests(CHARLIE));
+        assertEquals(List.of(CHARLIE), service.outgoingFriendRequests(BOB));
+        assertTrue(service.outgoingFriendRequests(ALICE).isEmpty());
+
+        service.unregisterUser(BOB);
+        assertTrue(service.incomingFriendRequests(CHARLIE).isEmpty());
+    }
+
+    @Test
+    public void testAcceptedFriendRequestsAndFollowersAreRecorded() throws InvalidInputException
+    {
+        Subject subject = new SubjectImpl();
+        NotificationService service = new NotificationService(subject);
+        service.registerUsers(List.of(ALICE, BOB, CHARLIE));
+
+        service.friendRequestAccepted(BOB, ALICE);
+        service.gotNewFollower(ALICE, CHARLIE);
+
+        assertTrue(service.areFriends(ALICE, BOB));
+        assertEquals(List.of(BOB), service.friendsOf(ALICE));
+        assertTrue(service.isFollowing(CHARLIE, ALICE));
+        assertFalse(service.isFollowing(ALICE, CHARLIE));
+        assertEquals(List.of(CHARLIE), service.followersOf(ALICE));
+    }
+
+    @Test
+    public void testAudienceScopedEvents() throws InvalidInputException
+    {
+        SocialGraph graph = new SocialGraph();
+        Subject subject = new SubjectImpl(graph);
+        NotificationService service = new NotificationService(subject, 10, new NoOpSink(), graph);
+        service.registerUsers(List.of(ALICE, BOB, CHARLIE));
+        service.friendRequestAccepted(BOB, ALICE);
+
+        service.itemAcquired(ALICE, "SwordOfAzeroth", Audience.friendsOf(ALICE));
+        service.playerIsAttacked(ALICE, CHARLIE);
+
+        List<Notification> bobInbox = service.getUser(BOB).getReceivedNotifications();
+        assertEquals(1, bobInbox.size());
+        assertEquals("Alice acquired a new item: SwordOfAzeroth", bobInbox.get(0).message());
+        List<Notification> charlieInbox = service.getUser(CHARLIE).getReceivedNotifications();
+        assertEquals(1, charlieInbox.size());
+        assertEquals(GameEvents.PVP, charlieInbox.get(0).type());
+        List<Notification> aliceInbox = service.getUser(ALICE).getReceivedNotifications();
+        assertEquals(SocialEvents.FRIEND_REQUEST_IS_ACCEPTED, aliceInbox.get(0).type());
+        assertEquals(GameEvents.PVP, aliceInbox.get(1).type());
+        assertEquals(2, aliceInbox.size());
+    }
+
+    @Test
+    public void testServiceRecordsEdgesInTheGraphItWasGiven() throws InvalidInputException
+    {
+        SocialGraph graph = new SocialGraph();
+        NotificationService service = new NotificationService(new SubjectImpl(graph), 10, new NoOpSink(), graph);
+        service.registerUsers(List.of(ALICE, BOB));
+        service.friendRequestAccepted(BOB, ALICE);
+
+        assertSame(graph, service.getSocialGraph());
+        assertTrue(graph.areFriends(service.getUser(ALICE).getIndex(), service.getUser(BOB).getIndex()));
+    }
+
+    @Test
+    public void testRetriedEventWithIdempotencyKeyIsDeliveredOnce() throws InvalidInputException
+    {
+        Subject subject = new DeduplicatingSubject(new SubjectImpl(), Duration.ofMinutes(5), 1024);
+        NotificationService service = new NotificationService(subject);
+        service.registerUsers(List.of(ALICE, BOB));
+
+        service.newBatch().idempotencyKey(IdempotencyKey.of("request-42")).friendRequestSent(ALICE, BOB).publish();
+        service.newBatch().idempotencyKey(IdempotencyKey.of("request-42")).friendRequestSent(ALICE, BOB).publish();
+        NotificationBatch batch = service.newBatch()
+                .playerLeveledUp(ALICE, Audience.explicit(BOB))
+                .itemAcquired(ALICE, "Sword", Audience.explicit(BOB));
+        batch.idempotencyKey(IdempotencyKey.of("request-43")).publish();
+        batch.playerLeveledUp(ALICE, Audience.explicit(BOB))
+                .itemAcquired(ALICE, "Sword", Audience.explicit(BOB))
+                .idempotencyKey(IdempotencyKey.of("request-43"))
+                .publish();
+
+        assertEquals(3, service.getUser(BOB).getReceivedNotifications().size());
+    }
+
+    @Test
+    public void testRecoverRebuildsStateFromLog() throws Exception
+    {
+        Path dir = folder.getRoot().toPath();
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            SocialGraph graph = new SocialGraph();
+            NotificationService service = NotificationService.recover(new SubjectImpl(graph),
+                    ObserverImpl.DEFAULT_INBOX_CAPACITY, new NoOpSink(), graph, log);
+            service.registerUsers(List.of(ALICE, BOB, CHARLIE));
+            service.setNotificationPreference(CHARLIE, "game", false);
+            service.addFriendRequest(CHARLIE, ALICE);
+            service.friendRequestAccepted(ALICE, BOB);
+            service.playerLeveledUp(ALICE, Audience.friendsOf(ALICE));
+            service.itemAcquired(BOB, "Sword");
+            service.unregisterUser(CHARLIE);
+            service.registerUser(CHARLIE);
+        }
+
+        List<Notification> delivered = new ArrayList<>();
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            SocialGraph graph = new SocialGraph();
+            NotificationService recovered = NotificationService.recover(new SubjectImpl(graph),
+                    ObserverImpl.DEFAULT_INBOX_CAPACITY, (userId, notification) -> delivered.add(notification), graph,
+                    log);
+
+            assertTrue(delivered.isEmpty());
+            assertTrue(recovered.areFriends(ALICE, BOB));
+            assertFalse(recovered.friendRequestExists(CHARLIE, ALICE));
+            assertEquals(3, recovered.getUser(BOB).getReceivedNotifications().size());
+            assertEquals(1, recovered.getUser(ALICE).getReceivedNotifications().size());
+            assertTrue(recovered.getUser(CHARLIE).getReceivedNotifications().isEmpty());
+            assertTrue(recovered.getUser(CHARLIE).isNotificationEnabled(GameEvents.LEVEL_UP));
+
+            recovered.playerLeveledUp(CHARLIE);
+            assertEquals(3, delivered.size());
+        }
+    }
+
+    @Test
+    public void testRecoverDeliversToTheSameUsersWhenIndexesChange() throws Exception
+    {
+        Path dir = folder.getRoot().toPath();
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            SocialGraph graph = new SocialGraph();
+            NotificationService service = NotificationService.recover(new SubjectImpl(graph),
+                    ObserverImpl.DEFAULT_INBOX_CAPACITY, new NoOpSink(), graph, log);
+            service.friendRequestAccepted("ghost", "ghost");
+            service.registerUsers(List.of(ALICE, BOB));
+            service.friendRequestSent(BOB, ALICE);
+            service.getUser(BOB).disableNotification(GameEvents.LEVEL_UP);
+        }
+
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            SocialGraph graph = new SocialGraph();
+            NotificationService recovered = NotificationService.recover(new SubjectImpl(graph),
+                    ObserverImpl.DEFAULT_INBOX_CAPACITY, new NoOpSink(), graph, log);
+
+            assertEquals(1, recovered.getUser(ALICE).getReceivedNotifications().size());
+            assertEquals(SocialEvents.FRIEND_REQUEST,
+                    recovered.getUser(ALICE).getReceivedNotifications().get(0).type());
+            assertTrue(recovered.getUser(BOB).getReceivedNotifications().isEmpty());
+            assertFalse(recovered.getUser(BOB).isNotificationEnabled(GameEvents.LEVEL_UP));
+        }
+    }
+
+    @Test
+    public void testRecoverDoesNotRecordReplayedDeliveries() throws Exception
+    {
+        Path dir = folder.getRoot().toPath();
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            SocialGraph graph = new SocialGraph();
+            NotificationService service = NotificationService.recover(new SubjectImpl(graph),
+                    ObserverImpl.DEFAULT_INBOX_CAPACITY, new NoOpSink(), graph, log);
+            service.registerUsers(List.of(ALICE, BOB));
+            service.playerLeveledUp(ALICE);
+        }
+
+        try (NotificationLog log = NotificationLog.open(dir))
+        {
+            SocialGraph graph = new SocialGraph();
+            NotificationMetrics metrics = new NotificationMetrics("replay");
+            NotificationService recovered = NotificationService.recover(
+                    new SubjectImpl(graph, SubjectImpl.PUSH_ONLY, metrics), ObserverImpl.DEFAULT_INBOX_CAPACITY,
+                    new NoOpSink(), graph, metrics, log, folder.newFolder("snapshots").toPath());
+
+            assertEquals(1, recovered.getUser(BOB).getReceivedNotifications().size());
+            assertEquals(0, metrics.getDeliveries());
+            assertEquals(0, metrics.getFilteredByPreference());
+
+            recovered.playerLeveledUp(BOB);
+            assertEquals(2, metrics.getDeliveries());
+        }
+    }
+
+    @Test
+    public void testRecoverFromSnapshotReplaysOnlyLaterLog() throws Exception
+    {
+        Path logDir = folder.newFolder("log").toPath();
+        Path snapshotDir = folder.newFolder("snapshots").toPath();
+        List<Notification> aliceInbox;
+        try (NotificationLog log = NotificationLog.open(logDir))
+        {
+            SocialGraph graph = new SocialGraph();
+            NotificationService service = NotificationService.recover(new SubjectImpl(graph),
+                    ObserverImpl.DEFAULT_INBOX_CAPACITY, new NoOpSink(), graph, log, snapshotDir);
+            service.registerUsers(List.of(ALICE, BOB, CHARLIE));
+            service.setNotificationPreference(BOB, "social", false);
+            service.addFriendRequest(CHARLIE, ALICE);
+            service.friendRequestAccepted(ALICE, BOB);
+            service.gotNewFollower(ALICE, CHARLIE);
+            service.writeSnapshot(snapshotDir);
+            service.setNotificationPreference(CHARLIE, "game", false);
+            service.playerLeveledUp(ALICE);
+            aliceInbox = service.getUser(ALICE).getReceivedNotifications();
+        }
+
+        try (NotificationLog log = NotificationLog.open(logDir))
+        {
+            SocialGraph graph = new SocialGraph();
+            NotificationService recovered = NotificationService.recover(new SubjectImpl(graph),
+                    ObserverImpl.DEFAULT_INBOX_CAPACITY, new NoOpSink(), graph, log, snapshotDir);
+
+            assertTrue(recovered.areFriends(BOB, ALICE));
+            assertTrue(recovered.isFollowing(CHARLIE, ALICE));
+            assertEquals(List.of(CHARLIE), recovered.incomingFriendRequests(ALICE));
+            assertFalse(recovered.getUser(BOB).isNotificationEnabled(SocialEvents.NEW_FOLLOWER));
+            assertFalse(recovered.getUser(CHARLIE).isNotificationEnabled(GameEvents.LEVEL_UP));
+            // The inboxes come from the snapshot, the level up from the log written after it.
+            assertEquals(2, aliceInbox.size());
+            assertEquals(aliceInbox, recovered.getUser(ALICE).getReceivedNotifications());
+            assertEquals(1, recovered.getUser(BOB).getReceivedNotifications().size());
+            assertTrue(recovered.getUser(CHARLIE).getReceivedNotifications().isEmpty());
+        }
+    }
+
 }
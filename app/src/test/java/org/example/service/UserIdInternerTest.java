@@ -0,0 +1,42 @@
+package org.example.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class UserIdInternerTest
+{
+    @Test
+    public void testInternAssignsDenseStableIndexes()
+    {
+        UserIdInterner interner = new UserIdInterner();
+
+        assertEquals(0, interner.intern("Alice"));
+        assertEquals(1, interner.intern("Bob"));
+        assertEquals(0, interner.intern("Alice"));
+        assertEquals(2, interner.size());
+        assertEquals("Bob", interner.userId(1));
+    }
+
+    @Test
+    public void testFindDoesNotIntern()
+    {
+        UserIdInterner interner = new UserIdInterner();
+
+        assertEquals(UserIdInterner.NOT_INTERNED, interner.find("Alice"));
+        assertEquals(0, interner.size());
+    }
+
+    @Test
+    public void testInternGrowsPastInitialCapacity()
+    {
+        UserIdInterner interner = new UserIdInterner();
+        for (int i = 0; i < 1000; i++)
+        {
+            assertEquals(i, interner.intern("player" + i));
+        }
+
+        assertEquals("player999", interner.userId(999));
+        assertEquals(500, interner.find("player500"));
+    }
+}
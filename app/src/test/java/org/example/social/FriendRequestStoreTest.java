@@ -0,0 +1,130 @@
+package org.example.social;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class FriendRequestStoreTest
+{
+    private AtomicLong now;
+    private FriendRequestStore store;
+
+    @Before
+    public void setUp()
+    {
+        now = new AtomicLong(1_000);
+        store = new FriendRequestStore(Duration.ofMillis(100), now::get);
+    }
+
+    @Test
+    public void testKeyPacksDirectedPair()
+    {
+        assertEquals(1L << 32 | 2L, FriendRequestStore.key(1, 2));
+        assertNotEquals(FriendRequestStore.key(1, 2), FriendRequestStore.key(2, 1));
+    }
+
+    @Test
+    public void testAddIsIdempotentAndIndexedBothWays()
+    {
+        assertTrue(store.add(1, 2));
+        assertFalse(store.add(1, 2));
+        assertTrue(store.add(3, 2));
+
+        assertTrue(store.contains(1, 2));
+        assertFalse(store.contains(2, 1));
+        int[] incoming = store.incoming(2);
+        Arrays.sort(incoming);
+        assertArrayEquals(new int[]{1, 3}, incoming);
+        assertArrayEquals(new int[]{2}, store.outgoing(1));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void testAcceptAndRejectRemoveRequest()
+    {
+        store.add(1, 2);
+        store.add(3, 2);
+
+        assertTrue(store.accept(1, 2));
+        assertFalse(store.accept(1, 2));
+        assertTrue(store.reject(3, 2));
+
+        assertEquals(0, store.incoming(2).length);
+        assertEquals(0, store.outgoing(1).length);
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testExpireStaleRemovesOnlyOldRequests()
+    {
+        store.add(1, 2);
+        now.addAndGet(60);
+        store.add(3, 4);
+        now.addAndGet(60);
+
+        assertEquals(1, store.expireStale());
+        assertFalse(store.contains(1, 2));
+        assertTrue(store.contains(3, 4));
+        assertEquals(0, store.outgoing(1).length);
+    }
+
+    @Test
+    public void testResentRequestIsNotExpiredByItsPredecessor()
+    {
+        store.add(1, 2);
+        now.addAndGet(60);
+        store.reject(1, 2);
+        store.add(1, 2);
+        now.addAndGet(60);
+
+        assertEquals(0, store.expireStale());
+        assertTrue(store.contains(1, 2));
+    }
+
+    @Test
+    public void testAnsweredRequestsDoNotStayInTheExpiryQueue()
+    {
+        for (int i = 0; i < 100_000; i++)
+        {
+            store.add(1, 2);
+            store.reject(1, 2);
+        }
+        assertEquals(0, store.expiryQueueSize());
+
+        store.add(0, 1);
+        for (int i = 2; i < 10_000; i++)
+        {
+            store.add(i, 1);
+            store.add(1, i);
+            store.accept(i, 1);
+        }
+        assertEquals(9_999, store.size());
+        assertTrue(store.expiryQueueSize() <= 2 * store.size());
+
+        now.addAndGet(200);
+        assertEquals(9_999, store.expireStale());
+        assertEquals(0, store.expiryQueueSize());
+    }
+
+    @Test
+    public void testRemoveUserDropsRequestsInBothDirections()
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            store.add(0, i + 1);
+            store.add(i + 1, 0);
+        }
+        store.add(5, 6);
+
+        store.removeUser(0);
+
+        assertEquals(1, store.size());
+        assertEquals(0, store.incoming(7).length);
+        assertTrue(store.contains(5, 6));
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.social;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SocialGraphTest
+{
+    @Test
+    public void testFriendshipIsSymmetric()
+    {
+        SocialGraph graph = new SocialGraph();
+
+        assertTrue(graph.addFriendship(1, 2));
+        assertFalse(graph.addFriendship(2, 1));
+
+        assertTrue(graph.areFriends(1, 2));
+        assertTrue(graph.areFriends(2, 1));
+        assertEquals(1, graph.friendCount(1));
+        assertEquals(1, graph.edgeCount());
+    }
+
+    @Test
+    public void testFollowerIsDirected()
+    {
+        SocialGraph graph = new SocialGraph();
+
+        graph.addFollower(1, 2);
+        graph.addFollower(1, 3);
+
+        assertTrue(graph.isFollowing(2, 1));
+        assertFalse(graph.isFollowing(1, 2));
+        int[] followers = graph.followersOf(1);
+        Arrays.sort(followers);
+        assertArrayEquals(new int[]{2, 3}, followers);
+        assertArrayEquals(new int[]{1}, graph.followedBy(3));
+    }
+
+    @Test
+    public void testSelfEdgesAreIgnored()
+    {
+        SocialGraph graph = new SocialGraph();
+
+        assertFalse(graph.addFriendship(1, 1));
+        assertFalse(graph.addFollower(1, 1));
+
+        assertFalse(graph.areFriends(1, 1));
+        assertFalse(graph.isFollowing(1, 1));
+        assertEquals(0, graph.edgeCount());
+    }
+
+    @Test
+    public void testEdgesSurviveCompaction()
+    {
+        SocialGraph graph = new SocialGraph();
+        for (int follower = 1; follower <= 10_000; follower++)
+        {
+            graph.addFollower(0, follower);
+        }
+        graph.removeFollower(0, 500);
+        graph.compact();
+        graph.addFollower(0, 10_001);
+        graph.removeFollower(0, 600);
+
+        assertEquals(9_999, graph.followerCount(0));
+        assertFalse(graph.isFollowing(500, 0));
+        assertFalse(graph.isFollowing(600, 0));
+        assertTrue(graph.isFollowing(10_001, 0));
+        long[] sum = {0};
+        graph.forEachFollower(0, follower -> sum[0] += follower);
+        assertEquals(10_001L * 10_002 / 2 - 500 - 600, sum[0]);
+    }
+
+    @Test
+    public void testRemoveUserDropsAllRelations()
+    {
+        SocialGraph graph = new SocialGraph();
+        graph.addFriendship(1, 2);
+        graph.addFollower(1, 3);
+        graph.addFollower(4, 1);
+
+        graph.removeUser(1);
+
+        assertEquals(0, graph.friendCount(2));
+        assertEquals(0, graph.followedBy(3).length);
+        assertEquals(0, graph.followerCount(4));
+        assertEquals(0, graph.edgeCount());
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.workload;
+
+import org.example.delivery.NoOpSink;
+import org.example.events.GameEvents;
+import org.example.exceptions.InvalidInputException;
+import org.example.observers.ObserverImpl;
+import org.example.observers.SubjectImpl;
+import org.example.service.NotificationService;
+import org.example.social.SocialGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TraceReplayerTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGeneratedTraceSurvivesWriteAndRead() throws Exception
+    {
+        List<TraceEvent> trace = new TraceGenerator(50, 7).generate(2_000);
+        Path file = folder.getRoot().toPath().resolve("trace.txt");
+
+        TraceFile.write(file, trace);
+
+        assertEquals(trace, TraceFile.read(file));
+        assertEquals(trace, new TraceGenerator(50, 7).generate(2_000));
+    }
+
+    @Test
+    public void testMalformedLineNamesItsLineNumber() throws Exception
+    {
+        Path file = folder.getRoot().toPath().resolve("trace.txt");
+        Files.writeString(file, "# comment\nregister alice\n\nitem alice Sword of Dawn\nattack alice\n");
+
+        try
+        {
+            TraceFile.read(file);
+            fail("Expected the attack line to be rejected");
+        } catch (IllegalArgumentException e)
+        {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Trace line 5:"));
+        }
+    }
+
+    @Test
+    public void testReplayAppliesEventsAndCountsRejections() throws InvalidInputException
+    {
+        SocialGraph socialGraph = new SocialGraph();
+        NotificationService service = new NotificationService(new SubjectImpl(socialGraph),
+                ObserverImpl.DEFAULT_INBOX_CAPACITY, new NoOpSink(), socialGraph);
+        List<TraceEvent> trace = List.of(
+                new TraceEvent.Register("alice"),
+                new TraceEvent.Register("bob"),
+                new TraceEvent.Preference("bob", "game", false),
+                new TraceEvent.FriendRequest("alice", "bob"),
+                new TraceEvent.FriendAccept("bob", "alice"),
+                new TraceEvent.Attack("bob", "alice"),
+                new TraceEvent.LevelUp("carol"),
+                new TraceEvent.FriendAccept("bob", "alice"));
+
+        ReplayReport report = new TraceReplayer(service).replay(trace, TraceReplayer.UNTHROTTLED);
+
+        assertEquals(8, report.events());
+        assertEquals(2, report.rejected());
+        assertEquals(8, report.latencyNanos().count());
+        assertTrue(service.areFriends("alice", "bob"));
+        assertFalse(service.getUser("bob").isNotificationEnabled(GameEvents.PVP));
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.benchmarks;
+
+import org.example.delivery.NoOpSink;
+import org.example.events.EventTypes;
+import org.example.events.GameEvents;
+import org.example.metrics.NotificationMetrics;
+import org.example.model.MessageTemplate;
+import org.example.model.Notification;
+import org.example.observers.ObserverImpl;
+import org.example.observers.SubjectImpl;
+import org.example.social.SocialGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SubjectImpl#notifyObservers(Notification)} for one recipient, addressed by index or by user id only, and for
+ * every subscriber, with and without {@link NotificationMetrics}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DispatchBenchmark
+{
+    private static final int TARGETED_NOTIFICATIONS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int observers;
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private SubjectImpl subject;
+    private Notification[] targeted;
+    private Notification[] targetedById;
+    private Notification broadcast;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        subject = new SubjectImpl(new SocialGraph(), SubjectImpl.PUSH_ONLY,
+                instrumented ? new NotificationMetrics("dispatch-benchmark") : null);
+        List<ObserverImpl> users = new ArrayList<>(observers);
+        for (int i = 0; i < observers; i++)
+        {
+            ObserverImpl user = new ObserverImpl("user-" + i, i, 16, new NoOpSink());
+            user.enableNotifications((1 << EventTypes.count()) - 1);
+            users.add(user);
+        }
+        subject.registerObservers(users);
+        SplittableRandom random = new SplittableRandom(42);
+        targeted = new Notification[TARGETED_NOTIFICATIONS];
+        targetedById = new Notification[TARGETED_NOTIFICATIONS];
+        for (int i = 0; i < targeted.length; i++)
+        {
+            int recipient = random.nextInt(observers);
+            targeted[i] = Notification.builder(GameEvents.LEVEL_UP)
+                    .template(MessageTemplate.LEVEL_UP, "user-" + recipient)
+                    .recipient("user-" + recipient, recipient)
+                    .build();
+            targetedById[i] = Notification.builder(GameEvents.LEVEL_UP)
+                    .template(MessageTemplate.LEVEL_UP, "user-" + recipient)
+                    .recipient("user-" + recipient)
+                    .build();
+        }
+        broadcast = Notification.templated(GameEvents.ITEM_ACQUIRED, MessageTemplate.ITEM_ACQUIRED, "user-0", null,
+                true, "user-0", "Sword");
+    }
+
+    @Benchmark
+    public void targeted()
+    {
+        subject.notifyObservers(targeted[next++ & (TARGETED_NOTIFICATIONS - 1)]);
+    }
+
+    /**
+     * Like {@link #targeted}, but the recipient carries no index, so it is looked up by id.
+     */
+    @Benchmark
+    public void targetedById()
+    {
+        subject.notifyObservers(targetedById[next++ & (TARGETED_NOTIFICATIONS - 1)]);
+    }
+
+    /**
+     * One operation delivers to every observer; divide by {@code observers} for the cost per delivery.
+     */
+    @Benchmark
+    public void broadcast()
+    {
+        subject.notifyObservers(broadcast);
+    }
+}
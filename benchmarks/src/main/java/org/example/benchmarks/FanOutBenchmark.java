@@ -0,0 +1,104 @@
+package org.example.benchmarks;
+
+import org.example.delivery.NoOpSink;
+import org.example.events.GameEvents;
+import org.example.model.Audience;
+import org.example.model.Notification;
+import org.example.observers.ObserverImpl;
+import org.example.observers.SubjectImpl;
+import org.example.social.SocialGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Level-ups of a player with {@value #FOLLOWERS} followers, pushed into every follower's inbox ({@code push}) or
+ * written once to the player's outbox and pulled by the followers when they read their inbox ({@code hybrid}).
+ * {@code read} is one follower reading an inbox after {@value #EVENTS} such level-ups; followers take turns, so each
+ * pulls what the outbox holds for them once per iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FanOutBenchmark
+{
+    private static final int FOLLOWERS = 500_000;
+    private static final int EVENTS = 20;
+    private static final int HYBRID_THRESHOLD = 10_000;
+
+    @Param({"push", "hybrid"})
+    public String mode;
+
+    private SubjectImpl subject;
+    private List<ObserverImpl> followers;
+    private Notification levelUp;
+    private int nextReader;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        SocialGraph graph = new SocialGraph();
+        for (int follower = 1; follower <= FOLLOWERS; follower++)
+        {
+            graph.addFollower(0, follower);
+        }
+        graph.compact();
+        subject = new SubjectImpl(graph, mode.equals("push") ? SubjectImpl.PUSH_ONLY : HYBRID_THRESHOLD);
+        NoOpSink sink = new NoOpSink();
+        List<ObserverImpl> users = new ArrayList<>(FOLLOWERS + 1);
+        for (int i = 0; i <= FOLLOWERS; i++)
+        {
+            ObserverImpl user = new ObserverImpl("player" + i, i, 10, sink);
+            user.enableNotification(GameEvents.LEVEL_UP);
+            users.add(user);
+        }
+        subject.registerObservers(users);
+        followers = users.subList(1, users.size());
+        levelUp = Notification.builder(GameEvents.LEVEL_UP).message("player0 leveled up")
+                .sender("player0", 0).recipient("player0", 0)
+                .audience(new Audience.FollowersOf("player0", 0)).build();
+    }
+
+    /**
+     * Fills the inboxes, or the outbox, that {@link #read} reads during the iteration.
+     */
+    @Setup(Level.Iteration)
+    public void publishEvents()
+    {
+        for (int i = 0; i < EVENTS; i++)
+        {
+            subject.notifyObservers(levelUp);
+        }
+        nextReader = 0;
+    }
+
+    @Benchmark
+    public void publish()
+    {
+        subject.notifyObservers(levelUp);
+    }
+
+    @Benchmark
+    public int read()
+    {
+        ObserverImpl reader = followers.get(nextReader);
+        nextReader = nextReader + 1 == FOLLOWERS ? 0 : nextReader + 1;
+        return reader.getReceivedNotifications().size();
+    }
+}
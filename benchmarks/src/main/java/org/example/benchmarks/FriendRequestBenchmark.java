@@ -0,0 +1,92 @@
+package org.example.benchmarks;
+
+import org.example.delivery.NoOpSink;
+import org.example.observers.SubjectImpl;
+import org.example.service.NotificationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Friend request set operations on a store that already holds {@code pendingRequests} between 100k users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FriendRequestBenchmark
+{
+    private static final int USERS = 100_000;
+    private static final int PAIRS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int pendingRequests;
+
+    private NotificationService service;
+    private String[] from;
+    private String[] to;
+    private int next;
+
+    @Setup
+    public void setUp()
+    {
+        service = new NotificationService(new SubjectImpl(), 16, new NoOpSink());
+        List<String> userIds = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++)
+        {
+            userIds.add("user-" + i);
+        }
+        service.registerUsers(userIds);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < pendingRequests; i++)
+        {
+            service.addFriendRequest(userIds.get(random.nextInt(USERS)), userIds.get(random.nextInt(USERS)));
+        }
+        // Pairs outside the pending set, so add and remove always change the store.
+        from = new String[PAIRS];
+        to = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++)
+        {
+            from[i] = "sender-" + i;
+            to[i] = userIds.get(random.nextInt(USERS));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void addAndRemove()
+    {
+        int pair = next++ & (PAIRS - 1);
+        service.addFriendRequest(from[pair], to[pair]);
+        service.removeFriendRequest(from[pair], to[pair]);
+    }
+
+    @Benchmark
+    public boolean exists()
+    {
+        int pair = next++ & (PAIRS - 1);
+        return service.friendRequestExists(from[pair], to[pair]);
+    }
+
+    @Benchmark
+    public List<String> incoming()
+    {
+        return service.incomingFriendRequests(to[next++ & (PAIRS - 1)]);
+    }
+}
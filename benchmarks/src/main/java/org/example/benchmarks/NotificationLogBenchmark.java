@@ -0,0 +1,137 @@
+package org.example.benchmarks;
+
+import org.example.events.GameEvents;
+import org.example.model.MessageTemplate;
+import org.example.model.Notification;
+import org.example.persistence.LogRecord;
+import org.example.persistence.NotificationLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Appending {@value #RECORDS} published notifications to a fresh {@link NotificationLog} and waiting for the group
+ * commit, and replaying a log of that size. Scores are per record.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class NotificationLogBenchmark
+{
+    private static final int RECORDS = 2_000_000;
+    private static final LogRecord[] PUBLISHED = publishedRecords();
+
+    /**
+     * An empty log in a new directory for every iteration.
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyLog
+    {
+        Path directory;
+        NotificationLog log;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException
+        {
+            directory = Files.createTempDirectory("notification-log");
+            log = NotificationLog.open(directory);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException
+        {
+            log.close();
+            delete(directory);
+        }
+    }
+
+    /**
+     * A log holding {@value #RECORDS} records, written once.
+     */
+    @State(Scope.Benchmark)
+    public static class WrittenLog
+    {
+        Path directory;
+        NotificationLog log;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, InterruptedException
+        {
+            directory = Files.createTempDirectory("notification-log");
+            log = NotificationLog.open(directory);
+            append(log);
+            log.sync();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException
+        {
+            log.close();
+            delete(directory);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long appendAndSync(EmptyLog empty) throws InterruptedException
+    {
+        append(empty.log);
+        empty.log.sync();
+        return empty.log.durablePosition();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long replay(WrittenLog written) throws IOException
+    {
+        long[] count = {0};
+        written.log.replay(record -> count[0]++);
+        return count[0];
+    }
+
+    private static void append(NotificationLog log)
+    {
+        for (int i = 0; i < RECORDS; i++)
+        {
+            log.append(PUBLISHED[i & (PUBLISHED.length - 1)]);
+        }
+    }
+
+    private static LogRecord[] publishedRecords()
+    {
+        LogRecord[] records = new LogRecord[1024];
+        for (int i = 0; i < records.length; i++)
+        {
+            records[i] = new LogRecord.NotificationPublished(Notification.templated(GameEvents.ITEM_ACQUIRED,
+                    MessageTemplate.ITEM_ACQUIRED, "player-" + i, null, true, "player-" + i, "Sword"));
+        }
+        return records;
+    }
+
+    private static void delete(Path directory) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
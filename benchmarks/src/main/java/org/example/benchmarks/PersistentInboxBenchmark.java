@@ -0,0 +1,156 @@
+package org.example.benchmarks;
+
+import org.example.events.GameEvents;
+import org.example.model.MessageTemplate;
+import org.example.model.Notification;
+import org.example.persistence.PersistentInboxStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A {@link PersistentInboxStore} of {@value #USERS} users: delivering {@value #DELIVERIES} notifications into an
+ * empty store and forcing it, and reading the latest page of a hot user or a page at a random offset of any user from
+ * a store holding {@value #STORED} notifications. A tenth of the traffic goes to the first hundred users, the hot
+ * ones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class PersistentInboxBenchmark
+{
+    private static final int USERS = 100_000;
+    private static final int HOT_USERS = 100;
+    private static final int DELIVERIES = 1_000_000;
+    private static final int STORED = 5_000_000;
+    private static final int PAGE_SIZE = 20;
+    private static final String[] USER_IDS = userIds();
+
+    /**
+     * An empty store in a new directory for every iteration.
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyStore
+    {
+        Path directory;
+        PersistentInboxStore store;
+        final SplittableRandom random = new SplittableRandom(42);
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException
+        {
+            directory = Files.createTempDirectory("persistent-inbox");
+            store = PersistentInboxStore.open(directory);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException
+        {
+            store.close();
+            delete(directory);
+        }
+    }
+
+    /**
+     * A store holding {@value #STORED} notifications, written once.
+     */
+    @State(Scope.Benchmark)
+    public static class FilledStore
+    {
+        Path directory;
+        PersistentInboxStore store;
+        final SplittableRandom random = new SplittableRandom(7);
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException
+        {
+            directory = Files.createTempDirectory("persistent-inbox");
+            store = PersistentInboxStore.open(directory);
+            deliver(store, new SplittableRandom(42), STORED);
+            store.force();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException
+        {
+            store.close();
+            delete(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(DELIVERIES)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public PersistentInboxStore deliverAndForce(EmptyStore empty)
+    {
+        deliver(empty.store, empty.random, DELIVERIES);
+        empty.store.force();
+        return empty.store;
+    }
+
+    @Benchmark
+    public List<Notification> hotLatestPage(FilledStore filled)
+    {
+        return filled.store.latest(USER_IDS[filled.random.nextInt(HOT_USERS)], PAGE_SIZE);
+    }
+
+    @Benchmark
+    public int randomOffsetPage(FilledStore filled)
+    {
+        String userId = USER_IDS[filled.random.nextInt(USERS)];
+        long size = filled.store.size(userId);
+        return filled.store.page(userId, filled.random.nextLong(size + 1), PAGE_SIZE).notifications().size();
+    }
+
+    private static void deliver(PersistentInboxStore store, SplittableRandom random, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            int recipient = i % 10 == 0 ? random.nextInt(HOT_USERS) : random.nextInt(USERS);
+            String sender = USER_IDS[random.nextInt(USERS)];
+            store.deliver(USER_IDS[recipient], Notification.templated(GameEvents.ITEM_ACQUIRED,
+                    MessageTemplate.ITEM_ACQUIRED, sender, null, true, sender, "item-" + (i & 1023)));
+        }
+    }
+
+    private static String[] userIds()
+    {
+        String[] userIds = new String[USERS];
+        for (int i = 0; i < USERS; i++)
+        {
+            userIds[i] = "user-" + i;
+        }
+        return userIds;
+    }
+
+    private static void delete(Path directory) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
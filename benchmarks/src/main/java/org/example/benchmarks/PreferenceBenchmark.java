@@ -0,0 +1,90 @@
+package org.example.benchmarks;
+
+import org.example.delivery.NoOpSink;
+import org.example.events.GameEvents;
+import org.example.exceptions.InvalidInputException;
+import org.example.observers.ObserverImpl;
+import org.example.observers.SubjectImpl;
+import org.example.service.NotificationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning preferences off and back on, through the service by category and on an observer by single type. Every
+ * change also updates the subject's subscriber index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PreferenceBenchmark
+{
+    private static final int USER_SAMPLE = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int registeredUsers;
+
+    private NotificationService service;
+    private String[] userIds;
+    private ObserverImpl[] users;
+    private int next;
+
+    @Setup
+    public void setUp() throws InvalidInputException
+    {
+        service = new NotificationService(new SubjectImpl(), 16, new NoOpSink());
+        List<String> all = new ArrayList<>(registeredUsers);
+        for (int i = 0; i < registeredUsers; i++)
+        {
+            all.add("user-" + i);
+        }
+        service.registerUsers(all);
+        userIds = new String[USER_SAMPLE];
+        users = new ObserverImpl[USER_SAMPLE];
+        for (int i = 0; i < USER_SAMPLE; i++)
+        {
+            userIds[i] = all.get((int) ((long) i * registeredUsers / USER_SAMPLE));
+            users[i] = service.getUser(userIds[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void toggleCategory() throws InvalidInputException
+    {
+        String userId = userIds[next++ & (USER_SAMPLE - 1)];
+        service.setNotificationPreference(userId, "game", false);
+        service.setNotificationPreference(userId, "game", true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void toggleType()
+    {
+        ObserverImpl user = users[next++ & (USER_SAMPLE - 1)];
+        user.disableNotification(GameEvents.LEVEL_UP);
+        user.enableNotification(GameEvents.LEVEL_UP);
+    }
+
+    @Benchmark
+    public boolean isNotificationEnabled()
+    {
+        return users[next++ & (USER_SAMPLE - 1)].isNotificationEnabled(GameEvents.PVP);
+    }
+}
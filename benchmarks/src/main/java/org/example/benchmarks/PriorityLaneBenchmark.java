@@ -0,0 +1,184 @@
+package org.example.benchmarks;
+
+import org.example.delivery.NoOpSink;
+import org.example.events.EventTypes;
+import org.example.events.GameEvents;
+import org.example.model.Audience;
+import org.example.model.Notification;
+import org.example.observers.AsyncSubject;
+import org.example.observers.Observer;
+import org.example.observers.ObserverImpl;
+import org.example.observers.PrioritySubject;
+import org.example.observers.Subject;
+import org.example.observers.SubjectImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * PvP alerts published during a storm of item broadcasts to {@value #OBSERVERS} observers, delivered in call order by
+ * a single-worker {@link AsyncSubject} ({@code fifo}) or in priority lanes by a {@link PrioritySubject}
+ * ({@code priority}). Each {@code broadcast} operation is one storm: {@value #STORM_SIZE} broadcasts published 100
+ * microseconds apart, far faster than they are delivered, and then the wait until the backlog has drained. The
+ * {@code alert} score is the time from publishing an alert until it has been delivered.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class PriorityLaneBenchmark
+{
+    private static final int OBSERVERS = 20_000;
+    private static final int LANE_CAPACITY = 10_000;
+    private static final int STORM_SIZE = 200;
+    private static final long STORM_PAUSE_NANOS = 100_000;
+
+    @Param({"fifo", "priority"})
+    public String lanes;
+
+    private Subject subject;
+    private DeliveryCountingSubject counting;
+    private Notification item;
+    private Notification alert;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        counting = new DeliveryCountingSubject(new SubjectImpl());
+        List<ObserverImpl> users = new ArrayList<>(OBSERVERS);
+        for (int i = 0; i < OBSERVERS; i++)
+        {
+            ObserverImpl user = new ObserverImpl("player" + i, i, 16, new NoOpSink());
+            user.enableNotifications((1 << EventTypes.count()) - 1);
+            users.add(user);
+        }
+        counting.registerObservers(users);
+        subject = lanes.equals("priority")
+                ? PrioritySubject.builder(counting).laneCapacity(LANE_CAPACITY).build()
+                : new AsyncSubject(counting, LANE_CAPACITY, 1, AsyncSubject.OverflowPolicy.BLOCK);
+        item = new Notification(GameEvents.ITEM_ACQUIRED, "item", "player0", null, true);
+        alert = new Notification(GameEvents.PVP, "player1 attacked player2", "player1", "player2", false)
+                .withAudience(Audience.explicit("player1", "player2"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        ((AutoCloseable) subject).close();
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(1)
+    public long broadcast()
+    {
+        long published = counting.itemsDelivered;
+        for (int i = 0; i < STORM_SIZE; i++)
+        {
+            subject.notifyObservers(item);
+            LockSupport.parkNanos(STORM_PAUSE_NANOS);
+        }
+        published += STORM_SIZE;
+        while (counting.itemsDelivered < published)
+        {
+            LockSupport.parkNanos(STORM_PAUSE_NANOS);
+        }
+        return published;
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(1)
+    public long alert()
+    {
+        long delivered = counting.alertsDelivered;
+        subject.notifyObservers(alert);
+        while (counting.alertsDelivered == delivered)
+        {
+            Thread.yield();
+        }
+        return delivered;
+    }
+
+    /**
+     * Delivers through the delegate and counts the item broadcasts and PvP alerts it has delivered.
+     */
+    private static final class DeliveryCountingSubject implements Subject
+    {
+        private final SubjectImpl delegate;
+        private volatile long itemsDelivered;
+        private volatile long alertsDelivered;
+
+        DeliveryCountingSubject(SubjectImpl delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void registerObserver(Observer o)
+        {
+            delegate.registerObserver(o);
+        }
+
+        @Override
+        public void registerObservers(Collection<? extends Observer> observers)
+        {
+            delegate.registerObservers(observers);
+        }
+
+        @Override
+        public void unregisterObserver(Observer o)
+        {
+            delegate.unregisterObserver(o);
+        }
+
+        @Override
+        public void notifyObservers(Notification notification)
+        {
+            delegate.notifyObservers(notification);
+            count(notification);
+        }
+
+        @Override
+        public void notifyObservers(List<Notification> notifications)
+        {
+            delegate.notifyObservers(notifications);
+            for (Notification notification : notifications)
+            {
+                count(notification);
+            }
+        }
+
+        private void count(Notification notification)
+        {
+            if (notification.type() == GameEvents.PVP)
+            {
+                alertsDelivered++;
+            }
+            else if (notification.type() == GameEvents.ITEM_ACQUIRED)
+            {
+                itemsDelivered++;
+            }
+        }
+    }
+}
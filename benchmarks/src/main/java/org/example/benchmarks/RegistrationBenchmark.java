@@ -0,0 +1,93 @@
+package org.example.benchmarks;
+
+import org.example.delivery.NoOpSink;
+import org.example.exceptions.InvalidInputException;
+import org.example.observers.SubjectImpl;
+import org.example.service.NotificationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registering users into a service that already holds {@code registeredUsers}. The service is rebuilt before every
+ * iteration, so each iteration starts from the same size. The service reports every registration on standard output,
+ * which is discarded during the run so the benchmark measures the registration rather than the console.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RegistrationBenchmark
+{
+    private static final int BULK_SIZE = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int registeredUsers;
+
+    private NotificationService service;
+    private int next;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void silenceConsole()
+    {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreConsole()
+    {
+        System.setOut(console);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        service = new NotificationService(new SubjectImpl(), 16, new NoOpSink());
+        List<String> userIds = new ArrayList<>(registeredUsers);
+        for (int i = 0; i < registeredUsers; i++)
+        {
+            userIds.add("user-" + i);
+        }
+        service.registerUsers(userIds);
+        next = 0;
+    }
+
+    @Benchmark
+    public void registerUser() throws InvalidInputException
+    {
+        service.registerUser("new-" + next++);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public void registerUsers()
+    {
+        List<String> userIds = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++)
+        {
+            userIds.add("new-" + next++);
+        }
+        service.registerUsers(userIds);
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.benchmarks;
+
+import org.example.events.EventTypes;
+import org.example.events.GameEvents;
+import org.example.observers.ObserverImpl;
+import org.example.observers.SubjectImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers millions of observers in bulk and unregisters them one by one. One operation handles the whole
+ * population; divide by {@code observers} for the cost per observer, which should stay roughly constant as the
+ * population grows.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class RegistryChurnBenchmark
+{
+    private static final int GAME_NOTIFICATIONS = EventTypes.maskOf(GameEvents.LEVEL_UP, GameEvents.ITEM_ACQUIRED);
+
+    /**
+     * A new subject and observers that are not registered yet, for every iteration.
+     */
+    @State(Scope.Benchmark)
+    public static class Population
+    {
+        @Param({"250000", "1000000", "4000000"})
+        public int observers;
+
+        SubjectImpl subject;
+        List<ObserverImpl> users;
+
+        @Setup(Level.Iteration)
+        public void setUp()
+        {
+            users = newObservers(observers);
+            subject = new SubjectImpl();
+        }
+    }
+
+    /**
+     * Like {@link Population}, with every observer registered.
+     */
+    @State(Scope.Benchmark)
+    public static class RegisteredPopulation
+    {
+        @Param({"250000", "1000000", "4000000"})
+        public int observers;
+
+        SubjectImpl subject;
+        List<ObserverImpl> users;
+
+        @Setup(Level.Iteration)
+        public void setUp()
+        {
+            users = newObservers(observers);
+            subject = new SubjectImpl();
+            subject.registerObservers(users);
+        }
+    }
+
+    @Benchmark
+    public SubjectImpl register(Population population)
+    {
+        population.subject.registerObservers(population.users);
+        return population.subject;
+    }
+
+    @Benchmark
+    public SubjectImpl unregister(RegisteredPopulation population)
+    {
+        for (ObserverImpl user : population.users)
+        {
+            population.subject.unregisterObserver(user);
+        }
+        return population.subject;
+    }
+
+    private static List<ObserverImpl> newObservers(int count)
+    {
+        List<ObserverImpl> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            ObserverImpl user = new ObserverImpl("player" + i);
+            user.enableNotifications(GAME_NOTIFICATIONS);
+            users.add(user);
+        }
+        return users;
+    }
+}
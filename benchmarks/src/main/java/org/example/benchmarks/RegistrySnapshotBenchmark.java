@@ -0,0 +1,166 @@
+package org.example.benchmarks;
+
+import org.example.delivery.NoOpSink;
+import org.example.exceptions.InvalidInputException;
+import org.example.observers.SubjectImpl;
+import org.example.persistence.NotificationLog;
+import org.example.service.NotificationService;
+import org.example.social.SocialGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A cold start of a registry of {@value #USERS} users with preference changes, {@value #FRIEND_REQUESTS} friend
+ * requests and {@value #FOLLOWERS} followers: replaying the whole log, or streaming the snapshot and replaying nothing.
+ * {@code writeSnapshot} writes a new snapshot of the restored registry. The service reports registrations on standard
+ * output, which is discarded during the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RegistrySnapshotBenchmark
+{
+    private static final int USERS = 1_000_000;
+    private static final int FRIEND_REQUESTS = 200_000;
+    private static final int FOLLOWERS = 2_000_000;
+
+    private Path directory;
+    private Path logDirectory;
+    private Path snapshotDirectory;
+    private PrintStream console;
+
+    /**
+     * A registry restored from the snapshot before every iteration, and a new directory for the snapshot it writes.
+     */
+    @State(Scope.Benchmark)
+    public static class RestoredRegistry
+    {
+        NotificationLog log;
+        NotificationService service;
+        Path snapshotDirectory;
+
+        @Setup(Level.Iteration)
+        public void setUp(RegistrySnapshotBenchmark registry) throws IOException
+        {
+            log = NotificationLog.open(registry.logDirectory);
+            service = recover(log, registry.snapshotDirectory);
+            snapshotDirectory = Files.createTempDirectory(registry.directory, "written");
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException
+        {
+            log.close();
+            delete(snapshotDirectory);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InvalidInputException
+    {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        directory = Files.createTempDirectory("registry-snapshot");
+        logDirectory = directory.resolve("log");
+        snapshotDirectory = directory.resolve("snapshots");
+        SplittableRandom random = new SplittableRandom(42);
+        try (NotificationLog log = NotificationLog.open(logDirectory))
+        {
+            NotificationService service = recover(log, null);
+            List<String> userIds = new ArrayList<>(USERS);
+            for (int i = 0; i < USERS; i++)
+            {
+                userIds.add("user-" + i);
+            }
+            service.registerUsers(userIds);
+            for (int i = 0; i < USERS; i += 3)
+            {
+                service.setNotificationPreference(userIds.get(i), "social", false);
+            }
+            for (int i = 0; i < FRIEND_REQUESTS; i++)
+            {
+                service.addFriendRequest(userIds.get(random.nextInt(USERS)), userIds.get(random.nextInt(USERS)));
+            }
+            for (int i = 0; i < FOLLOWERS; i++)
+            {
+                int followed = random.nextInt(USERS);
+                service.gotNewFollower(userIds.get(followed),
+                        userIds.get((followed + 1 + random.nextInt(USERS - 1)) % USERS));
+            }
+            service.writeSnapshot(snapshotDirectory);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        System.setOut(console);
+        delete(directory);
+    }
+
+    @Benchmark
+    public NotificationService replayLog() throws IOException
+    {
+        try (NotificationLog log = NotificationLog.open(logDirectory))
+        {
+            return recover(log, null);
+        }
+    }
+
+    @Benchmark
+    public NotificationService restoreSnapshot() throws IOException
+    {
+        try (NotificationLog log = NotificationLog.open(logDirectory))
+        {
+            return recover(log, snapshotDirectory);
+        }
+    }
+
+    @Benchmark
+    public Path writeSnapshot(RestoredRegistry restored) throws IOException
+    {
+        return restored.service.writeSnapshot(restored.snapshotDirectory);
+    }
+
+    private static NotificationService recover(NotificationLog log, Path snapshotDirectory) throws IOException
+    {
+        SocialGraph graph = new SocialGraph();
+        SubjectImpl subject = new SubjectImpl(graph);
+        return snapshotDirectory == null
+                ? NotificationService.recover(subject, 16, new NoOpSink(), graph, log)
+                : NotificationService.recover(subject, 16, new NoOpSink(), graph, log, snapshotDirectory);
+    }
+
+    private static void delete(Path directory) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.benchmarks;
+
+import org.example.events.GameEvents;
+import org.example.model.Notification;
+import org.example.observers.ObserverImpl;
+import org.example.observers.ShardedSubject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broadcast delivery through a {@link ShardedSubject} with 1 to 16 shards. Each invocation publishes
+ * {@value #BROADCASTS} broadcasts to {@value #OBSERVERS} subscribers and closes the subject, which waits for every
+ * shard to deliver them, so the score is the time per delivery across all shards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ShardedDispatchBenchmark
+{
+    private static final int OBSERVERS = 200_000;
+    private static final int BROADCASTS = 200;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int shards;
+
+    private ShardedSubject subject;
+    private Notification[] broadcasts;
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        subject = new ShardedSubject(shards);
+        List<ObserverImpl> users = new ArrayList<>(OBSERVERS);
+        for (int i = 0; i < OBSERVERS; i++)
+        {
+            CountingObserver user = new CountingObserver("player" + i);
+            user.enableNotification(GameEvents.LEVEL_UP);
+            users.add(user);
+        }
+        subject.registerObservers(users);
+        broadcasts = new Notification[BROADCASTS];
+        for (int i = 0; i < BROADCASTS; i++)
+        {
+            String playerId = "player" + i;
+            broadcasts[i] = new Notification(GameEvents.LEVEL_UP, playerId + " leveled up!", playerId, playerId, true);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown()
+    {
+        subject.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OBSERVERS * BROADCASTS)
+    public void broadcast()
+    {
+        for (Notification notification : broadcasts)
+        {
+            subject.notifyObservers(notification);
+        }
+        subject.close();
+    }
+
+    /**
+     * Counts deliveries instead of keeping them in an inbox, so the benchmark measures dispatch rather than inbox
+     * writes.
+     */
+    private static final class CountingObserver extends ObserverImpl
+    {
+        private long received;
+        private int checksum;
+
+        private CountingObserver(String userId)
+        {
+            super(userId);
+        }
+
+        @Override
+        public void showNotification(Notification notification)
+        {
+            received++;
+            checksum += notification.message().hashCode();
+        }
+    }
+}
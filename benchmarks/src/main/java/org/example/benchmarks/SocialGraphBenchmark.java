@@ -0,0 +1,106 @@
+package org.example.benchmarks;
+
+import org.example.social.SocialGraph;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link SocialGraph} of {@value #EDGES} follower edges between {@value #USERS} users: loading it, with the bytes
+ * its adjacency rows take per edge, membership checks and follower iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SocialGraphBenchmark
+{
+    private static final int USERS = 1_000_000;
+    private static final int EDGES = 10_000_000;
+
+    /**
+     * The loaded graph, shared by the read benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class LoadedGraph
+    {
+        SocialGraph graph;
+        final SplittableRandom random = new SplittableRandom(7);
+
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            graph = load();
+        }
+    }
+
+    /**
+     * Reported next to the load time: the bytes of the adjacency rows per edge, both directions included.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint
+    {
+        public double rowBytesPerEdge;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(EDGES)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public SocialGraph load(Footprint footprint)
+    {
+        SocialGraph graph = load();
+        footprint.rowBytesPerEdge = (double) graph.memoryBytes() / graph.edgeCount();
+        return graph;
+    }
+
+    @Benchmark
+    public boolean isFollowing(LoadedGraph loaded)
+    {
+        return loaded.graph.isFollowing(loaded.random.nextInt(USERS), loaded.random.nextInt(USERS));
+    }
+
+    /**
+     * Iterates the followers of one user, {@value #EDGES} / {@value #USERS} on average.
+     */
+    @Benchmark
+    public void forEachFollower(LoadedGraph loaded, Blackhole blackhole)
+    {
+        loaded.graph.forEachFollower(loaded.random.nextInt(USERS), blackhole::consume);
+    }
+
+    private static SocialGraph load()
+    {
+        SplittableRandom random = new SplittableRandom(42);
+        SocialGraph graph = new SocialGraph();
+        for (int i = 0; i < EDGES; )
+        {
+            int followed = random.nextInt(USERS);
+            int follower = random.nextInt(USERS);
+            if (followed != follower && graph.addFollower(followed, follower))
+            {
+                i++;
+            }
+        }
+        graph.compact();
+        return graph;
+    }
+}
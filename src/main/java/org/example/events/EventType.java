@@ -1,8 +0,0 @@
-package org.example.events;
-
-/**
- * Created by Michael Garcia on 17/03/25
- */
-public interface EventType {
-  String name();
-}
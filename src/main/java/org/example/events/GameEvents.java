@@ -1,9 +0,0 @@
-package org.example.events;
-
-public enum GameEvents implements EventType {
-  LEVEL_UP,
-  ITEM_ACQUIRED,
-  CHALLENGE_COMPLETED,
-  ACHIEVEMENT_COMPLETED,
-  PVP
-}
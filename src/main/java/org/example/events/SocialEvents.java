@@ -1,9 +0,0 @@
-package org.example.events;
-
-public enum SocialEvents implements EventType
-{
-    PVP,
-    FRIEND_REQUEST,
-    FRIEND_REQUEST_IS_ACCEPTED,
-    NEW_FOLLOWER
-}